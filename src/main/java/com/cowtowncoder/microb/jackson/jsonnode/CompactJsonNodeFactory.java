@@ -0,0 +1,29 @@
+package com.cowtowncoder.microb.jackson.jsonnode;
+
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * {@link JsonNodeFactory} that constructs {@link ObjectNode}s backed by
+ * {@link CompactPropertyMap} instead of {@link java.util.LinkedHashMap}.
+ * Used by both {@link CustomJsonNodeReader} and regular {@code ObjectMapper.readTree()}
+ * when configured as node factory of the mapper
+ * (see {@code MapperBuilder.nodeFactory()}).
+ */
+public class CompactJsonNodeFactory extends JsonNodeFactory
+{
+    private static final long serialVersionUID = 1L;
+
+    public CompactJsonNodeFactory() {
+        this(false);
+    }
+
+    public CompactJsonNodeFactory(boolean bigDecimalExact) {
+        super(bigDecimalExact);
+    }
+
+    @Override
+    public ObjectNode objectNode() {
+        return new ObjectNode(this, new CompactPropertyMap());
+    }
+}
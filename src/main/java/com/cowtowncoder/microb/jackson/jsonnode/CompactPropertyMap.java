@@ -0,0 +1,236 @@
+package com.cowtowncoder.microb.jackson.jsonnode;
+
+import java.util.*;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * {@link Map} implementation for {@code ObjectNode} properties, optimized
+ * for small Objects: up to {@link #MAX_COMPACT_SIZE} entries are stored in
+ * parallel key/value arrays (in insertion order) and looked up by linear
+ * probing; beyond that contents are moved to a {@link LinkedHashMap}.
+ *<p>
+ * Lookups first check key identity: keys coming from parser are canonicalized
+ * by its symbol table (as long as {@code JsonFactory.Feature.CANONICALIZE_FIELD_NAMES}
+ * is enabled, which is the default) so identity usually matches for equal
+ * names; but {@link String#equals} is used as the fallback.
+ */
+public final class CompactPropertyMap extends AbstractMap<String, JsonNode>
+{
+    public final static int MAX_COMPACT_SIZE = 16;
+
+    private final static int INITIAL_CAPACITY = 8;
+
+    private String[] _keys;
+
+    private JsonNode[] _values;
+
+    private int _size;
+
+    /**
+     * Map used once there are more than {@link #MAX_COMPACT_SIZE} entries;
+     * arrays are not used after that.
+     */
+    private Map<String, JsonNode> _overflow;
+
+    public CompactPropertyMap() {
+        _keys = new String[INITIAL_CAPACITY];
+        _values = new JsonNode[INITIAL_CAPACITY];
+    }
+
+    /**
+     * @return Whether contents are (still) stored in compact form
+     */
+    public boolean isCompact() {
+        return _overflow == null;
+    }
+
+    @Override
+    public int size() {
+        return (_overflow == null) ? _size : _overflow.size();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (_overflow != null) {
+            return _overflow.containsKey(key);
+        }
+        return _indexOf(key) >= 0;
+    }
+
+    @Override
+    public JsonNode get(Object key) {
+        if (_overflow != null) {
+            return _overflow.get(key);
+        }
+        final int ix = _indexOf(key);
+        return (ix < 0) ? null : _values[ix];
+    }
+
+    @Override
+    public JsonNode put(String key, JsonNode value) {
+        if (_overflow != null) {
+            return _overflow.put(key, value);
+        }
+        final int ix = _indexOf(key);
+        if (ix >= 0) {
+            JsonNode old = _values[ix];
+            _values[ix] = value;
+            return old;
+        }
+        if (_size == _keys.length) {
+            if (_size >= MAX_COMPACT_SIZE) {
+                _overflow = new LinkedHashMap<>(_size << 2);
+                for (int i = 0; i < _size; ++i) {
+                    _overflow.put(_keys[i], _values[i]);
+                }
+                _keys = null;
+                _values = null;
+                _size = 0;
+                return _overflow.put(key, value);
+            }
+            final int newSize = Math.min(MAX_COMPACT_SIZE, _size << 1);
+            _keys = Arrays.copyOf(_keys, newSize);
+            _values = Arrays.copyOf(_values, newSize);
+        }
+        _keys[_size] = Objects.requireNonNull(key);
+        _values[_size] = value;
+        ++_size;
+        return null;
+    }
+
+    @Override
+    public JsonNode remove(Object key) {
+        if (_overflow != null) {
+            return _overflow.remove(key);
+        }
+        final int ix = _indexOf(key);
+        if (ix < 0) {
+            return null;
+        }
+        JsonNode old = _values[ix];
+        _removeAt(ix);
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        if (_overflow != null) {
+            _overflow.clear();
+        } else {
+            Arrays.fill(_keys, 0, _size, null);
+            Arrays.fill(_values, 0, _size, null);
+            _size = 0;
+        }
+    }
+
+    @Override
+    public Set<Map.Entry<String, JsonNode>> entrySet() {
+        if (_overflow != null) {
+            return _overflow.entrySet();
+        }
+        return new AbstractSet<Map.Entry<String, JsonNode>>() {
+            @Override
+            public int size() {
+                return CompactPropertyMap.this.size();
+            }
+
+            @Override
+            public Iterator<Map.Entry<String, JsonNode>> iterator() {
+                // If overflow happens during iteration, will fail same as
+                // LinkedHashMap iterator would
+                return (_overflow != null) ? _overflow.entrySet().iterator() : new EntryIterator();
+            }
+        };
+    }
+
+    private int _indexOf(Object key) {
+        final String[] keys = _keys;
+        final int size = _size;
+        for (int i = 0; i < size; ++i) {
+            if (keys[i] == key) {
+                return i;
+            }
+        }
+        if (key instanceof String) {
+            final int hash = key.hashCode();
+            for (int i = 0; i < size; ++i) {
+                final String k = keys[i];
+                if (k.hashCode() == hash && k.equals(key)) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private void _removeAt(int ix) {
+        final int tail = _size - ix - 1;
+        if (tail > 0) {
+            System.arraycopy(_keys, ix + 1, _keys, ix, tail);
+            System.arraycopy(_values, ix + 1, _values, ix, tail);
+        }
+        --_size;
+        _keys[_size] = null;
+        _values[_size] = null;
+    }
+
+    private final class EntryIterator implements Iterator<Map.Entry<String, JsonNode>>
+    {
+        private int _index;
+
+        private int _lastReturned = -1;
+
+        @Override
+        public boolean hasNext() {
+            _checkCompact();
+            return _index < _size;
+        }
+
+        @Override
+        public Map.Entry<String, JsonNode> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            _lastReturned = _index++;
+            return new Entry(_keys[_lastReturned], _values[_lastReturned]);
+        }
+
+        @Override
+        public void remove() {
+            if (_lastReturned < 0) {
+                throw new IllegalStateException();
+            }
+            _checkCompact();
+            _removeAt(_lastReturned);
+            _index = _lastReturned;
+            _lastReturned = -1;
+        }
+
+        private void _checkCompact() {
+            if (_overflow != null) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    /**
+     * Entry with snapshot of key and value (since array positions shift on
+     * removal and arrays are discarded on overflow); {@link #setValue} writes
+     * through to the map.
+     */
+    private final class Entry extends AbstractMap.SimpleEntry<String, JsonNode>
+    {
+        private static final long serialVersionUID = 1L;
+
+        Entry(String key, JsonNode value) {
+            super(key, value);
+        }
+
+        @Override
+        public JsonNode setValue(JsonNode value) {
+            put(getKey(), value);
+            return super.setValue(value);
+        }
+    }
+}
@@ -1,7 +1,10 @@
 package com.cowtowncoder.microb.jackson.jsonnode;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Objects;
+import java.util.Set;
 
 import com.fasterxml.jackson.core.*;
 import com.fasterxml.jackson.core.exc.StreamReadException;
@@ -9,6 +12,7 @@ import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ContainerNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fasterxml.jackson.databind.util.ArrayBuilders;
@@ -41,7 +45,40 @@ public final class CustomJsonNodeReader
         /**
          * Option that simply skips value altogether (maps to {@code null}).
          */
-        SKIP
+        SKIP,
+
+        /**
+         * Option that skips value but retains its raw bytes as
+         * {@link LazyJsonNode}, to be parsed on first access (if any).
+         * Requires source content to be passed to reader.
+         */
+        LAZY
+    }
+
+    /**
+     * Enumeration that specifies how JSON Arrays that only contain
+     * numbers (regardless of property name) are to be handled.
+     * Does not apply to {@code $vector} unless {@link VectorsAs#LIST_OF_NUMBERS}
+     * is used; nor if {@code DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS}
+     * is enabled (as primitive values could not retain precision).
+     */
+    public enum NumericArraysAs {
+        /**
+         * Default handling: ArrayNode of NumericNodes
+         */
+        NODES,
+
+        /**
+         * {@link NumericArrayNode} backed by {@code long[]} if all values are
+         * integral, {@code double[]} otherwise.
+         */
+        PRIMITIVE_DOUBLES,
+
+        /**
+         * {@link NumericArrayNode} backed by {@code long[]} if all values are
+         * integral, {@code float[]} otherwise.
+         */
+        PRIMITIVE_FLOATS
     }
 
     private final JsonNodeFactory _nodes;
@@ -49,28 +86,133 @@ public final class CustomJsonNodeReader
 
     private final VectorsAs _vectorsAs;
 
+    private final NumericArraysAs _numericArraysAs;
+
+    private final boolean _numericArrays;
+
     private final boolean _cfgFloatsAsBigDecimal;
 
     private final ArrayBuilders _arrayBuilders = new ArrayBuilders();
-    
+
+    private final ObjectMapper _mapper;
+
+    /**
+     * Content parser reads, if known: needed for lazy values
+     */
+    private final byte[] _source;
+
+    /**
+     * Names of properties with Object/Array values to read as {@link LazyJsonNode}s
+     * (in addition to {@code $vector} for {@link VectorsAs#LAZY})
+     */
+    private final Set<String> _lazyProperties;
+
+    private final boolean _hasLazyProperties;
+
+    /**
+     * Root of projection to apply, if any: if non-null, only matching
+     * content is read (and the rest skipped)
+     */
+    private final JsonPointerProjection.Node _projection;
+
     public CustomJsonNodeReader(ObjectMapper m, JsonParser p,
             VectorsAs vectorsAs)
     {
+        this(m, p, vectorsAs, NumericArraysAs.NODES, null, Collections.emptySet(), null);
+    }
+
+    public CustomJsonNodeReader(ObjectMapper m, JsonParser p,
+            VectorsAs vectorsAs, NumericArraysAs numericArraysAs)
+    {
+        this(m, p, vectorsAs, numericArraysAs, null, Collections.emptySet(), null);
+    }
+
+    /**
+     * Constructor for projection reading: only content matched by given
+     * projection is read into tree, and everything else skipped.
+     */
+    public CustomJsonNodeReader(ObjectMapper m, JsonParser p,
+            VectorsAs vectorsAs, JsonPointerProjection projection)
+    {
+        this(m, p, vectorsAs, NumericArraysAs.NODES, null, Collections.emptySet(),
+                Objects.requireNonNull(projection));
+    }
+
+    public CustomJsonNodeReader(ObjectMapper m, JsonParser p,
+            VectorsAs vectorsAs, byte[] source, Set<String> lazyProperties)
+    {
+        this(m, p, vectorsAs, NumericArraysAs.NODES, source, lazyProperties, null);
+    }
+
+    /**
+     * Constructor needed for lazy reading: either {@link VectorsAs#LAZY}
+     * or non-empty set of other lazy properties.
+     *
+     * @param numericArraysAs How to read Arrays of numbers (other than {@code $vector})
+     * @param source Content parser reads: parser must have been constructed for
+     *    the whole array (starting at offset 0)
+     * @param lazyProperties Names of properties (at any level) whose Object and
+     *    Array values are to be read as {@link LazyJsonNode}s
+     * @param projection Projection to apply, if any ({@code null} for none)
+     */
+    public CustomJsonNodeReader(ObjectMapper m, JsonParser p,
+            VectorsAs vectorsAs, NumericArraysAs numericArraysAs,
+            byte[] source, Set<String> lazyProperties,
+            JsonPointerProjection projection)
+    {
+        _mapper = m;
         _nodes = m.getNodeFactory();
         _parser = p;
         _vectorsAs = Objects.requireNonNull(vectorsAs);
+        _numericArraysAs = Objects.requireNonNull(numericArraysAs);
         _cfgFloatsAsBigDecimal = m.isEnabled(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+        // Primitive arrays can not retain BigDecimal precision, so not used in that case
+        _numericArrays = (numericArraysAs != NumericArraysAs.NODES) && !_cfgFloatsAsBigDecimal;
+        _source = source;
+        _lazyProperties = Objects.requireNonNull(lazyProperties);
+        _hasLazyProperties = !lazyProperties.isEmpty();
+        _projection = (projection == null || projection.root().includesAll())
+                ? null : projection.root();
+        if (source == null && (_hasLazyProperties || vectorsAs == VectorsAs.LAZY)) {
+            throw new IllegalArgumentException("Source content needed for lazy reading");
+        }
     }
 
     public JsonNode readTree() {
         try {
             _parser.nextToken();
+            if (_projection != null) {
+                return _readProjectedRoot();
+            }
             return _readFromRoot();
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * Alternative to {@link #readTree} that does not use recursion for
+     * nested Objects and Arrays but an explicit stack of open containers:
+     * this allows reading of arbitrarily deeply nested content (up to
+     * parser's nesting limit) and keeps the main loop in a single method.
+     * Handling of {@link VectorsAs} and lazy properties is same as with
+     * {@link #readTree}; projection (if any) is still read recursively.
+     */
+    public JsonNode readTreeIterative() {
+        try {
+            _parser.nextToken();
+            if (_projection != null) {
+                return _readProjectedRoot();
+            }
+            if (!_parser.isExpectedStartArrayToken() && !_parser.isExpectedStartObjectToken()) {
+                return _readFromRoot();
+            }
+            return _readContainersIteratively();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     private JsonNode _readFromRoot() throws IOException
     {
         switch (_parser.currentTokenId()) {
@@ -91,8 +233,8 @@ public final class CustomJsonNodeReader
         String propName;
 
         while ((propName = _parser.nextFieldName()) != null) {
-            _parser.nextToken();
-            ob.set(propName, _readAny(propName));
+            JsonToken t = _parser.nextToken();
+            ob.set(propName, _readPropertyValue(propName, t));
         }
 
         if (_parser.currentTokenId() != JsonTokenId.ID_END_OBJECT) {
@@ -102,31 +244,158 @@ public final class CustomJsonNodeReader
         return ob;
     }
 
+    private JsonNode _readPropertyValue(String propName, JsonToken t) throws IOException
+    {
+        if (_hasLazyProperties && t.isStructStart() && _lazyProperties.contains(propName)) {
+            return _readLazy();
+        }
+        return _readAny(propName);
+    }
+
     // Simple, straight-forward version:
     private JsonNode _readArray(String parentProp) throws IOException
     {
-        if ("$vector".equals(parentProp)) {
-            switch (_vectorsAs) {
-            case ARRAY_OF_FLOATS:
-                return _readVectorAsFloatArray();
-            case LIST_OF_STRINGS:
-                return _readVectorAsListOfStrings();
-            case LIST_OF_NUMBERS:
-                // Default, fall-through
-                break;
-            case SKIP:
-                // No-op but must skip actual values
-                _parser.skipChildren();
-                return null;
+        if (_isSpecialVector(parentProp)) {
+            return _readVector();
+        }
+        ArrayNode arr;
+        if (_numericArrays) {
+            arr = _readNumericArray();
+            if (_parser.currentToken() == JsonToken.END_ARRAY) {
+                return arr;
             }
+            // Not all numbers: continue from the first non-number
+            arr.add(_readAny(null));
+        } else {
+            arr = _nodes.arrayNode();
         }
-        ArrayNode arr = _nodes.arrayNode();
         while (_parser.nextToken() != JsonToken.END_ARRAY) {
             arr.add(_readAny(null));
         }
         return arr;
     }
 
+    /**
+     * Method called with START_ARRAY as current token, to read leading numbers
+     * of the Array. If all elements are numbers, returns {@link NumericArrayNode}
+     * with END_ARRAY as current token; otherwise a regular {@link ArrayNode}
+     * with numbers read so far, with the first element not included as
+     * the current token (or END_ARRAY, if all elements were numbers but some
+     * integral values can not be exactly represented by primitive type used).
+     *<p>
+     * Values are kept as read ({@code long} or {@code double}) until the
+     * whole Array is known to be numeric, so that fall back results in same
+     * nodes as regular reading; conversion to {@code float} (if any) is done last.
+     */
+    private ArrayNode _readNumericArray() throws IOException
+    {
+        JsonToken t = _parser.nextToken();
+        if (t == JsonToken.END_ARRAY) {
+            return _nodes.arrayNode();
+        }
+        long[] longs = new long[16];
+        // only allocated if (and when) the first floating-point value is encountered
+        double[] doubles = null;
+        boolean[] isFP = null;
+        int count = 0;
+
+        for (; t != JsonToken.END_ARRAY; t = _parser.nextToken(), ++count) {
+            if (count == longs.length) {
+                longs = Arrays.copyOf(longs, count << 1);
+                if (doubles != null) {
+                    doubles = Arrays.copyOf(doubles, count << 1);
+                    isFP = Arrays.copyOf(isFP, count << 1);
+                }
+            }
+            if (t == JsonToken.VALUE_NUMBER_INT) {
+                if (_parser.getNumberType() == JsonParser.NumberType.BIG_INTEGER) {
+                    break;
+                }
+                longs[count] = _parser.getLongValue();
+            } else if (t == JsonToken.VALUE_NUMBER_FLOAT) {
+                if (doubles == null) {
+                    doubles = new double[longs.length];
+                    isFP = new boolean[longs.length];
+                }
+                doubles[count] = _parser.getDoubleValue();
+                isFP[count] = true;
+            } else {
+                break;
+            }
+        }
+        if (t == JsonToken.END_ARRAY) {
+            if (doubles == null) {
+                return NumericArrayNode.ofLongs(_nodes, longs, count);
+            }
+            if (_numericArraysAs == NumericArraysAs.PRIMITIVE_FLOATS) {
+                final float[] floats = new float[count];
+                int i = 0;
+                for (; i < count; ++i) {
+                    if (isFP[i]) {
+                        floats[i] = (float) doubles[i];
+                    } else {
+                        final long l = longs[i];
+                        if ((long) (float) l != l) {
+                            break;
+                        }
+                        floats[i] = l;
+                    }
+                }
+                if (i == count) {
+                    return NumericArrayNode.ofFloats(_nodes, floats, count);
+                }
+            } else {
+                int i = 0;
+                for (; i < count; ++i) {
+                    if (!isFP[i]) {
+                        final long l = longs[i];
+                        if ((long) (double) l != l) {
+                            break;
+                        }
+                        doubles[i] = l;
+                    }
+                }
+                if (i == count) {
+                    return NumericArrayNode.ofDoubles(_nodes, doubles, count);
+                }
+            }
+        }
+        // Fall back: convert numbers read into nodes, same as regular reading would
+        ArrayNode arr = _nodes.arrayNode(count + 4);
+        for (int i = 0; i < count; ++i) {
+            if (isFP != null && isFP[i]) {
+                arr.add(_nodes.numberNode(doubles[i]));
+            } else {
+                final long l = longs[i];
+                arr.add(((int) l == l) ? _nodes.numberNode((int) l) : _nodes.numberNode(l));
+            }
+        }
+        return arr;
+    }
+
+    private boolean _isSpecialVector(String propName) {
+        return (_vectorsAs != VectorsAs.LIST_OF_NUMBERS) && "$vector".equals(propName);
+    }
+
+    // Called with START_ARRAY of "$vector" as current token
+    private JsonNode _readVector() throws IOException
+    {
+        switch (_vectorsAs) {
+        case ARRAY_OF_FLOATS:
+            return _readVectorAsFloatArray();
+        case LIST_OF_STRINGS:
+            return _readVectorAsListOfStrings();
+        case SKIP:
+            // No-op but must skip actual values
+            _parser.skipChildren();
+            return null;
+        case LAZY:
+            return _readLazy();
+        default:
+        }
+        throw _readError("Internal state error: no special handling for "+_vectorsAs);
+    }
+
     // Variant with inlined _readAny()
     // (not measurably faster)
     /*
@@ -191,6 +460,13 @@ public final class CustomJsonNodeReader
             return _readObject(parentProp);
         case JsonTokenId.ID_START_ARRAY:
             return _readArray(parentProp);
+        }
+        return _readScalar();
+    }
+
+    private JsonNode _readScalar() throws IOException
+    {
+        switch (_parser.currentTokenId()) {
         case JsonTokenId.ID_STRING:
             return _nodes.textNode(_parser.getText());
         case JsonTokenId.ID_NUMBER_INT:
@@ -255,6 +531,195 @@ public final class CustomJsonNodeReader
         return arr;
     }
     
+    // Iterative reading: called with START_OBJECT/START_ARRAY as current token;
+    // Object and Array nodes are attached to their parent when created, and
+    // then pushed on stack while their contents are read
+    private JsonNode _readContainersIteratively() throws IOException
+    {
+        ContainerNode<?>[] stack = new ContainerNode<?>[16];
+        int depth = 0;
+        // Whether current token is the first element of Array (`curr`) to read,
+        // instead of its START_ARRAY (after partial numeric array read)
+        boolean pending = false;
+        ContainerNode<?> curr = _startContainer(_parser.currentToken());
+        if (_numericArrays && curr.isArray()) {
+            if (_parser.currentToken() == JsonToken.END_ARRAY) {
+                return curr;
+            }
+            pending = true;
+        }
+        JsonToken t;
+
+        outer_loop:
+        while (true) {
+            if (curr.isObject()) {
+                final ObjectNode ob = (ObjectNode) curr;
+                String propName;
+                while ((propName = _parser.nextFieldName()) != null) {
+                    t = _parser.nextToken();
+                    if (!t.isStructStart()) {
+                        ob.set(propName, _readScalar());
+                        continue;
+                    }
+                    if (_hasLazyProperties && _lazyProperties.contains(propName)) {
+                        ob.set(propName, _readLazy());
+                        continue;
+                    }
+                    if (t == JsonToken.START_ARRAY && _isSpecialVector(propName)) {
+                        ob.set(propName, _readVector());
+                        continue;
+                    }
+                    ContainerNode<?> child = _startContainer(t);
+                    ob.set(propName, child);
+                    if (_numericArrays && t == JsonToken.START_ARRAY) {
+                        if (_parser.currentToken() == JsonToken.END_ARRAY) {
+                            continue;
+                        }
+                        pending = true;
+                    }
+                    if (depth == stack.length) {
+                        stack = Arrays.copyOf(stack, depth << 1);
+                    }
+                    stack[depth++] = curr;
+                    curr = child;
+                    continue outer_loop;
+                }
+                if (_parser.currentTokenId() != JsonTokenId.ID_END_OBJECT) {
+                    throw _readError("Internal state error: current token should be END_OBJECT, was: "
+                            +_parser.currentToken());
+                }
+            } else {
+                final ArrayNode arr = (ArrayNode) curr;
+                while (true) {
+                    if (pending) {
+                        t = _parser.currentToken();
+                        pending = false;
+                    } else {
+                        t = _parser.nextToken();
+                    }
+                    if (t == JsonToken.END_ARRAY) {
+                        break;
+                    }
+                    if (!t.isStructStart()) {
+                        arr.add(_readScalar());
+                        continue;
+                    }
+                    ContainerNode<?> child = _startContainer(t);
+                    arr.add(child);
+                    if (_numericArrays && t == JsonToken.START_ARRAY) {
+                        if (_parser.currentToken() == JsonToken.END_ARRAY) {
+                            continue;
+                        }
+                        pending = true;
+                    }
+                    if (depth == stack.length) {
+                        stack = Arrays.copyOf(stack, depth << 1);
+                    }
+                    stack[depth++] = curr;
+                    curr = child;
+                    continue outer_loop;
+                }
+            }
+            // Current container complete: continue with parent, if any
+            if (depth == 0) {
+                return curr;
+            }
+            curr = stack[--depth];
+        }
+    }
+
+    // For numeric arrays, may read some or all of contents
+    private ContainerNode<?> _startContainer(JsonToken t) throws IOException {
+        if (t == JsonToken.START_OBJECT) {
+            return _nodes.objectNode();
+        }
+        return _numericArrays ? _readNumericArray() : _nodes.arrayNode();
+    }
+
+    // Projection reading: containers are only included if they have matching content; and if
+    // nothing matches, result is "missing node" (same as with filtering parser)
+    private JsonNode _readProjectedRoot() throws IOException
+    {
+        JsonNode n = _readProjected(_projection, _parser.currentToken());
+        return (n == null) ? _nodes.missingNode() : n;
+    }
+
+    private JsonNode _readProjected(JsonPointerProjection.Node node, JsonToken t) throws IOException
+    {
+        if (t == JsonToken.START_OBJECT) {
+            return _readProjectedObject(node);
+        }
+        if (t == JsonToken.START_ARRAY) {
+            return _readProjectedArray(node);
+        }
+        // Scalars can not match remaining path
+        return null;
+    }
+
+    private JsonNode _readProjectedObject(JsonPointerProjection.Node node) throws IOException
+    {
+        ObjectNode ob = null;
+        String propName;
+
+        while ((propName = _parser.nextFieldName()) != null) {
+            JsonToken t = _parser.nextToken();
+            JsonPointerProjection.Node child = node.property(propName);
+            JsonNode value;
+            if (child == null) {
+                _parser.skipChildren();
+                continue;
+            }
+            if (child.includesAll()) {
+                value = _readPropertyValue(propName, t);
+            } else if ((value = _readProjected(child, t)) == null) {
+                continue;
+            }
+            if (ob == null) {
+                ob = _nodes.objectNode();
+            }
+            ob.set(propName, value);
+        }
+        return ob;
+    }
+
+    private JsonNode _readProjectedArray(JsonPointerProjection.Node node) throws IOException
+    {
+        ArrayNode arr = null;
+        JsonToken t;
+
+        for (int ix = 0; (t = _parser.nextToken()) != JsonToken.END_ARRAY; ++ix) {
+            JsonPointerProjection.Node child = node.element(ix);
+            JsonNode value;
+            if (child == null) {
+                _parser.skipChildren();
+                continue;
+            }
+            if (child.includesAll()) {
+                value = _readAny(null);
+            } else if ((value = _readProjected(child, t)) == null) {
+                continue;
+            }
+            if (arr == null) {
+                arr = _nodes.arrayNode();
+            }
+            arr.add(value);
+        }
+        return arr;
+    }
+
+    // Called with START_OBJECT/START_ARRAY as current token
+    private JsonNode _readLazy() throws IOException
+    {
+        final long start = _parser.currentTokenLocation().getByteOffset();
+        _parser.skipChildren();
+        // after skipping, location points to just past closing END_OBJECT/END_ARRAY
+        final long end = _parser.currentLocation().getByteOffset();
+        if (start < 0L || end > _source.length) {
+            throw _readError("Internal state error: invalid raw value location ["+start+", "+end+")");
+        }
+        return LazyJsonNode.of(_mapper, _source, (int) start, (int) (end - start));
+    }
+
     private StreamReadException _readError(String msg) {
         return new JsonParseException(_parser, msg);
     }
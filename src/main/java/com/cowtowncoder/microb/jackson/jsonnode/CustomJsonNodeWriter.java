@@ -0,0 +1,328 @@
+package com.cowtowncoder.microb.jackson.jsonnode;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Objects;
+
+import com.fasterxml.jackson.core.*;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.POJONode;
+
+import com.cowtowncoder.microb.jackson.vectors.FloatPacking;
+
+/**
+ * Counterpart to {@link CustomJsonNodeReader}: writes {@link JsonNode}s
+ * directly, dispatching on node type (instead of via
+ * {@code JsonSerializable.serialize()} of each node), with special handling
+ * for {@code $vector} values in all representations that
+ * {@link CustomJsonNodeReader.VectorsAs} produces:
+ *<ul>
+ * <li>{@code float[]} ({@link POJONode}) written directly, without
+ *   serializer lookup
+ *  </li>
+ * <li>{@link NumericArrayNode} written from primitive values
+ *  </li>
+ * <li>Arrays of textual representation written as JSON Numbers (if valid
+ *   JSON Numbers; other Strings written as JSON Strings)
+ *  </li>
+ *</ul>
+ * and optionally written as Base64-encoded packed floats (big-endian),
+ * same as {@code Base64FloatVectorSerializer} does.
+ */
+public final class CustomJsonNodeWriter
+{
+    /**
+     * Enumeration that specifies how {@code $vector} property value
+     * is to be written.
+     */
+    public enum VectorOutput {
+        /**
+         * Default handling: JSON Array of JSON Numbers
+         */
+        NUMBERS,
+
+        /**
+         * Base64-encoded JSON String of packed (big-endian) floats
+         */
+        BASE64
+    }
+
+    private final static String PROP_VECTOR = "$vector";
+
+    private final JsonGenerator _generator;
+
+    private final VectorOutput _vectorOutput;
+
+    /**
+     * Writer used for other POJO values: not flushed after
+     * each value.
+     */
+    private final ObjectWriter _pojoWriter;
+
+    /**
+     * Scratch buffer for packing vectors, reused across vectors
+     */
+    private byte[] _packBuffer;
+
+    public CustomJsonNodeWriter(ObjectMapper m, JsonGenerator g,
+            VectorOutput vectorOutput)
+    {
+        _generator = g;
+        _vectorOutput = Objects.requireNonNull(vectorOutput);
+        _pojoWriter = m.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    public void writeTree(JsonNode n) {
+        try {
+            _write(n);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void _write(JsonNode n) throws IOException
+    {
+        final JsonGenerator g = _generator;
+        // Unparsed lazy values copied through, same as with regular serialization
+        if ((n instanceof LazyJsonNode) && !((LazyJsonNode) n).isParsed()
+                && LazyContent.canCopyRaw(g)) {
+            g.writeRawValue(((LazyJsonNode) n).rawValue());
+            return;
+        }
+        switch (n.getNodeType()) {
+        case OBJECT:
+            g.writeStartObject(n, n.size());
+            for (Map.Entry<String, JsonNode> entry : n.properties()) {
+                final String name = entry.getKey();
+                g.writeFieldName(name);
+                if (PROP_VECTOR.equals(name)) {
+                    _writeVector(entry.getValue());
+                } else {
+                    _write(entry.getValue());
+                }
+            }
+            g.writeEndObject();
+            return;
+        case ARRAY:
+            _writeArray(n);
+            return;
+        case STRING:
+            g.writeString(n.textValue());
+            return;
+        case NUMBER:
+            _writeNumber(n);
+            return;
+        case BOOLEAN:
+            g.writeBoolean(n.booleanValue());
+            return;
+        case BINARY:
+            g.writeBinary(n.binaryValue());
+            return;
+        case POJO:
+            _writePOJO(((POJONode) n).getPojo());
+            return;
+        case NULL:
+        case MISSING:
+        default:
+            g.writeNull();
+        }
+    }
+
+    private void _writeArray(JsonNode n) throws IOException
+    {
+        // Primitive values need no serialization context
+        if (n instanceof NumericArrayNode && ((NumericArrayNode) n).primitiveType() != null) {
+            n.serialize(_generator, null);
+            return;
+        }
+        final int len = n.size();
+        _generator.writeStartArray(n, len);
+        for (int i = 0; i < len; ++i) {
+            _write(n.get(i));
+        }
+        _generator.writeEndArray();
+    }
+
+    private void _writeNumber(JsonNode n) throws IOException
+    {
+        final JsonGenerator g = _generator;
+        switch (n.numberType()) {
+        case INT:
+            g.writeNumber(n.intValue());
+            return;
+        case LONG:
+            g.writeNumber(n.longValue());
+            return;
+        case BIG_INTEGER:
+            g.writeNumber(n.bigIntegerValue());
+            return;
+        case FLOAT:
+            g.writeNumber(n.floatValue());
+            return;
+        case DOUBLE:
+            g.writeNumber(n.doubleValue());
+            return;
+        case BIG_DECIMAL:
+        default:
+            g.writeNumber(n.decimalValue());
+        }
+    }
+
+    private void _writePOJO(Object pojo) throws IOException
+    {
+        if (pojo instanceof float[]) {
+            _writeFloats((float[]) pojo);
+        } else if (pojo == null) {
+            _generator.writeNull();
+        } else {
+            _pojoWriter.writeValue(_generator, pojo);
+        }
+    }
+
+    private void _writeVector(JsonNode vector) throws IOException
+    {
+        if (_vectorOutput == VectorOutput.BASE64) {
+            float[] floats = _vectorAsFloats(vector);
+            if (floats != null) {
+                _writeBase64(floats);
+                return;
+            }
+        } else if (vector.isArray() && !(vector instanceof NumericArrayNode)
+                && !(vector instanceof LazyJsonNode)) {
+            // Textual representation (VectorsAs.LIST_OF_STRINGS) written back as numbers
+            final int len = vector.size();
+            _generator.writeStartArray(vector, len);
+            for (int i = 0; i < len; ++i) {
+                final JsonNode n = vector.get(i);
+                if (n.isTextual() && _isJsonNumber(n.textValue())) {
+                    _generator.writeNumber(n.textValue());
+                } else {
+                    _write(n);
+                }
+            }
+            _generator.writeEndArray();
+            return;
+        }
+        _write(vector);
+    }
+
+    private void _writeFloats(float[] floats) throws IOException
+    {
+        if (_vectorOutput == VectorOutput.BASE64) {
+            _writeBase64(floats);
+            return;
+        }
+        // No bulk `writeArray()` for floats in JsonGenerator
+        final JsonGenerator g = _generator;
+        final int len = floats.length;
+        g.writeStartArray(floats, len);
+        for (int i = 0; i < len; ++i) {
+            g.writeNumber(floats[i]);
+        }
+        g.writeEndArray();
+    }
+
+    private void _writeBase64(float[] floats) throws IOException
+    {
+        final int bytesLen = floats.length << 2;
+        byte[] b = _packBuffer;
+        if (b == null || b.length < bytesLen) {
+            _packBuffer = b = new byte[bytesLen];
+        }
+        FloatPacking.packScalar(floats, b);
+        _generator.writeBinary(b, 0, bytesLen);
+    }
+
+    // @return Vector as floats, if representation is known; null if not
+    private static float[] _vectorAsFloats(JsonNode vector) throws IOException
+    {
+        if (vector instanceof LazyJsonNode) {
+            // Not necessarily numbers: if not, written as-is (like other non-numeric vectors)
+            try {
+                return ((LazyJsonNode) vector).valueAs(float[].class);
+            } catch (JsonProcessingException e) {
+                return null;
+            }
+        }
+        if (vector instanceof NumericArrayNode) {
+            return ((NumericArrayNode) vector).asFloatArray();
+        }
+        if (vector.isPojo()) {
+            Object pojo = ((POJONode) vector).getPojo();
+            return (pojo instanceof float[]) ? (float[]) pojo : null;
+        }
+        if (!vector.isArray()) {
+            return null;
+        }
+        final int len = vector.size();
+        float[] floats = new float[len];
+        for (int i = 0; i < len; ++i) {
+            final JsonNode n = vector.get(i);
+            if (n.isNumber()) {
+                floats[i] = n.floatValue();
+            } else if (n.isTextual() && _isJsonNumber(n.textValue())) {
+                // VectorsAs.LIST_OF_STRINGS
+                floats[i] = Float.parseFloat(n.textValue());
+            } else {
+                return null;
+            }
+        }
+        return floats;
+    }
+
+    // Strict check for JSON Number syntax: `-?(0|[1-9][0-9]*)(\.[0-9]+)?([eE][+-]?[0-9]+)?`
+    // (more restrictive than both `Float.parseFloat()` and `NumberInput.looksLikeValidNumber()`)
+    private static boolean _isJsonNumber(String str)
+    {
+        final int end = str.length();
+        int i = 0;
+        if (i < end && str.charAt(i) == '-') {
+            ++i;
+        }
+        if (i == end) {
+            return false;
+        }
+        if (str.charAt(i) == '0') {
+            ++i;
+        } else {
+            final int start = i;
+            i = _skipDigits(str, i, end);
+            if (i == start) {
+                return false;
+            }
+        }
+        if (i < end && str.charAt(i) == '.') {
+            final int start = ++i;
+            i = _skipDigits(str, i, end);
+            if (i == start) {
+                return false;
+            }
+        }
+        if (i < end && (str.charAt(i) == 'e' || str.charAt(i) == 'E')) {
+            ++i;
+            if (i < end && (str.charAt(i) == '+' || str.charAt(i) == '-')) {
+                ++i;
+            }
+            final int start = i;
+            i = _skipDigits(str, i, end);
+            if (i == start) {
+                return false;
+            }
+        }
+        return (i == end);
+    }
+
+    private static int _skipDigits(String str, int i, int end) {
+        while (i < end) {
+            final char c = str.charAt(i);
+            if (c < '0' || c > '9') {
+                break;
+            }
+            ++i;
+        }
+        return i;
+    }
+}
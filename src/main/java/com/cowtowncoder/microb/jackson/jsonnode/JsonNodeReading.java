@@ -1,6 +1,7 @@
 package com.cowtowncoder.microb.jackson.jsonnode;
 
 import java.io.*;
+import java.util.Collections;
 
 import org.openjdk.jmh.annotations.*;
 import org.openjdk.jmh.infra.Blackhole;
@@ -11,13 +12,18 @@ import org.openjdk.jmh.runner.options.OptionsBuilder;
 import com.cowtowncoder.microb.jackson.model.InputData;
 import com.cowtowncoder.microb.jackson.model.InputJson;
 import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.StreamReadFeature;
 import com.fasterxml.jackson.core.StreamWriteFeature;
+import com.fasterxml.jackson.core.filter.FilteringParserDelegate;
+import com.fasterxml.jackson.core.filter.TokenFilter;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.cowtowncoder.microb.util.HeapUsage;
+import com.cowtowncoder.microb.util.NopOutputStream;
 
 /**
  * Test for measuring parsing performance from JSON to
@@ -42,18 +48,34 @@ public class JsonNodeReading
 
     private final byte[] INPUT_JSON = InputData.get(InputJson.FRIENDS_WITH_VECTORS).serialized();
 
-    private final ObjectMapper JSON_MAPPER;
-    {
-        JsonFactory f = JsonFactory.builder()
-                .enable(StreamReadFeature.STRICT_DUPLICATE_DETECTION)
-                .enable(StreamReadFeature.USE_FAST_BIG_NUMBER_PARSER)
-                .enable(StreamReadFeature.USE_FAST_DOUBLE_PARSER)
-                .enable(StreamWriteFeature.USE_FAST_DOUBLE_WRITER)
-                .build();
-        JSON_MAPPER = JsonMapper.builder(f)
-                .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)
-                .build();
-    }
+    // Number of trees kept around when measuring retained heap
+    private final static int HEAP_COPIES = 20;
+
+    private final ObjectMapper JSON_MAPPER = _mapperBuilder().build();
+
+    // Same configuration, but using array-backed (compact) ObjectNodes
+    private final ObjectMapper COMPACT_MAPPER = _mapperBuilder()
+            .nodeFactory(new CompactJsonNodeFactory())
+            .build();
+
+    // Numeric arrays can not be stored as primitives with BigDecimal floats,
+    // so numeric benchmarks (including baseline) read floats as doubles
+    private final ObjectMapper NUMERIC_MAPPER = _mapperBuilder()
+            .disable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)
+            .build();
+
+    // Generated documents: deeply nested (but within default nesting limit
+    // of 1000), and wide (Objects with lots of properties)
+    private final byte[] DEEP_JSON = _generateDeep(20, 400);
+
+    private final byte[] WIDE_JSON = _generateWide(100, 200);
+
+    // and numeric-heavy (mostly Arrays of integers and floating-point numbers)
+    private final byte[] NUMERIC_JSON = _generateNumeric(100, 256);
+
+    // Small subset of properties of each element; skips vectors
+    private final JsonPointerProjection PROJECTION = JsonPointerProjection.compile(
+            "/*/_id", "/*/name", "/*/age", "/*/music_taste");
 
     /*
     /**********************************************************************
@@ -107,17 +129,381 @@ public class JsonNodeReading
         bh.consume(doc);
     }
 
+    // Lazy vectors: parse-only, parse and access all vectors, parse and
+    // write back (raw copy-through of vectors); compare to
+    // `perfOptimizedVectorSkip`, `perfOptimizedFloatArray` and
+    // `perfOptimizedBasicReserialize`, respectively
+
+    @Benchmark
+    public void perfOptimizedLazy(Blackhole bh) throws Exception {
+        bh.consume(_readLazy());
+    }
+
+    @Benchmark
+    public void perfOptimizedLazyTouch(Blackhole bh) throws Exception {
+        JsonNode doc = _readLazy();
+        for (JsonNode item : doc) {
+            JsonNode vector = item.get("$vector");
+            if (vector instanceof LazyJsonNode) {
+                bh.consume(((LazyJsonNode) vector).valueAs(float[].class));
+            }
+        }
+        bh.consume(doc);
+    }
+
+    @Benchmark
+    public void perfOptimizedLazyReserialize(Blackhole bh) throws Exception {
+        bh.consume(_write(_readLazy()));
+    }
+
+    @Benchmark
+    public void perfOptimizedBasicReserialize(Blackhole bh) throws Exception {
+        JsonParser p = JSON_MAPPER.createParser(inputJson());
+        JsonNode doc = new CustomJsonNodeReader(JSON_MAPPER, p,
+                CustomJsonNodeReader.VectorsAs.LIST_OF_NUMBERS)
+                    .readTree();
+        p.close();
+        bh.consume(_write(doc));
+    }
+
+    // Projection: only read properties matched by JSON Pointers (see `PROJECTION`)
+    // either using custom reader (skipping non-matching sub-trees) or
+    // with `FilteringParserDelegate`; compare to `perfDefaultJacksonReader`
+
+    @Benchmark
+    public void perfProjectedCustom(Blackhole bh) throws Exception {
+        JsonParser p = JSON_MAPPER.createParser(inputJson());
+        JsonNode doc = new CustomJsonNodeReader(JSON_MAPPER, p,
+                CustomJsonNodeReader.VectorsAs.LIST_OF_NUMBERS, PROJECTION)
+                    .readTree();
+        p.close();
+        bh.consume(doc);
+    }
+
+    @Benchmark
+    public void perfProjectedFiltering(Blackhole bh) throws Exception {
+        JsonParser p = new FilteringParserDelegate(JSON_MAPPER.createParser(inputJson()),
+                PROJECTION.asTokenFilter(), TokenFilter.Inclusion.INCLUDE_ALL_AND_PATH, true);
+        JsonNode doc = JSON_MAPPER.readTree(p);
+        p.close();
+        bh.consume(doc);
+    }
+
+    // Iterative (explicit stack) reading; compare to `perfOptimizedBasic`,
+    // `perfOptimizedFloatArray`; and for generated deep/wide documents, with
+    // default and recursive optimized readers
+
+    @Benchmark
+    public void perfIterativeBasic(Blackhole bh) throws Exception {
+        bh.consume(_readIterative(INPUT_JSON, CustomJsonNodeReader.VectorsAs.LIST_OF_NUMBERS));
+    }
+
+    @Benchmark
+    public void perfIterativeFloatArray(Blackhole bh) throws Exception {
+        bh.consume(_readIterative(INPUT_JSON, CustomJsonNodeReader.VectorsAs.ARRAY_OF_FLOATS));
+    }
+
+    @Benchmark
+    public void perfDeepDefault(Blackhole bh) throws Exception {
+        bh.consume(JSON_MAPPER.readTree(DEEP_JSON));
+    }
+
+    @Benchmark
+    public void perfDeepOptimized(Blackhole bh) throws Exception {
+        try (JsonParser p = JSON_MAPPER.createParser(DEEP_JSON)) {
+            bh.consume(new CustomJsonNodeReader(JSON_MAPPER, p,
+                    CustomJsonNodeReader.VectorsAs.LIST_OF_NUMBERS)
+                        .readTree());
+        }
+    }
+
+    @Benchmark
+    public void perfDeepIterative(Blackhole bh) throws Exception {
+        bh.consume(_readIterative(DEEP_JSON, CustomJsonNodeReader.VectorsAs.LIST_OF_NUMBERS));
+    }
+
+    @Benchmark
+    public void perfWideDefault(Blackhole bh) throws Exception {
+        bh.consume(JSON_MAPPER.readTree(WIDE_JSON));
+    }
+
+    @Benchmark
+    public void perfWideOptimized(Blackhole bh) throws Exception {
+        try (JsonParser p = JSON_MAPPER.createParser(WIDE_JSON)) {
+            bh.consume(new CustomJsonNodeReader(JSON_MAPPER, p,
+                    CustomJsonNodeReader.VectorsAs.LIST_OF_NUMBERS)
+                        .readTree());
+        }
+    }
+
+    @Benchmark
+    public void perfWideIterative(Blackhole bh) throws Exception {
+        bh.consume(_readIterative(WIDE_JSON, CustomJsonNodeReader.VectorsAs.LIST_OF_NUMBERS));
+    }
+
+    // Compact (array-backed) ObjectNodes; compare to `perfDefaultJacksonReader`,
+    // `perfOptimizedBasic`, `perfOptimizedFloatArray` and `perfOptimizedVectorSkip`
+
+    @Benchmark
+    public void perfCompactDefault(Blackhole bh) throws Exception {
+        bh.consume(COMPACT_MAPPER.readTree(inputJson()));
+    }
+
+    @Benchmark
+    public void perfCompactBasic(Blackhole bh) throws Exception {
+        bh.consume(_readOptimized(COMPACT_MAPPER, CustomJsonNodeReader.VectorsAs.LIST_OF_NUMBERS));
+    }
+
+    @Benchmark
+    public void perfCompactFloatArray(Blackhole bh) throws Exception {
+        bh.consume(_readOptimized(COMPACT_MAPPER, CustomJsonNodeReader.VectorsAs.ARRAY_OF_FLOATS));
+    }
+
+    @Benchmark
+    public void perfCompactVectorSkip(Blackhole bh) throws Exception {
+        bh.consume(_readOptimized(COMPACT_MAPPER, CustomJsonNodeReader.VectorsAs.SKIP));
+    }
+
+    // Auto-detected numeric arrays (as primitive arrays), for both regular
+    // input (only `$vector` and `age` numeric) and for numeric-heavy document
+
+    @Benchmark
+    public void perfNumericDoubles(Blackhole bh) throws Exception {
+        bh.consume(_readNumeric(INPUT_JSON, CustomJsonNodeReader.NumericArraysAs.PRIMITIVE_DOUBLES));
+    }
+
+    @Benchmark
+    public void perfNumericFloats(Blackhole bh) throws Exception {
+        bh.consume(_readNumeric(INPUT_JSON, CustomJsonNodeReader.NumericArraysAs.PRIMITIVE_FLOATS));
+    }
+
+    @Benchmark
+    public void perfNumericHeavyDefault(Blackhole bh) throws Exception {
+        bh.consume(NUMERIC_MAPPER.readTree(NUMERIC_JSON));
+    }
+
+    @Benchmark
+    public void perfNumericHeavyOptimized(Blackhole bh) throws Exception {
+        bh.consume(_readNumeric(NUMERIC_JSON, CustomJsonNodeReader.NumericArraysAs.NODES));
+    }
+
+    @Benchmark
+    public void perfNumericHeavyDoubles(Blackhole bh) throws Exception {
+        bh.consume(_readNumeric(NUMERIC_JSON, CustomJsonNodeReader.NumericArraysAs.PRIMITIVE_DOUBLES));
+    }
+
+    @Benchmark
+    public void perfNumericHeavyFloats(Blackhole bh) throws Exception {
+        bh.consume(_readNumeric(NUMERIC_JSON, CustomJsonNodeReader.NumericArraysAs.PRIMITIVE_FLOATS));
+    }
+
     /*
     /**********************************************************************
     /* Helper methods
     /**********************************************************************
      */
 
+    private static JsonMapper.Builder _mapperBuilder() {
+        JsonFactory f = JsonFactory.builder()
+                .enable(StreamReadFeature.STRICT_DUPLICATE_DETECTION)
+                .enable(StreamReadFeature.USE_FAST_BIG_NUMBER_PARSER)
+                .enable(StreamReadFeature.USE_FAST_DOUBLE_PARSER)
+                .enable(StreamWriteFeature.USE_FAST_DOUBLE_WRITER)
+                .build();
+        return JsonMapper.builder(f)
+                .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+    }
+
     private InputStream inputJson() {
         return new ByteArrayInputStream(INPUT_JSON);
     }
 
+    private JsonNode _readOptimized(ObjectMapper mapper, CustomJsonNodeReader.VectorsAs vectorsAs)
+        throws IOException
+    {
+        try (JsonParser p = mapper.createParser(INPUT_JSON)) {
+            return new CustomJsonNodeReader(mapper, p, vectorsAs).readTree();
+        }
+    }
+
+    // Lazy reading needs access to raw content
+    private JsonNode _readLazy() throws IOException {
+        try (JsonParser p = JSON_MAPPER.createParser(INPUT_JSON)) {
+            return new CustomJsonNodeReader(JSON_MAPPER, p,
+                    CustomJsonNodeReader.VectorsAs.LAZY, INPUT_JSON, Collections.emptySet())
+                        .readTree();
+        }
+    }
+
+    private JsonNode _readIterative(byte[] input, CustomJsonNodeReader.VectorsAs vectorsAs)
+        throws IOException
+    {
+        try (JsonParser p = JSON_MAPPER.createParser(input)) {
+            return new CustomJsonNodeReader(JSON_MAPPER, p, vectorsAs)
+                    .readTreeIterative();
+        }
+    }
+
+    private JsonNode _readNumeric(byte[] input, CustomJsonNodeReader.NumericArraysAs numericArraysAs)
+        throws IOException
+    {
+        try (JsonParser p = NUMERIC_MAPPER.createParser(input)) {
+            return new CustomJsonNodeReader(NUMERIC_MAPPER, p,
+                    CustomJsonNodeReader.VectorsAs.LIST_OF_NUMBERS, numericArraysAs)
+                        .readTree();
+        }
+    }
+
+    // Array of documents, each nested `depth` levels (alternating Objects
+    // and Arrays) with a couple of scalars at each level
+    private byte[] _generateDeep(int docs, int depth) {
+        try (ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                JsonGenerator g = JSON_MAPPER.createGenerator(bytes)) {
+            g.writeStartArray();
+            for (int i = 0; i < docs; ++i) {
+                for (int level = 0; level < depth; ++level) {
+                    if ((level & 1) == 0) {
+                        g.writeStartObject();
+                        g.writeNumberField("level", level);
+                        g.writeFieldName("next");
+                    } else {
+                        g.writeStartArray();
+                        g.writeString("item-"+level);
+                        g.writeNumber(level * 0.25);
+                    }
+                }
+                g.writeNull();
+                for (int level = depth; --level >= 0; ) {
+                    if ((level & 1) == 0) {
+                        g.writeEndObject();
+                    } else {
+                        g.writeEndArray();
+                    }
+                }
+            }
+            g.writeEndArray();
+            g.close();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Array of flat Objects, each with `width` properties of mixed types
+    private byte[] _generateWide(int docs, int width) {
+        try (ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                JsonGenerator g = JSON_MAPPER.createGenerator(bytes)) {
+            g.writeStartArray();
+            for (int i = 0; i < docs; ++i) {
+                g.writeStartObject();
+                for (int j = 0; j < width; ++j) {
+                    final String name = "prop"+j;
+                    switch (j % 4) {
+                    case 0:
+                        g.writeNumberField(name, i * j);
+                        break;
+                    case 1:
+                        g.writeStringField(name, "value-"+i+"-"+j);
+                        break;
+                    case 2:
+                        g.writeNumberField(name, (i + j) * 0.125);
+                        break;
+                    default:
+                        g.writeBooleanField(name, ((i + j) & 1) == 0);
+                    }
+                }
+                g.writeEndObject();
+            }
+            g.writeEndArray();
+            g.close();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Array of Objects with Arrays of `len` ids (integers), scores (floating-point)
+    // and a small matrix (Array of Arrays), plus a few non-numeric properties
+    private byte[] _generateNumeric(int docs, int len) {
+        try (ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                JsonGenerator g = JSON_MAPPER.createGenerator(bytes)) {
+            g.writeStartArray();
+            for (int i = 0; i < docs; ++i) {
+                g.writeStartObject();
+                g.writeStringField("name", "doc-"+i);
+                g.writeArrayFieldStart("ids");
+                for (int j = 0; j < len; ++j) {
+                    g.writeNumber(i * 1_000_000L + j * 37);
+                }
+                g.writeEndArray();
+                g.writeArrayFieldStart("scores");
+                for (int j = 0; j < len; ++j) {
+                    g.writeNumber(Math.sin(i + j * 0.01));
+                }
+                g.writeEndArray();
+                g.writeArrayFieldStart("matrix");
+                for (int row = 0; row < 8; ++row) {
+                    g.writeStartArray();
+                    for (int col = 0; col < 8; ++col) {
+                        g.writeNumber((row * 8 + col) * 0.5f);
+                    }
+                    g.writeEndArray();
+                }
+                g.writeEndArray();
+                g.writeEndObject();
+            }
+            g.writeEndArray();
+            g.close();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private int _write(JsonNode doc) throws IOException {
+        try (NopOutputStream out = new NopOutputStream()) {
+            JSON_MAPPER.writeValue(out, doc);
+            return out.size();
+        }
+    }
+
+    /*
+    /**********************************************************************
+    /* Retained heap report
+    /**********************************************************************
+     */
+
+    // Not part of set up, to avoid slowing down trials of all benchmarks:
+    // only printed when run via main()
+    private void _printRetainedHeap() throws IOException {
+        System.out.println();
+        System.out.println("------------------");
+        System.out.printf("Retained heap per document (average over %d copies):%n", HEAP_COPIES);
+        System.out.printf(" default readTree():       ~%d kB%n",
+                HeapUsage.retainedPerValue(HEAP_COPIES, () -> JSON_MAPPER.readTree(INPUT_JSON)) >> 10);
+        System.out.printf(" optimized:                ~%d kB%n",
+                HeapUsage.retainedPerValue(HEAP_COPIES, () -> _readOptimized(JSON_MAPPER,
+                        CustomJsonNodeReader.VectorsAs.LIST_OF_NUMBERS)) >> 10);
+        System.out.printf(" optimized, compact:       ~%d kB%n",
+                HeapUsage.retainedPerValue(HEAP_COPIES, () -> _readOptimized(COMPACT_MAPPER,
+                        CustomJsonNodeReader.VectorsAs.LIST_OF_NUMBERS)) >> 10);
+        System.out.printf(" float[], compact:         ~%d kB%n",
+                HeapUsage.retainedPerValue(HEAP_COPIES, () -> _readOptimized(COMPACT_MAPPER,
+                        CustomJsonNodeReader.VectorsAs.ARRAY_OF_FLOATS)) >> 10);
+        System.out.printf(" numeric arrays, float[]:  ~%d kB%n",
+                HeapUsage.retainedPerValue(HEAP_COPIES, () -> _readNumeric(INPUT_JSON,
+                        CustomJsonNodeReader.NumericArraysAs.PRIMITIVE_FLOATS)) >> 10);
+        System.out.printf(" vectors skipped:          ~%d kB%n",
+                HeapUsage.retainedPerValue(HEAP_COPIES, () -> _readOptimized(JSON_MAPPER,
+                        CustomJsonNodeReader.VectorsAs.SKIP)) >> 10);
+        System.out.printf(" vectors skipped, compact: ~%d kB%n",
+                HeapUsage.retainedPerValue(HEAP_COPIES, () -> _readOptimized(COMPACT_MAPPER,
+                        CustomJsonNodeReader.VectorsAs.SKIP)) >> 10);
+        System.out.println("------------------");
+    }
+
     public static void main(String[] args) throws Exception {
+        new JsonNodeReading()._printRetainedHeap();
         Options opt = new OptionsBuilder()
                 .include(JsonNodeReading.class.getSimpleName())
                 .build();
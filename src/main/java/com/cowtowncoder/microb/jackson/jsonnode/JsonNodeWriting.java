@@ -0,0 +1,139 @@
+package com.cowtowncoder.microb.jackson.jsonnode;
+
+import java.io.IOException;
+import java.util.Collections;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.cowtowncoder.microb.jackson.model.InputData;
+import com.cowtowncoder.microb.jackson.model.InputJson;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.StreamReadFeature;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.cowtowncoder.microb.util.NopOutputStream;
+
+/**
+ * Test for measuring serialization performance of {@link JsonNode}s
+ * (as read by {@link CustomJsonNodeReader} using different
+ * {@link CustomJsonNodeReader.VectorsAs} representations) into JSON,
+ * using default {@code ObjectMapper.writeValue()} and
+ * {@link CustomJsonNodeWriter} (with vectors as numbers or Base64).
+ *
+ * @author Tatu Saloranta
+ */
+@BenchmarkMode(Mode.Throughput)
+@State(Scope.Benchmark)
+//During dev, use lower; for real measurements, higher
+//@Fork(value = 1)
+@Fork(value = 3)
+@Measurement(iterations = 3, time = 3)
+@Warmup(iterations = 4, time = 1)
+public class JsonNodeWriting
+{
+    @Param({ "LIST_OF_NUMBERS", "ARRAY_OF_FLOATS", "LIST_OF_STRINGS", "SKIP", "LAZY" })
+    public CustomJsonNodeReader.VectorsAs vectorsAs;
+
+    /*
+    /**********************************************************************
+    /* Constants
+    /**********************************************************************
+     */
+
+    private final byte[] INPUT_JSON = InputData.get(InputJson.FRIENDS_WITH_VECTORS).serialized();
+
+    private final ObjectMapper JSON_MAPPER;
+    {
+        JsonFactory f = JsonFactory.builder()
+                .enable(StreamReadFeature.USE_FAST_BIG_NUMBER_PARSER)
+                .enable(StreamReadFeature.USE_FAST_DOUBLE_PARSER)
+                .enable(StreamWriteFeature.USE_FAST_DOUBLE_WRITER)
+                .build();
+        JSON_MAPPER = JsonMapper.builder(f)
+                .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)
+                .build();
+    }
+
+    private JsonNode _doc;
+
+    /*
+    /**********************************************************************
+    /* Set up
+    /**********************************************************************
+     */
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        try (JsonParser p = JSON_MAPPER.createParser(INPUT_JSON)) {
+            _doc = new CustomJsonNodeReader(JSON_MAPPER, p, vectorsAs,
+                    INPUT_JSON, Collections.emptySet())
+                        .readTree();
+        }
+        System.out.println();
+        System.out.println("------------------");
+        System.out.printf("Output sizes (%s): default %d, custom %d, custom/Base64 %d bytes%n",
+                vectorsAs, _writeDefault(), _writeCustom(CustomJsonNodeWriter.VectorOutput.NUMBERS),
+                _writeCustom(CustomJsonNodeWriter.VectorOutput.BASE64));
+        System.out.println("------------------");
+    }
+
+    /*
+    /**********************************************************************
+    /* Test methods
+    /**********************************************************************
+     */
+
+    @Benchmark
+    public void writeDefault(Blackhole bh) throws Exception {
+        bh.consume(_writeDefault());
+    }
+
+    @Benchmark
+    public void writeCustom(Blackhole bh) throws Exception {
+        bh.consume(_writeCustom(CustomJsonNodeWriter.VectorOutput.NUMBERS));
+    }
+
+    @Benchmark
+    public void writeCustomBase64(Blackhole bh) throws Exception {
+        bh.consume(_writeCustom(CustomJsonNodeWriter.VectorOutput.BASE64));
+    }
+
+    /*
+    /**********************************************************************
+    /* Helper methods
+    /**********************************************************************
+     */
+
+    private int _writeDefault() throws IOException {
+        try (NopOutputStream out = new NopOutputStream()) {
+            JSON_MAPPER.writeValue(out, _doc);
+            return out.size();
+        }
+    }
+
+    private int _writeCustom(CustomJsonNodeWriter.VectorOutput vectorOutput) throws IOException {
+        try (NopOutputStream out = new NopOutputStream()) {
+            try (JsonGenerator g = JSON_MAPPER.createGenerator(out)) {
+                new CustomJsonNodeWriter(JSON_MAPPER, g, vectorOutput)
+                    .writeTree(_doc);
+            }
+            return out.size();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options opt = new OptionsBuilder()
+                .include(JsonNodeWriting.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
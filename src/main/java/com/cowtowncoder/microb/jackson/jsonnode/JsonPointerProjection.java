@@ -0,0 +1,196 @@
+package com.cowtowncoder.microb.jackson.jsonnode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.core.filter.TokenFilter;
+
+/**
+ * Set of {@link JsonPointer}s compiled into a trie, used for "projection":
+ * reading only those parts of a document that are matched by one of
+ * pointers (including everything under matched values), see
+ * {@link CustomJsonNodeReader}. Can also be used with Jackson's
+ * {@code FilteringParserDelegate} via {@link #asTokenFilter()}.
+ *<p>
+ * As an extension to JSON Pointer, a segment of {@code *} matches any
+ * property or Array element: for example {@code /*}{@code /name} matches
+ * {@code name} of all elements of the root-level Array.
+ * Numeric segments match both Array elements (by index) and properties
+ * (by name).
+ */
+public final class JsonPointerProjection
+{
+    public final static String WILDCARD = "*";
+
+    private final Node _root;
+
+    private JsonPointerProjection(Node root) {
+        _root = root;
+    }
+
+    public static JsonPointerProjection compile(String... pointers) {
+        return compile(Arrays.asList(pointers));
+    }
+
+    public static JsonPointerProjection compile(Collection<String> pointers) {
+        List<JsonPointer> compiled = new ArrayList<>(pointers.size());
+        for (String ptr : pointers) {
+            compiled.add(JsonPointer.compile(ptr));
+        }
+        return of(compiled);
+    }
+
+    public static JsonPointerProjection of(Collection<JsonPointer> pointers)
+    {
+        Node root = new Node();
+        for (JsonPointer ptr : pointers) {
+            Node n = root;
+            for (; !ptr.matches(); ptr = ptr.tail()) {
+                n = n._child(ptr.getMatchingProperty(), ptr.getMatchingIndex() >= 0);
+            }
+            n._includeAll = true;
+        }
+        root._mergeWildcards();
+        return new JsonPointerProjection(root);
+    }
+
+    Node root() {
+        return _root;
+    }
+
+    /**
+     * @return Filter that includes same content as this projection; to be used
+     *   with {@code FilteringParserDelegate} (with
+     *   {@code TokenFilter.Inclusion.INCLUDE_ALL_AND_PATH} and multiple matches allowed)
+     */
+    public TokenFilter asTokenFilter() {
+        return _root.filter();
+    }
+
+    /*
+    /**********************************************************************
+    /* Trie
+    /**********************************************************************
+     */
+
+    static final class Node
+    {
+        private final Map<String, Node> _properties = new HashMap<>();
+
+        private Node _any;
+
+        private boolean _includeAll;
+
+        private boolean _hasIndexes;
+
+        private TokenFilter _filter;
+
+        /**
+         * @return Whether everything under this node is to be included
+         */
+        boolean includesAll() {
+            return _includeAll;
+        }
+
+        /**
+         * @return Node for given property, if it may match; {@code null} if not
+         */
+        Node property(String name) {
+            Node n = _properties.get(name);
+            return (n == null) ? _any : n;
+        }
+
+        /**
+         * @return Node for given Array element, if it may match; {@code null} if not
+         */
+        Node element(int index) {
+            if (_hasIndexes) {
+                Node n = _properties.get(String.valueOf(index));
+                if (n != null) {
+                    return n;
+                }
+            }
+            return _any;
+        }
+
+        TokenFilter filter() {
+            TokenFilter f = _filter;
+            if (f == null) {
+                _filter = f = _includeAll ? TokenFilter.INCLUDE_ALL : new ProjectionFilter(this);
+            }
+            return f;
+        }
+
+        private Node _child(String segment, boolean isIndex) {
+            if (WILDCARD.equals(segment)) {
+                if (_any == null) {
+                    _any = new Node();
+                }
+                return _any;
+            }
+            _hasIndexes |= isIndex;
+            return _properties.computeIfAbsent(segment, k -> new Node());
+        }
+
+        // Properties matched by wildcard must also include everything
+        // wildcard does: merge wildcard subtree into explicitly named siblings
+        private void _mergeWildcards() {
+            if (_any != null) {
+                for (Node child : _properties.values()) {
+                    child._mergeFrom(_any);
+                }
+                _any._mergeWildcards();
+            }
+            for (Node child : _properties.values()) {
+                child._mergeWildcards();
+            }
+        }
+
+        private void _mergeFrom(Node src) {
+            _includeAll |= src._includeAll;
+            _hasIndexes |= src._hasIndexes;
+            for (Map.Entry<String, Node> entry : src._properties.entrySet()) {
+                _properties.computeIfAbsent(entry.getKey(), k -> new Node())
+                    ._mergeFrom(entry.getValue());
+            }
+            if (src._any != null) {
+                if (_any == null) {
+                    _any = new Node();
+                }
+                _any._mergeFrom(src._any);
+            }
+        }
+    }
+
+    private static final class ProjectionFilter extends TokenFilter
+    {
+        private final Node _node;
+
+        ProjectionFilter(Node node) {
+            _node = node;
+        }
+
+        @Override
+        public TokenFilter includeProperty(String name) {
+            Node n = _node.property(name);
+            return (n == null) ? null : n.filter();
+        }
+
+        @Override
+        public TokenFilter includeElement(int index) {
+            Node n = _node.element(index);
+            return (n == null) ? null : n.filter();
+        }
+
+        // Scalar values can only be included if fully matched (INCLUDE_ALL)
+        @Override
+        protected boolean _includeScalar() {
+            return false;
+        }
+    }
+}
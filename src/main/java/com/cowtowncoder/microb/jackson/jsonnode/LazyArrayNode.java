@@ -0,0 +1,135 @@
+package com.cowtowncoder.microb.jackson.jsonnode;
+
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+
+/**
+ * {@link LazyJsonNode} for JSON Arrays: {@link ArrayNode} with element list
+ * parsed from raw bytes on first access.
+ */
+// Inherited `ArrayNode.deepCopy()` overrides generic `<T> JsonNode.deepCopy()` (javac [unchecked])
+@SuppressWarnings("unchecked")
+public final class LazyArrayNode extends ArrayNode
+    implements LazyJsonNode
+{
+    private static final long serialVersionUID = 1L;
+
+    private final LazyElements _elements;
+
+    LazyArrayNode(ObjectMapper mapper, RawJsonBytes raw) {
+        this(mapper, new LazyElements(new LazyContent(mapper, raw)));
+    }
+
+    private LazyArrayNode(ObjectMapper mapper, LazyElements elements) {
+        super(mapper.getNodeFactory(), elements);
+        _elements = elements;
+    }
+
+    @Override
+    public RawJsonBytes rawValue() {
+        return _elements._content._raw;
+    }
+
+    @Override
+    public boolean isParsed() {
+        return _elements._parsed != null;
+    }
+
+    @Override
+    public JsonNode value() {
+        _elements._parsed();
+        return this;
+    }
+
+    @Override
+    public <T> T valueAs(Class<T> type) throws IOException {
+        final LazyContent content = _elements._content;
+        return isParsed() ? content._mapper.treeToValue(this, type) : content.bind(type);
+    }
+
+    @Override
+    public void serialize(JsonGenerator g, SerializerProvider provider) throws IOException
+    {
+        if (!isParsed() && LazyContent.canCopyRaw(g)) {
+            g.writeRawValue(rawValue());
+        } else {
+            super.serialize(g, provider);
+        }
+    }
+
+    /**
+     * Element list parsed from raw content on first access.
+     */
+    private final static class LazyElements extends AbstractList<JsonNode>
+        implements RandomAccess
+    {
+        final LazyContent _content;
+
+        volatile List<JsonNode> _parsed;
+
+        LazyElements(LazyContent content) {
+            _content = content;
+        }
+
+        @Override
+        public int size() {
+            return _parsed().size();
+        }
+
+        @Override
+        public JsonNode get(int index) {
+            return _parsed().get(index);
+        }
+
+        @Override
+        public JsonNode set(int index, JsonNode element) {
+            return _parsed().set(index, element);
+        }
+
+        @Override
+        public void add(int index, JsonNode element) {
+            _parsed().add(index, element);
+            ++modCount;
+        }
+
+        @Override
+        public JsonNode remove(int index) {
+            final JsonNode old = _parsed().remove(index);
+            ++modCount;
+            return old;
+        }
+
+        @Override
+        public void clear() {
+            _parsed().clear();
+            ++modCount;
+        }
+
+        // Synchronized so that concurrent readers see the same elements
+        List<JsonNode> _parsed() {
+            List<JsonNode> elements = _parsed;
+            if (elements == null) {
+                synchronized (this) {
+                    if ((elements = _parsed) == null) {
+                        final JsonNode n = _content.parse();
+                        elements = new ArrayList<>(n.size() + 4);
+                        for (JsonNode element : n) {
+                            elements.add(element);
+                        }
+                        _parsed = elements;
+                    }
+                }
+            }
+            return elements;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.cowtowncoder.microb.jackson.jsonnode;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.json.JsonGeneratorImpl;
+import com.fasterxml.jackson.core.json.JsonWriteFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Raw contents of a {@link LazyJsonNode}, along with mapper to parse
+ * (or bind) them with.
+ */
+final class LazyContent
+{
+    final ObjectMapper _mapper;
+    final RawJsonBytes _raw;
+
+    LazyContent(ObjectMapper mapper, RawJsonBytes raw) {
+        _mapper = mapper;
+        _raw = raw;
+    }
+
+    JsonNode parse() {
+        try {
+            return _mapper.readTree(_raw.source(), _raw.offset(), _raw.length());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    <T> T bind(Class<T> type) throws IOException {
+        return _mapper.readValue(_raw.source(), _raw.offset(), _raw.length(), type);
+    }
+
+    /**
+     * Raw copy-through is only possible for JSON output that would write
+     * contents exactly as they are in input (compact, without escaping
+     * non-ASCII characters or writing numbers as Strings).
+     */
+    static boolean canCopyRaw(JsonGenerator g) {
+        if (!(g instanceof JsonGeneratorImpl)) {
+            return false;
+        }
+        final JsonGeneratorImpl impl = (JsonGeneratorImpl) g;
+        return (impl.getPrettyPrinter() == null)
+                && (impl.getHighestEscapedChar() == 0)
+                && (impl.getCharacterEscapes() == null)
+                && !impl.isEnabled(JsonWriteFeature.ESCAPE_NON_ASCII.mappedFeature())
+                && !impl.isEnabled(JsonWriteFeature.WRITE_NUMBERS_AS_STRINGS.mappedFeature());
+    }
+}
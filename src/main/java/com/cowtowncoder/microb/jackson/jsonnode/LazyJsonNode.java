@@ -0,0 +1,65 @@
+package com.cowtowncoder.microb.jackson.jsonnode;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * {@link JsonNode} for a value (JSON Object or Array) that has not been
+ * parsed yet: only raw (UTF-8) bytes of the value are retained (as
+ * {@link RawJsonBytes}), and parsing is done when contents are first accessed,
+ * either through regular {@link JsonNode} API (as {@link LazyArrayNode} and
+ * {@link LazyObjectNode} are regular container nodes), or with {@link #value()}.
+ * Value can also be bound as other types (like {@code float[]}) with
+ * {@link #valueAs}, without parsing it into nodes.
+ *<p>
+ * When serialized as JSON, raw bytes are copied through as-is, without parsing,
+ * unless contents have been accessed (and possibly modified) or output
+ * settings require re-encoding (pretty-printing, escaping, numbers as Strings).
+ *<p>
+ * Created by {@link CustomJsonNodeReader} for {@link CustomJsonNodeReader.VectorsAs#LAZY}
+ * and other configured lazy properties.
+ */
+public interface LazyJsonNode
+{
+    /**
+     * Factory method for constructing lazy node for JSON Object or Array
+     * contained in given slice of UTF-8 encoded content.
+     *
+     * @return {@link LazyArrayNode} or {@link LazyObjectNode}, depending on
+     *    the first byte of the value
+     */
+    static JsonNode of(ObjectMapper mapper, byte[] source, int offset, int length) {
+        final RawJsonBytes raw = new RawJsonBytes(source, offset, length);
+        if (length > 0) {
+            switch (source[offset]) {
+            case '[':
+                return new LazyArrayNode(mapper, raw);
+            case '{':
+                return new LazyObjectNode(mapper, raw);
+            default:
+            }
+        }
+        throw new IllegalArgumentException("Lazy value must be JSON Object or Array, got: "+raw.getValue());
+    }
+
+    RawJsonBytes rawValue();
+
+    /**
+     * @return Whether contents have been parsed into nodes
+     */
+    boolean isParsed();
+
+    /**
+     * @return This node, after parsing contents (if not yet parsed)
+     */
+    JsonNode value();
+
+    /**
+     * @return Value bound as given type (like {@code float[]}); not retained.
+     *    Bound from raw bytes unless contents have been parsed (and possibly
+     *    modified) already.
+     */
+    <T> T valueAs(Class<T> type) throws IOException;
+}
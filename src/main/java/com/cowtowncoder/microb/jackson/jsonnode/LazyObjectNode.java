@@ -0,0 +1,146 @@
+package com.cowtowncoder.microb.jackson.jsonnode;
+
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * {@link LazyJsonNode} for JSON Objects: {@link ObjectNode} with properties
+ * parsed from raw bytes on first access.
+ */
+// Inherited `ObjectNode.deepCopy()` overrides generic `<T> JsonNode.deepCopy()` (javac [unchecked])
+@SuppressWarnings("unchecked")
+public final class LazyObjectNode extends ObjectNode
+    implements LazyJsonNode
+{
+    private static final long serialVersionUID = 1L;
+
+    private final LazyProperties _properties;
+
+    LazyObjectNode(ObjectMapper mapper, RawJsonBytes raw) {
+        this(mapper, new LazyProperties(new LazyContent(mapper, raw)));
+    }
+
+    private LazyObjectNode(ObjectMapper mapper, LazyProperties properties) {
+        super(mapper.getNodeFactory(), properties);
+        _properties = properties;
+    }
+
+    @Override
+    public RawJsonBytes rawValue() {
+        return _properties._content._raw;
+    }
+
+    @Override
+    public boolean isParsed() {
+        return _properties._parsed != null;
+    }
+
+    @Override
+    public JsonNode value() {
+        _properties._parsed();
+        return this;
+    }
+
+    @Override
+    public <T> T valueAs(Class<T> type) throws IOException {
+        final LazyContent content = _properties._content;
+        return isParsed() ? content._mapper.treeToValue(this, type) : content.bind(type);
+    }
+
+    @Override
+    public void serialize(JsonGenerator g, SerializerProvider provider) throws IOException
+    {
+        if (!isParsed() && LazyContent.canCopyRaw(g)) {
+            g.writeRawValue(rawValue());
+        } else {
+            super.serialize(g, provider);
+        }
+    }
+
+    /**
+     * Property map parsed from raw content on first access.
+     */
+    private final static class LazyProperties extends AbstractMap<String, JsonNode>
+    {
+        final LazyContent _content;
+
+        volatile Map<String, JsonNode> _parsed;
+
+        LazyProperties(LazyContent content) {
+            _content = content;
+        }
+
+        @Override
+        public Set<Map.Entry<String, JsonNode>> entrySet() {
+            return _parsed().entrySet();
+        }
+
+        @Override
+        public Set<String> keySet() {
+            return _parsed().keySet();
+        }
+
+        @Override
+        public Collection<JsonNode> values() {
+            return _parsed().values();
+        }
+
+        @Override
+        public int size() {
+            return _parsed().size();
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return _parsed().containsKey(key);
+        }
+
+        @Override
+        public JsonNode get(Object key) {
+            return _parsed().get(key);
+        }
+
+        @Override
+        public JsonNode put(String key, JsonNode value) {
+            return _parsed().put(key, value);
+        }
+
+        @Override
+        public JsonNode remove(Object key) {
+            return _parsed().remove(key);
+        }
+
+        @Override
+        public void clear() {
+            _parsed().clear();
+        }
+
+        // Synchronized so that concurrent readers see the same properties
+        Map<String, JsonNode> _parsed() {
+            Map<String, JsonNode> props = _parsed;
+            if (props == null) {
+                synchronized (this) {
+                    if ((props = _parsed) == null) {
+                        final JsonNode n = _content.parse();
+                        props = new LinkedHashMap<>();
+                        for (Map.Entry<String, JsonNode> entry : n.properties()) {
+                            props.put(entry.getKey(), entry.getValue());
+                        }
+                        _parsed = props;
+                    }
+                }
+            }
+            return props;
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.cowtowncoder.microb.jackson.jsonnode;
+
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser.NumberType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+
+/**
+ * {@link ArrayNode} for JSON Arrays of numbers, with values stored in a
+ * primitive array ({@code double[]}, {@code float[]} or {@code long[]})
+ * instead of as a {@code NumericNode} per element. Full {@link ArrayNode} API
+ * is supported: element nodes are created on access; and on first
+ * modification contents are converted ("inflated") into regular nodes.
+ *<p>
+ * Serialization writes primitive values directly, without element nodes.
+ */
+// Inherited `ArrayNode.deepCopy()` overrides generic `<T> JsonNode.deepCopy()` (javac [unchecked])
+@SuppressWarnings("unchecked")
+public final class NumericArrayNode extends ArrayNode
+{
+    private static final long serialVersionUID = 1L;
+
+    private final PrimitiveList _values;
+
+    private NumericArrayNode(JsonNodeFactory nf, PrimitiveList values) {
+        super(nf, values);
+        _values = values;
+    }
+
+    public static NumericArrayNode ofDoubles(JsonNodeFactory nf, double[] values, int count) {
+        return new NumericArrayNode(nf, new PrimitiveList(nf, NumberType.DOUBLE,
+                values, null, null, count));
+    }
+
+    public static NumericArrayNode ofFloats(JsonNodeFactory nf, float[] values, int count) {
+        return new NumericArrayNode(nf, new PrimitiveList(nf, NumberType.FLOAT,
+                null, values, null, count));
+    }
+
+    public static NumericArrayNode ofLongs(JsonNodeFactory nf, long[] values, int count) {
+        return new NumericArrayNode(nf, new PrimitiveList(nf, NumberType.LONG,
+                null, null, values, count));
+    }
+
+    /**
+     * @return Type of primitive values stored ({@code DOUBLE}, {@code FLOAT}
+     *    or {@code LONG}), if still stored as primitives; {@code null} if
+     *    contents have been converted to regular nodes.
+     */
+    public NumberType primitiveType() {
+        return _values._type;
+    }
+
+    /**
+     * @return Copy of values as {@code double}s
+     */
+    public double[] asDoubleArray() {
+        final int len = size();
+        double[] result = new double[len];
+        for (int i = 0; i < len; ++i) {
+            result[i] = _values.doubleAt(i);
+        }
+        return result;
+    }
+
+    /**
+     * @return Copy of values as {@code float}s
+     */
+    public float[] asFloatArray() {
+        final int len = size();
+        float[] result = new float[len];
+        for (int i = 0; i < len; ++i) {
+            result[i] = (float) _values.doubleAt(i);
+        }
+        return result;
+    }
+
+    /**
+     * @return Copy of values as {@code long}s (fractions truncated)
+     */
+    public long[] asLongArray() {
+        final int len = size();
+        long[] result = new long[len];
+        for (int i = 0; i < len; ++i) {
+            result[i] = _values.longAt(i);
+        }
+        return result;
+    }
+
+    @Override
+    public void serialize(JsonGenerator g, SerializerProvider provider) throws IOException
+    {
+        final PrimitiveList v = _values;
+        if (v._type == null) {
+            super.serialize(g, provider);
+            return;
+        }
+        final int len = v._size;
+        switch (v._type) {
+        case DOUBLE:
+            g.writeArray(v._doubles, 0, len);
+            return;
+        case LONG:
+            g.writeArray(v._longs, 0, len);
+            return;
+        default: // FLOAT: no bulk method for floats
+            final float[] floats = v._floats;
+            g.writeStartArray(this, len);
+            for (int i = 0; i < len; ++i) {
+                g.writeNumber(floats[i]);
+            }
+            g.writeEndArray();
+        }
+    }
+
+    /**
+     * Element list backed by a primitive array until modified.
+     */
+    private final static class PrimitiveList extends AbstractList<JsonNode>
+        implements RandomAccess
+    {
+        private final JsonNodeFactory _nodes;
+
+        // null once inflated
+        NumberType _type;
+
+        double[] _doubles;
+        float[] _floats;
+        long[] _longs;
+        int _size;
+
+        private List<JsonNode> _inflated;
+
+        PrimitiveList(JsonNodeFactory nodes, NumberType type,
+                double[] doubles, float[] floats, long[] longs, int size) {
+            _nodes = nodes;
+            _type = type;
+            _doubles = doubles;
+            _floats = floats;
+            _longs = longs;
+            _size = size;
+        }
+
+        @Override
+        public int size() {
+            return (_inflated == null) ? _size : _inflated.size();
+        }
+
+        @Override
+        public JsonNode get(int index) {
+            if (_inflated != null) {
+                return _inflated.get(index);
+            }
+            if (index < 0 || index >= _size) {
+                throw new IndexOutOfBoundsException("Index "+index+" out of bounds for length "+_size);
+            }
+            switch (_type) {
+            case DOUBLE:
+                return _nodes.numberNode(_doubles[index]);
+            case FLOAT:
+                return _nodes.numberNode(_floats[index]);
+            default:
+                final long l = _longs[index];
+                final int i = (int) l;
+                return (i == l) ? _nodes.numberNode(i) : _nodes.numberNode(l);
+            }
+        }
+
+        double doubleAt(int index) {
+            if (_inflated != null) {
+                return _inflated.get(index).doubleValue();
+            }
+            switch (_type) {
+            case DOUBLE:
+                return _doubles[index];
+            case FLOAT:
+                return _floats[index];
+            default:
+                return _longs[index];
+            }
+        }
+
+        long longAt(int index) {
+            if (_type == NumberType.LONG) {
+                return _longs[index];
+            }
+            return (_inflated != null) ? _inflated.get(index).longValue() : (long) doubleAt(index);
+        }
+
+        @Override
+        public JsonNode set(int index, JsonNode element) {
+            return _inflate().set(index, element);
+        }
+
+        @Override
+        public void add(int index, JsonNode element) {
+            _inflate().add(index, element);
+        }
+
+        @Override
+        public JsonNode remove(int index) {
+            return _inflate().remove(index);
+        }
+
+        @Override
+        public void clear() {
+            _inflate().clear();
+        }
+
+        private List<JsonNode> _inflate() {
+            if (_inflated == null) {
+                List<JsonNode> nodes = new ArrayList<>(_size + 4);
+                for (int i = 0; i < _size; ++i) {
+                    nodes.add(get(i));
+                }
+                _inflated = nodes;
+                _type = null;
+                _doubles = null;
+                _floats = null;
+                _longs = null;
+                _size = 0;
+            }
+            ++modCount;
+            return _inflated;
+        }
+    }
+}
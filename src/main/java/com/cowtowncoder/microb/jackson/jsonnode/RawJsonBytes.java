@@ -0,0 +1,184 @@
+package com.cowtowncoder.microb.jackson.jsonnode;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+
+/**
+ * {@link SerializableString} that refers to a slice of an existing
+ * (UTF-8 encoded) {@code byte[]} that contains a valid JSON value: used to
+ * copy value through as-is (with {@code JsonGenerator.writeRawValue()})
+ * without decoding it. Source array must not be modified while instance
+ * is in use.
+ *<p>
+ * "Quoted" accessors quote the JSON text as String value, as per contract.
+ */
+public final class RawJsonBytes implements SerializableString
+{
+    private final byte[] _source;
+    private final int _offset, _length;
+
+    // Lazily decoded
+    private String _text;
+
+    public RawJsonBytes(byte[] source, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > source.length) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid slice [%d, %d) of byte[%d]", offset, offset + length, source.length));
+        }
+        _source = source;
+        _offset = offset;
+        _length = length;
+    }
+
+    public byte[] source() { return _source; }
+    public int offset() { return _offset; }
+    public int length() { return _length; }
+
+    /*
+    /**********************************************************************
+    /* SerializableString implementation, unquoted
+    /**********************************************************************
+     */
+
+    @Override
+    public String getValue() {
+        String str = _text;
+        if (str == null) {
+            _text = str = new String(_source, _offset, _length, StandardCharsets.UTF_8);
+        }
+        return str;
+    }
+
+    @Override
+    public int charLength() {
+        return getValue().length();
+    }
+
+    @Override
+    public byte[] asUnquotedUTF8() {
+        return Arrays.copyOfRange(_source, _offset, _offset + _length);
+    }
+
+    @Override
+    public int appendUnquotedUTF8(byte[] buffer, int offset) {
+        if (offset + _length > buffer.length) {
+            return -1;
+        }
+        System.arraycopy(_source, _offset, buffer, offset, _length);
+        return _length;
+    }
+
+    @Override
+    public int appendUnquoted(char[] buffer, int offset) {
+        final String str = getValue();
+        final int len = str.length();
+        if (offset + len > buffer.length) {
+            return -1;
+        }
+        str.getChars(0, len, buffer, offset);
+        return len;
+    }
+
+    @Override
+    public int writeUnquotedUTF8(OutputStream out) throws IOException {
+        out.write(_source, _offset, _length);
+        return _length;
+    }
+
+    @Override
+    public int putUnquotedUTF8(ByteBuffer buffer) {
+        if (_length > buffer.remaining()) {
+            return -1;
+        }
+        buffer.put(_source, _offset, _length);
+        return _length;
+    }
+
+    /*
+    /**********************************************************************
+    /* SerializableString implementation, quoted
+    /**********************************************************************
+     */
+
+    @Override
+    public char[] asQuotedChars() {
+        return JsonStringEncoder.getInstance().quoteAsString(getValue());
+    }
+
+    @Override
+    public byte[] asQuotedUTF8() {
+        return JsonStringEncoder.getInstance().quoteAsUTF8(getValue());
+    }
+
+    @Override
+    public int appendQuotedUTF8(byte[] buffer, int offset) {
+        final byte[] quoted = asQuotedUTF8();
+        if (offset + quoted.length > buffer.length) {
+            return -1;
+        }
+        System.arraycopy(quoted, 0, buffer, offset, quoted.length);
+        return quoted.length;
+    }
+
+    @Override
+    public int appendQuoted(char[] buffer, int offset) {
+        final char[] quoted = asQuotedChars();
+        if (offset + quoted.length > buffer.length) {
+            return -1;
+        }
+        System.arraycopy(quoted, 0, buffer, offset, quoted.length);
+        return quoted.length;
+    }
+
+    @Override
+    public int writeQuotedUTF8(OutputStream out) throws IOException {
+        final byte[] quoted = asQuotedUTF8();
+        out.write(quoted);
+        return quoted.length;
+    }
+
+    @Override
+    public int putQuotedUTF8(ByteBuffer buffer) {
+        final byte[] quoted = asQuotedUTF8();
+        if (quoted.length > buffer.remaining()) {
+            return -1;
+        }
+        buffer.put(quoted);
+        return quoted.length;
+    }
+
+    /*
+    /**********************************************************************
+    /* Std method overrides
+    /**********************************************************************
+     */
+
+    @Override
+    public String toString() {
+        return getValue();
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (int i = _offset, end = _offset + _length; i < end; ++i) {
+            hash = 31 * hash + _source[i];
+        }
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) return true;
+        if (!(o instanceof RawJsonBytes)) return false;
+        RawJsonBytes other = (RawJsonBytes) o;
+        return Arrays.equals(_source, _offset, _offset + _length,
+                other._source, other._offset, other._offset + other._length);
+    }
+}
@@ -0,0 +1,444 @@
+package com.cowtowncoder.microb.jackson.jsonnode;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Objects;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.JsonNodeType;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Flat (simdjson-style "tape") representation of a JSON document, read by
+ * {@link TapeDocumentReader}: instead of a graph of node objects, content is
+ * stored in a few primitive arrays:
+ *<ul>
+ * <li>{@code long[]} tape with one entry per token (type in top 8 bits,
+ *   payload in the rest); some followed by a second entry for
+ *   a {@code long}/{@code double} value or length.
+ *   Object/Array start entries contain index of matching end entry
+ *   (and element count) so that values can be skipped in constant time.
+ *  </li>
+ * <li>{@code char[]} buffer for String values (and big integers)
+ *  </li>
+ * <li>{@code float[]} buffer for {@code $vector}s read as
+ *   {@link CustomJsonNodeReader.VectorsAs#ARRAY_OF_FLOATS}
+ *  </li>
+ * <li>{@link TapeKeyDictionary} for property names (shared across documents)
+ *  </li>
+ *</ul>
+ * Content is accessed with {@link Cursor}, or converted into {@link JsonNode}
+ * on demand.
+ *<p>
+ * NOTE: floating-point numbers are stored as {@code double}s.
+ */
+public final class TapeDocument
+{
+    // Entry types
+    final static int TYPE_OBJECT = 1;
+    final static int TYPE_ARRAY = 2;
+    final static int TYPE_END = 3;
+    final static int TYPE_KEY = 4;
+    final static int TYPE_STRING = 5;
+    final static int TYPE_LONG = 6;
+    final static int TYPE_DOUBLE = 7;
+    final static int TYPE_BIG_INTEGER = 8;
+    final static int TYPE_TRUE = 9;
+    final static int TYPE_FALSE = 10;
+    final static int TYPE_NULL = 11;
+    final static int TYPE_FLOAT_VECTOR = 12;
+    final static int TYPE_RAW = 13;
+
+    final static int TYPE_SHIFT = 56;
+    final static long PAYLOAD_MASK = (1L << TYPE_SHIFT) - 1;
+
+    // For Object/Array start entries: count in bits 32-55 (saturated),
+    // index of end entry in bits 0-31
+    final static int MAX_COUNT = (1 << 24) - 1;
+
+    private final long[] _tape;
+    private final char[] _strings;
+    private final float[] _floats;
+    private final TapeKeyDictionary _keys;
+
+    // Source content, for lazy ("raw") values
+    private final byte[] _source;
+
+    TapeDocument(long[] tape, char[] strings, float[] floats,
+            TapeKeyDictionary keys, byte[] source)
+    {
+        _tape = tape;
+        _strings = strings;
+        _floats = floats;
+        _keys = keys;
+        _source = source;
+    }
+
+    public Cursor cursor() {
+        return new Cursor(0);
+    }
+
+    /**
+     * @return Number of tape entries
+     */
+    public int tapeLength() {
+        return _tape.length;
+    }
+
+    /**
+     * @param mapper Mapper to use for node factory (and for lazy values, if any)
+     */
+    public JsonNode toJsonNode(ObjectMapper mapper) {
+        return _toNode(0, mapper, mapper.getNodeFactory());
+    }
+
+    /*
+    /**********************************************************************
+    /* Tape access
+    /**********************************************************************
+     */
+
+    int type(int index) {
+        return (int) (_tape[index] >>> TYPE_SHIFT);
+    }
+
+    private int _payload(int index) {
+        return (int) (_tape[index] & PAYLOAD_MASK);
+    }
+
+    // Index of END entry of Object/Array starting at index
+    private int _endOf(int index) {
+        return (int) _tape[index];
+    }
+
+    // Index right after value starting at given index
+    int after(int index) {
+        switch (type(index)) {
+        case TYPE_OBJECT:
+        case TYPE_ARRAY:
+            return _endOf(index) + 1;
+        case TYPE_LONG:
+        case TYPE_DOUBLE:
+        case TYPE_FLOAT_VECTOR:
+        case TYPE_RAW:
+            return index + 2;
+        default:
+            return index + 1;
+        }
+    }
+
+    private int _count(int index) {
+        final int count = (int) ((_tape[index] & PAYLOAD_MASK) >>> 32);
+        if (count < MAX_COUNT) {
+            return count;
+        }
+        // saturated, need to count
+        final int end = _endOf(index);
+        final boolean isObject = (type(index) == TYPE_OBJECT);
+        int n = 0;
+        for (int i = index + 1; i < end; i = after(i)) {
+            if (isObject) { // skip key
+                ++i;
+            }
+            ++n;
+        }
+        return n;
+    }
+
+    private String _string(int index) {
+        final int offset = _payload(index);
+        final int len = (_strings[offset] << 16) | _strings[offset + 1];
+        return new String(_strings, offset + 2, len);
+    }
+
+    private String _key(int index) {
+        return _keys.keyAt(_payload(index));
+    }
+
+    private float[] _floatVector(int index) {
+        final int offset = _payload(index);
+        final int len = (int) _tape[index + 1];
+        float[] result = new float[len];
+        System.arraycopy(_floats, offset, result, 0, len);
+        return result;
+    }
+
+    private JsonNode _toNode(int index, ObjectMapper mapper, JsonNodeFactory nodes)
+    {
+        switch (type(index)) {
+        case TYPE_OBJECT:
+            {
+                ObjectNode ob = nodes.objectNode();
+                final int end = _endOf(index);
+                for (int i = index + 1; i < end; ) {
+                    final String name = _key(i);
+                    ob.set(name, _toNode(i + 1, mapper, nodes));
+                    i = after(i + 1);
+                }
+                return ob;
+            }
+        case TYPE_ARRAY:
+            {
+                ArrayNode arr = nodes.arrayNode();
+                final int end = _endOf(index);
+                for (int i = index + 1; i < end; i = after(i)) {
+                    arr.add(_toNode(i, mapper, nodes));
+                }
+                return arr;
+            }
+        case TYPE_STRING:
+            return nodes.textNode(_string(index));
+        case TYPE_LONG:
+            {
+                final long l = _tape[index + 1];
+                return ((int) l == l) ? nodes.numberNode((int) l) : nodes.numberNode(l);
+            }
+        case TYPE_DOUBLE:
+            return nodes.numberNode(Double.longBitsToDouble(_tape[index + 1]));
+        case TYPE_BIG_INTEGER:
+            return nodes.numberNode(new BigInteger(_string(index)));
+        case TYPE_TRUE:
+            return nodes.booleanNode(true);
+        case TYPE_FALSE:
+            return nodes.booleanNode(false);
+        case TYPE_NULL:
+            return nodes.nullNode();
+        case TYPE_FLOAT_VECTOR:
+            return nodes.pojoNode(_floatVector(index));
+        case TYPE_RAW:
+            return LazyJsonNode.of(mapper, _source, _payload(index), (int) _tape[index + 1]);
+        default:
+        }
+        throw new IllegalStateException("Invalid tape entry at #"+index+": type "+type(index));
+    }
+
+    /*
+    /**********************************************************************
+    /* Cursor
+    /**********************************************************************
+     */
+
+    /**
+     * Mutable position within {@link TapeDocument}, pointing to a value
+     * (root value initially). Navigation methods return {@code false}
+     * (without moving) if there is no such value.
+     */
+    public final class Cursor
+    {
+        private int _index;
+
+        // Indexes of containers above current value
+        private int[] _parents = new int[8];
+
+        private int _depth;
+
+        Cursor(int index) {
+            _index = index;
+        }
+
+        public Cursor copy() {
+            Cursor c = new Cursor(_index);
+            c._parents = _parents.clone();
+            c._depth = _depth;
+            return c;
+        }
+
+        public int depth() {
+            return _depth;
+        }
+
+        public JsonNodeType type() {
+            switch (TapeDocument.this.type(_index)) {
+            case TYPE_OBJECT:
+                return JsonNodeType.OBJECT;
+            case TYPE_ARRAY:
+                return JsonNodeType.ARRAY;
+            case TYPE_STRING:
+                return JsonNodeType.STRING;
+            case TYPE_LONG:
+            case TYPE_DOUBLE:
+            case TYPE_BIG_INTEGER:
+                return JsonNodeType.NUMBER;
+            case TYPE_TRUE:
+            case TYPE_FALSE:
+                return JsonNodeType.BOOLEAN;
+            case TYPE_NULL:
+                return JsonNodeType.NULL;
+            default: // vectors, raw values
+                return JsonNodeType.POJO;
+            }
+        }
+
+        public boolean isContainer() {
+            final int t = TapeDocument.this.type(_index);
+            return (t == TYPE_OBJECT) || (t == TYPE_ARRAY);
+        }
+
+        /**
+         * @return Number of entries for Objects, elements for Arrays and
+         *   {@code float[]} vectors; 0 for other values
+         */
+        public int size() {
+            switch (TapeDocument.this.type(_index)) {
+            case TYPE_OBJECT:
+            case TYPE_ARRAY:
+                return _count(_index);
+            case TYPE_FLOAT_VECTOR:
+                return (int) _tape[_index + 1];
+            default:
+                return 0;
+            }
+        }
+
+        /**
+         * @return Name of property current value is for, if within Object;
+         *   {@code null} otherwise
+         */
+        public String currentName() {
+            if (_depth > 0 && TapeDocument.this.type(_parents[_depth - 1]) == TYPE_OBJECT) {
+                return _key(_index - 1);
+            }
+            return null;
+        }
+
+        public boolean moveToFirstChild() {
+            final int t = TapeDocument.this.type(_index);
+            if ((t != TYPE_OBJECT && t != TYPE_ARRAY) || _endOf(_index) == _index + 1) {
+                return false;
+            }
+            _push();
+            // skip key for Objects
+            _index += (t == TYPE_OBJECT) ? 2 : 1;
+            return true;
+        }
+
+        public boolean moveToNextSibling() {
+            if (_depth == 0) {
+                return false;
+            }
+            int next = after(_index);
+            if (TapeDocument.this.type(next) == TYPE_END) {
+                return false;
+            }
+            if (TapeDocument.this.type(_parents[_depth - 1]) == TYPE_OBJECT) {
+                ++next;
+            }
+            _index = next;
+            return true;
+        }
+
+        public boolean moveToParent() {
+            if (_depth == 0) {
+                return false;
+            }
+            _index = _parents[--_depth];
+            return true;
+        }
+
+        public boolean moveToProperty(String name) {
+            if (TapeDocument.this.type(_index) != TYPE_OBJECT) {
+                return false;
+            }
+            final int end = _endOf(_index);
+            for (int i = _index + 1; i < end; i = after(i + 1)) {
+                if (name.equals(_key(i))) {
+                    _push();
+                    _index = i + 1;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public boolean moveToElement(int elementIndex) {
+            if (TapeDocument.this.type(_index) != TYPE_ARRAY || elementIndex < 0) {
+                return false;
+            }
+            final int end = _endOf(_index);
+            int i = _index + 1;
+            for (int n = 0; i < end && n < elementIndex; ++n) {
+                i = after(i);
+            }
+            if (i >= end) {
+                return false;
+            }
+            _push();
+            _index = i;
+            return true;
+        }
+
+        public String textValue() {
+            final int t = TapeDocument.this.type(_index);
+            return (t == TYPE_STRING || t == TYPE_BIG_INTEGER) ? _string(_index) : null;
+        }
+
+        public boolean booleanValue() {
+            return TapeDocument.this.type(_index) == TYPE_TRUE;
+        }
+
+        public long longValue() {
+            switch (TapeDocument.this.type(_index)) {
+            case TYPE_LONG:
+                return _tape[_index + 1];
+            case TYPE_DOUBLE:
+                return (long) Double.longBitsToDouble(_tape[_index + 1]);
+            case TYPE_BIG_INTEGER:
+                return new BigInteger(_string(_index)).longValue();
+            default:
+                return 0L;
+            }
+        }
+
+        public double doubleValue() {
+            switch (TapeDocument.this.type(_index)) {
+            case TYPE_LONG:
+                return _tape[_index + 1];
+            case TYPE_DOUBLE:
+                return Double.longBitsToDouble(_tape[_index + 1]);
+            case TYPE_BIG_INTEGER:
+                return new BigInteger(_string(_index)).doubleValue();
+            default:
+                return 0.0;
+            }
+        }
+
+        /**
+         * @return Copy of {@code float[]} vector, if current value is one;
+         *   {@code null} otherwise
+         */
+        public float[] floatVector() {
+            return (TapeDocument.this.type(_index) == TYPE_FLOAT_VECTOR)
+                    ? _floatVector(_index) : null;
+        }
+
+        /**
+         * Accessor for {@code float[]} vector value that avoids copying:
+         *
+         * @return Value of element at given index of vector
+         *
+         * @throws IllegalStateException If current value is not a {@code float[]} vector
+         * @throws IndexOutOfBoundsException If index is not within vector
+         */
+        public float floatAt(int index) {
+            if (TapeDocument.this.type(_index) != TYPE_FLOAT_VECTOR) {
+                throw new IllegalStateException("Current value not a float vector: "+type());
+            }
+            Objects.checkIndex(index, size());
+            return _floats[_payload(_index) + index];
+        }
+
+        public JsonNode toJsonNode(ObjectMapper mapper) {
+            return _toNode(_index, mapper, mapper.getNodeFactory());
+        }
+
+        private void _push() {
+            if (_depth == _parents.length) {
+                _parents = Arrays.copyOf(_parents, _depth << 1);
+            }
+            _parents[_depth++] = _index;
+        }
+    }
+}
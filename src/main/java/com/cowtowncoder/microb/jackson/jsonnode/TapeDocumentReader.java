@@ -0,0 +1,261 @@
+package com.cowtowncoder.microb.jackson.jsonnode;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Objects;
+
+import com.fasterxml.jackson.core.*;
+import com.fasterxml.jackson.core.exc.StreamReadException;
+
+import static com.cowtowncoder.microb.jackson.jsonnode.TapeDocument.*;
+
+/**
+ * Reader that reads a single JSON value (usually an Object or Array) from
+ * {@link JsonParser} into a {@link TapeDocument}: a non-recursive loop
+ * over tokens, appending to flat buffers. Handling of {@code $vector}s
+ * follows {@link CustomJsonNodeReader.VectorsAs}, same as with
+ * {@link CustomJsonNodeReader}.
+ */
+public final class TapeDocumentReader
+{
+    private final static String PROP_VECTOR = "$vector";
+
+    private final JsonParser _parser;
+
+    private final CustomJsonNodeReader.VectorsAs _vectorsAs;
+
+    private final TapeKeyDictionary _keys;
+
+    private final byte[] _source;
+
+    private long[] _tape = new long[256];
+    private int _tapeLen;
+
+    private char[] _strings = new char[256];
+    private int _stringsLen;
+
+    private float[] _floats;
+    private int _floatsLen;
+
+    public TapeDocumentReader(JsonParser p, CustomJsonNodeReader.VectorsAs vectorsAs,
+            TapeKeyDictionary keys)
+    {
+        this(p, vectorsAs, keys, null);
+    }
+
+    /**
+     * @param source Content parser reads: needed for {@link CustomJsonNodeReader.VectorsAs#LAZY}
+     *   (parser must have been constructed for the whole array, starting at offset 0)
+     */
+    public TapeDocumentReader(JsonParser p, CustomJsonNodeReader.VectorsAs vectorsAs,
+            TapeKeyDictionary keys, byte[] source)
+    {
+        _parser = p;
+        _vectorsAs = Objects.requireNonNull(vectorsAs);
+        _keys = Objects.requireNonNull(keys);
+        _source = source;
+        if (source == null && vectorsAs == CustomJsonNodeReader.VectorsAs.LAZY) {
+            throw new IllegalArgumentException("Source content needed for lazy reading");
+        }
+        if (vectorsAs == CustomJsonNodeReader.VectorsAs.ARRAY_OF_FLOATS) {
+            _floats = new float[1024];
+        }
+    }
+
+    public TapeDocument read() {
+        try {
+            _read();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return new TapeDocument(Arrays.copyOf(_tape, _tapeLen),
+                Arrays.copyOf(_strings, _stringsLen),
+                (_floats == null) ? null : Arrays.copyOf(_floats, _floatsLen),
+                _keys, _source);
+    }
+
+    private void _read() throws IOException
+    {
+        final JsonParser p = _parser;
+        // Open containers: index of start entry, and number of values
+        int[] starts = new int[16];
+        int[] counts = new int[16];
+        int depth = 0;
+        boolean vectorNext = false;
+        JsonToken t = p.nextToken();
+
+        if (t == null) {
+            throw _readError("Unexpected end-of-input: no content");
+        }
+        do {
+            if (t == JsonToken.FIELD_NAME) {
+                final String name = p.currentName();
+                _append(TYPE_KEY, _keys.indexOf(name));
+                vectorNext = PROP_VECTOR.equals(name);
+                continue;
+            }
+            if (t.isStructEnd()) {
+                --depth;
+                _closeContainer(starts[depth], counts[depth]);
+                continue;
+            }
+            if (depth > 0) {
+                ++counts[depth - 1];
+            }
+            switch (t) {
+            case START_OBJECT:
+            case START_ARRAY:
+                if (vectorNext && t == JsonToken.START_ARRAY
+                        && _vectorsAs != CustomJsonNodeReader.VectorsAs.LIST_OF_NUMBERS) {
+                    _readVector();
+                    break;
+                }
+                if (depth == starts.length) {
+                    starts = Arrays.copyOf(starts, depth << 1);
+                    counts = Arrays.copyOf(counts, depth << 1);
+                }
+                starts[depth] = _tapeLen;
+                counts[depth] = 0;
+                ++depth;
+                _append((t == JsonToken.START_OBJECT) ? TYPE_OBJECT : TYPE_ARRAY, 0);
+                break;
+            case VALUE_STRING:
+                _appendString(TYPE_STRING, p.getTextCharacters(), p.getTextOffset(), p.getTextLength());
+                break;
+            case VALUE_NUMBER_INT:
+                if (p.getNumberType() == JsonParser.NumberType.BIG_INTEGER) {
+                    // NOTE: must materialize value; with 2.18.0, if not, parser may return
+                    // stale value for following floating-point numbers
+                    final String text = p.getBigIntegerValue().toString();
+                    _appendString(TYPE_BIG_INTEGER, text.toCharArray(), 0, text.length());
+                } else {
+                    _append(TYPE_LONG, 0);
+                    _appendRaw(p.getLongValue());
+                }
+                break;
+            case VALUE_NUMBER_FLOAT:
+                _append(TYPE_DOUBLE, 0);
+                _appendRaw(Double.doubleToRawLongBits(p.getDoubleValue()));
+                break;
+            case VALUE_TRUE:
+                _append(TYPE_TRUE, 0);
+                break;
+            case VALUE_FALSE:
+                _append(TYPE_FALSE, 0);
+                break;
+            case VALUE_NULL:
+                _append(TYPE_NULL, 0);
+                break;
+            default:
+                throw _readError("Internal state error: current token type unsupported: "+t);
+            }
+            vectorNext = false;
+        } while (depth > 0 && (t = p.nextToken()) != null);
+
+        if (depth > 0) {
+            throw _readError("Unexpected end-of-input: "+depth+" open container(s)");
+        }
+    }
+
+    // Called with START_ARRAY of "$vector" as current token
+    private void _readVector() throws IOException
+    {
+        final JsonParser p = _parser;
+        JsonToken t;
+
+        switch (_vectorsAs) {
+        case ARRAY_OF_FLOATS:
+            {
+                final int offset = _floatsLen;
+                while ((t = p.nextToken()) != JsonToken.END_ARRAY) {
+                    _verifyVectorElement(t);
+                    if (_floatsLen == _floats.length) {
+                        _floats = Arrays.copyOf(_floats, _floatsLen << 1);
+                    }
+                    _floats[_floatsLen++] = p.getFloatValue();
+                }
+                _append(TYPE_FLOAT_VECTOR, offset);
+                _appendRaw(_floatsLen - offset);
+            }
+            return;
+        case LIST_OF_STRINGS:
+            {
+                final int start = _tapeLen;
+                int count = 0;
+                _append(TYPE_ARRAY, 0);
+                while ((t = p.nextToken()) != JsonToken.END_ARRAY) {
+                    _verifyVectorElement(t);
+                    _appendString(TYPE_STRING, p.getTextCharacters(), p.getTextOffset(), p.getTextLength());
+                    ++count;
+                }
+                _closeContainer(start, count);
+            }
+            return;
+        case SKIP:
+            p.skipChildren();
+            _append(TYPE_NULL, 0);
+            return;
+        case LAZY:
+            {
+                final long start = p.currentTokenLocation().getByteOffset();
+                p.skipChildren();
+                final long end = p.currentLocation().getByteOffset();
+                if (start < 0L || end > _source.length) {
+                    throw _readError("Internal state error: invalid raw value location ["+start+", "+end+")");
+                }
+                _append(TYPE_RAW, (int) start);
+                _appendRaw(end - start);
+            }
+            return;
+        default:
+        }
+        throw _readError("Internal state error: no special handling for "+_vectorsAs);
+    }
+
+    private void _verifyVectorElement(JsonToken t) throws IOException {
+        if (t != JsonToken.VALUE_NUMBER_FLOAT && t != JsonToken.VALUE_NUMBER_INT) {
+            throw _readError("Invalid content in \"$vector\": expected JSON Number, got: "
+                    +t);
+        }
+    }
+
+    /*
+    /**********************************************************************
+    /* Buffer handling
+    /**********************************************************************
+     */
+
+    private void _closeContainer(int start, int count) {
+        final int end = _tapeLen;
+        _tape[start] |= (((long) Math.min(count, MAX_COUNT)) << 32) | end;
+        _append(TYPE_END, start);
+    }
+
+    private void _append(int type, int payload) {
+        _appendRaw((((long) type) << TYPE_SHIFT) | (payload & 0xFFFFFFFFL));
+    }
+
+    private void _appendRaw(long value) {
+        if (_tapeLen == _tape.length) {
+            _tape = Arrays.copyOf(_tape, _tapeLen << 1);
+        }
+        _tape[_tapeLen++] = value;
+    }
+
+    // Strings stored with 2-char (32-bit) length prefix
+    private void _appendString(int type, char[] buf, int offset, int len) {
+        final int needed = _stringsLen + len + 2;
+        if (needed > _strings.length) {
+            _strings = Arrays.copyOf(_strings, Math.max(needed, _strings.length << 1));
+        }
+        _append(type, _stringsLen);
+        _strings[_stringsLen++] = (char) (len >>> 16);
+        _strings[_stringsLen++] = (char) len;
+        System.arraycopy(buf, offset, _strings, _stringsLen, len);
+        _stringsLen += len;
+    }
+
+    private StreamReadException _readError(String msg) {
+        return new JsonParseException(_parser, msg);
+    }
+}
@@ -0,0 +1,242 @@
+package com.cowtowncoder.microb.jackson.jsonnode;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.cowtowncoder.microb.jackson.model.InputData;
+import com.cowtowncoder.microb.jackson.model.InputJson;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.StreamReadFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.node.POJONode;
+import com.cowtowncoder.microb.util.HeapUsage;
+
+/**
+ * Test for comparing {@link TapeDocument} (flat "tape" model) with
+ * {@link JsonNode} trees read by {@link CustomJsonNodeReader}, for
+ * each {@link CustomJsonNodeReader.VectorsAs} mode: parsing,
+ * traversal of all values (of pre-read documents) and conversion of tape
+ * into {@link JsonNode}.
+ * Retained heap of both representations is printed (for all modes) when
+ * run via {@link #main}.
+ *
+ * @author Tatu Saloranta
+ */
+@BenchmarkMode(Mode.Throughput)
+@State(Scope.Benchmark)
+//During dev, use lower; for real measurements, higher
+//@Fork(value = 1)
+@Fork(value = 3)
+@Measurement(iterations = 3, time = 3)
+@Warmup(iterations = 4, time = 1)
+public class TapeDocumentReading
+{
+    @Param({ "LIST_OF_NUMBERS", "ARRAY_OF_FLOATS", "LIST_OF_STRINGS", "SKIP", "LAZY" })
+    public CustomJsonNodeReader.VectorsAs vectorsAs;
+
+    /*
+    /**********************************************************************
+    /* Constants
+    /**********************************************************************
+     */
+
+    private final byte[] INPUT_JSON = InputData.get(InputJson.FRIENDS_WITH_VECTORS).serialized();
+
+    // Number of documents kept around when measuring retained heap
+    private final static int HEAP_COPIES = 20;
+
+    private final ObjectMapper JSON_MAPPER;
+    {
+        JsonFactory f = JsonFactory.builder()
+                .enable(StreamReadFeature.USE_FAST_BIG_NUMBER_PARSER)
+                .enable(StreamReadFeature.USE_FAST_DOUBLE_PARSER)
+                .build();
+        JSON_MAPPER = new JsonMapper(f);
+    }
+
+    // Shared by all tape documents
+    private final TapeKeyDictionary KEYS = new TapeKeyDictionary();
+
+    private JsonNode _tree;
+
+    private TapeDocument _tape;
+
+    /*
+    /**********************************************************************
+    /* Set up
+    /**********************************************************************
+     */
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        _tree = _readTree();
+        _tape = _readTape();
+
+        System.out.println();
+        System.out.println("------------------");
+        System.out.printf("Traversal checksums (%s): JsonNode %.3f, tape %.3f (%d entries)%n",
+                vectorsAs, _traverse(_tree), _traverse(_tape.cursor()), _tape.tapeLength());
+        System.out.println("------------------");
+    }
+
+    /*
+    /**********************************************************************
+    /* Test methods
+    /**********************************************************************
+     */
+
+    @Benchmark
+    public void parseTree(Blackhole bh) throws Exception {
+        bh.consume(_readTree());
+    }
+
+    @Benchmark
+    public void parseTape(Blackhole bh) throws Exception {
+        bh.consume(_readTape());
+    }
+
+    @Benchmark
+    public void traverseTree(Blackhole bh) throws Exception {
+        bh.consume(_traverse(_tree));
+    }
+
+    @Benchmark
+    public void traverseTape(Blackhole bh) throws Exception {
+        bh.consume(_traverse(_tape.cursor()));
+    }
+
+    @Benchmark
+    public void tapeToTree(Blackhole bh) throws Exception {
+        bh.consume(_tape.toJsonNode(JSON_MAPPER));
+    }
+
+    /*
+    /**********************************************************************
+    /* Helper methods
+    /**********************************************************************
+     */
+
+    private JsonNode _readTree() throws IOException {
+        try (JsonParser p = JSON_MAPPER.createParser(INPUT_JSON)) {
+            return new CustomJsonNodeReader(JSON_MAPPER, p, vectorsAs,
+                    INPUT_JSON, Collections.emptySet())
+                        .readTree();
+        }
+    }
+
+    private TapeDocument _readTape() throws IOException {
+        try (JsonParser p = JSON_MAPPER.createParser(INPUT_JSON)) {
+            return new TapeDocumentReader(p, vectorsAs, KEYS, INPUT_JSON).read();
+        }
+    }
+
+    // Visits all values: sums up numbers (including vector elements),
+    // String lengths and container sizes
+    private static double _traverse(JsonNode n) {
+        switch (n.getNodeType()) {
+        case OBJECT:
+            {
+                double sum = n.size();
+                for (Map.Entry<String, JsonNode> entry : n.properties()) {
+                    sum += _traverse(entry.getValue());
+                }
+                return sum;
+            }
+        case ARRAY:
+            {
+                double sum = n.size();
+                for (int i = 0, len = n.size(); i < len; ++i) {
+                    sum += _traverse(n.get(i));
+                }
+                return sum;
+            }
+        case NUMBER:
+            return n.doubleValue();
+        case STRING:
+            return n.textValue().length();
+        case POJO:
+            {
+                Object pojo = ((POJONode) n).getPojo();
+                double sum = 0.0;
+                if (pojo instanceof float[]) {
+                    for (float f : (float[]) pojo) {
+                        sum += f;
+                    }
+                }
+                return sum;
+            }
+        default:
+            return 0.0;
+        }
+    }
+
+    private static double _traverse(TapeDocument.Cursor c) {
+        switch (c.type()) {
+        case OBJECT:
+        case ARRAY:
+            {
+                double sum = c.size();
+                if (c.moveToFirstChild()) {
+                    do {
+                        sum += _traverse(c);
+                    } while (c.moveToNextSibling());
+                    c.moveToParent();
+                }
+                return sum;
+            }
+        case NUMBER:
+            return c.doubleValue();
+        case STRING:
+            return c.textValue().length();
+        case POJO:
+            {
+                double sum = 0.0;
+                for (int i = 0, len = c.size(); i < len; ++i) {
+                    sum += c.floatAt(i);
+                }
+                return sum;
+            }
+        default:
+            return 0.0;
+        }
+    }
+
+    /*
+    /**********************************************************************
+    /* Retained heap report
+    /**********************************************************************
+     */
+
+    // Not part of set up, to avoid slowing down trials of all benchmarks:
+    // only printed when run via main()
+    private void _printRetainedHeap() throws IOException {
+        System.out.println();
+        System.out.println("------------------");
+        System.out.printf("Retained heap per document (average over %d copies):%n", HEAP_COPIES);
+        for (CustomJsonNodeReader.VectorsAs mode : CustomJsonNodeReader.VectorsAs.values()) {
+            vectorsAs = mode;
+            System.out.printf(" %-16s JsonNode ~%d kB, tape ~%d kB%n", mode+":",
+                    HeapUsage.retainedPerValue(HEAP_COPIES, this::_readTree) >> 10,
+                    HeapUsage.retainedPerValue(HEAP_COPIES, this::_readTape) >> 10);
+        }
+        System.out.println("------------------");
+    }
+
+    public static void main(String[] args) throws Exception {
+        new TapeDocumentReading()._printRetainedHeap();
+        Options opt = new OptionsBuilder()
+                .include(TapeDocumentReading.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
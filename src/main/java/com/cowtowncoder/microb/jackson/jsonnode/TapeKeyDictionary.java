@@ -0,0 +1,73 @@
+package com.cowtowncoder.microb.jackson.jsonnode;
+
+import java.util.Arrays;
+
+/**
+ * Dictionary of property names used by {@link TapeDocument}s: each distinct
+ * name is stored once and referred to by its index. Meant to be shared by
+ * all documents read with same schema.
+ *<p>
+ * Lookups first check key identity, as names from parser are canonicalized
+ * by its symbol table, and fall back to {@link String#equals}.
+ *<p>
+ * NOTE: not thread-safe; needs to be shared per-thread (or externally synchronized).
+ */
+public final class TapeKeyDictionary
+{
+    private String[] _keys = new String[32];
+
+    private int _count;
+
+    // Open-addressing hash table: key index + 1 (0 for empty slot)
+    private int[] _hashSlots = new int[64];
+
+    /**
+     * @return Index of given key, added to dictionary if not yet included
+     */
+    public int indexOf(String key)
+    {
+        int mask = _hashSlots.length - 1;
+        int slot = key.hashCode() & mask;
+        int ix;
+        while ((ix = _hashSlots[slot]) != 0) {
+            final String existing = _keys[ix - 1];
+            if (existing == key || existing.equals(key)) {
+                return ix - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        // Not found: add
+        if (_count == _keys.length) {
+            _keys = Arrays.copyOf(_keys, _count << 1);
+        }
+        final int index = _count++;
+        _keys[index] = key;
+        _hashSlots[slot] = index + 1;
+        // keep fill ratio at 50% max
+        if ((_count << 1) > _hashSlots.length) {
+            _rehash();
+        }
+        return index;
+    }
+
+    public String keyAt(int index) {
+        return _keys[index];
+    }
+
+    public int size() {
+        return _count;
+    }
+
+    private void _rehash() {
+        final int[] slots = new int[_hashSlots.length << 1];
+        final int mask = slots.length - 1;
+        for (int i = 0; i < _count; ++i) {
+            int slot = _keys[i].hashCode() & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = i + 1;
+        }
+        _hashSlots = slots;
+    }
+}
@@ -0,0 +1,26 @@
+package com.cowtowncoder.microb.jackson.model;
+
+import java.util.List;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
+import com.cowtowncoder.microb.jackson.vectors.OffHeapVectorDeserializer;
+
+/**
+ * Alternative to {@link HuggingFaceCohereScidocsQueries} where embedding
+ * vectors are stored in a shared off-heap
+ * {@link com.cowtowncoder.microb.jackson.vectors.OffHeapVectorStore}
+ * and documents only hold index of their vector.
+ */
+public class OffHeapScidocsQueries
+{
+    public List<Data> data;
+
+    public static class Data {
+        public String _id;
+        public String text;
+
+        @JsonDeserialize(using = OffHeapVectorDeserializer.class)
+        public int emb;
+    }
+}
@@ -0,0 +1,284 @@
+package com.cowtowncoder.microb.jackson.parallel;
+
+import java.io.ByteArrayInputStream;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.StreamReadFeature;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.cowtowncoder.microb.jackson.jsonnode.CustomJsonNodeReader;
+import com.cowtowncoder.microb.jackson.model.HuggingFaceCohereScidocsQueries;
+import com.cowtowncoder.microb.jackson.model.InputData;
+import com.cowtowncoder.microb.jackson.model.InputJson;
+import com.cowtowncoder.microb.jackson.pools.RecyclerPoolScaling;
+import com.cowtowncoder.microb.util.NopOutputStream;
+
+/**
+ * Harness (not a JMH test) for running parse/serialize workloads of
+ * {@link com.cowtowncoder.microb.jackson.jsonnode.JsonNodeReading} and
+ * {@link com.cowtowncoder.microb.jackson.vectors.VectorHeavyReadWrite}
+ * as large numbers of tasks submitted to different kinds of executors:
+ * fixed-size platform thread pool, {@link ForkJoinPool} and
+ * virtual-thread-per-task executor. Reports tasks per second and
+ * p50/p99 latencies, both for task execution itself and end-to-end
+ * (from submission to completion, including queuing).
+ *<p>
+ * Of particular interest is interaction with buffer recycling: default
+ * {@code RecyclerPool} is {@code ThreadLocal}-based, which does not work
+ * well with (short-lived) virtual threads; pool to use can be given as
+ * argument (see {@link RecyclerPoolScaling.PoolType}).
+ * To detect pinning of virtual threads, run with
+ * {@code -Djdk.tracePinnedThreads=full}.
+ *<p>
+ * Since project is built for Java 17, virtual-thread executor is created
+ * reflectively: it is only available when running on Java 21 or later
+ * (and skipped otherwise).
+ *<p>
+ * Usage: {@code ExecutorHarness [tasks] [threads] [pool-type]}
+ */
+public class ExecutorHarness
+{
+    private final static int DEFAULT_TASKS = 20_000;
+
+    /**
+     * Kinds of executors to compare
+     */
+    public enum ExecutorType {
+        PLATFORM_FIXED,
+        FORK_JOIN,
+        VIRTUAL;
+
+        /**
+         * @param threads Number of threads to use (ignored for {@link #VIRTUAL})
+         *
+         * @return Executor to use, or {@code null} if not available on this JVM
+         */
+        public ExecutorService create(int threads) {
+            switch (this) {
+            case PLATFORM_FIXED:
+                return Executors.newFixedThreadPool(threads);
+            case FORK_JOIN:
+                return new ForkJoinPool(threads);
+            case VIRTUAL:
+            default:
+                return _virtualThreadPerTaskExecutor();
+            }
+        }
+    }
+
+    /**
+     * Workloads to run, each task processes one full document
+     */
+    public enum Workload {
+        NODE_READ_DEFAULT,
+        NODE_READ_OPTIMIZED,
+        VECTOR_READ,
+        VECTOR_WRITE
+    }
+
+    /**
+     * Results of running a batch of tasks
+     */
+    public static final class Result
+    {
+        public final int tasks;
+        public final double tasksPerSecond;
+        public final long p50Micros, p99Micros;
+        public final long p50EndToEndMicros, p99EndToEndMicros;
+
+        Result(int tasks, long elapsedNanos, long[] execNanos, long[] endToEndNanos) {
+            this.tasks = tasks;
+            tasksPerSecond = tasks * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+            Arrays.sort(execNanos);
+            Arrays.sort(endToEndNanos);
+            p50Micros = _percentile(execNanos, 0.50) / 1000L;
+            p99Micros = _percentile(execNanos, 0.99) / 1000L;
+            p50EndToEndMicros = _percentile(endToEndNanos, 0.50) / 1000L;
+            p99EndToEndMicros = _percentile(endToEndNanos, 0.99) / 1000L;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%9.1f tasks/s; exec p50 %6d us, p99 %6d us; end-to-end p50 %8d us, p99 %8d us",
+                    tasksPerSecond, p50Micros, p99Micros, p50EndToEndMicros, p99EndToEndMicros);
+        }
+    }
+
+    /*
+    /**********************************************************************
+    /* Workload state
+    /**********************************************************************
+     */
+
+    private final ObjectMapper _vectorMapper;
+    private final ObjectMapper _nodeMapper;
+
+    private final byte[] _vectorInput;
+    private final HuggingFaceCohereScidocsQueries _vectorDoc;
+    private final byte[] _nodeInput;
+
+    public ExecutorHarness(RecyclerPoolScaling.PoolType poolType)
+    {
+        final InputData vectorData = InputData.get(InputJson.HUGGING_FACE_QUERIES);
+        _vectorInput = vectorData.serialized();
+        _vectorDoc = vectorData.deserialized();
+        _nodeInput = InputData.get(InputJson.FRIENDS_WITH_VECTORS).serialized();
+
+        // Same configurations as in `VectorHeavyReadWrite`, `JsonNodeReading`, except for pool
+        _vectorMapper = new JsonMapper(JsonFactory.builder()
+                .recyclerPool(poolType.create())
+                .build());
+        _nodeMapper = JsonMapper.builder(JsonFactory.builder()
+                .recyclerPool(poolType.create())
+                .enable(StreamReadFeature.STRICT_DUPLICATE_DETECTION)
+                .enable(StreamReadFeature.USE_FAST_BIG_NUMBER_PARSER)
+                .enable(StreamReadFeature.USE_FAST_DOUBLE_PARSER)
+                .enable(StreamWriteFeature.USE_FAST_DOUBLE_WRITER)
+                .build())
+            .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)
+            .build();
+    }
+
+    public Callable<Object> task(Workload workload) {
+        switch (workload) {
+        case NODE_READ_DEFAULT:
+            return () -> _nodeMapper.readTree(new ByteArrayInputStream(_nodeInput));
+        case NODE_READ_OPTIMIZED:
+            return () -> {
+                try (JsonParser p = _nodeMapper.createParser(new ByteArrayInputStream(_nodeInput))) {
+                    return new CustomJsonNodeReader(_nodeMapper, p,
+                            CustomJsonNodeReader.VectorsAs.ARRAY_OF_FLOATS).readTree();
+                }
+            };
+        case VECTOR_READ:
+            return () -> _vectorMapper.readValue(_vectorInput, HuggingFaceCohereScidocsQueries.class);
+        case VECTOR_WRITE:
+        default:
+            return () -> {
+                try (NopOutputStream out = new NopOutputStream()) {
+                    _vectorMapper.writeValue(out, _vectorDoc);
+                    return out.size();
+                }
+            };
+        }
+    }
+
+    /*
+    /**********************************************************************
+    /* Running
+    /**********************************************************************
+     */
+
+    /**
+     * Submits given number of copies of given task to executor (all at once),
+     * waits for all to complete and measures throughput and latencies.
+     */
+    public static Result run(ExecutorService exec, int taskCount, Callable<?> task) throws Exception
+    {
+        final long[] execNanos = new long[taskCount];
+        final long[] endToEndNanos = new long[taskCount];
+        final List<Future<?>> futures = new ArrayList<>(taskCount);
+        final long start = System.nanoTime();
+
+        for (int i = 0; i < taskCount; ++i) {
+            final int ix = i;
+            final long submitted = System.nanoTime();
+            futures.add(exec.submit(() -> {
+                final long taskStart = System.nanoTime();
+                Object result = task.call();
+                final long taskEnd = System.nanoTime();
+                execNanos[ix] = taskEnd - taskStart;
+                endToEndNanos[ix] = taskEnd - submitted;
+                return result;
+            }));
+        }
+        // Future.get() establishes happens-before for latency array writes
+        for (Future<?> f : futures) {
+            f.get();
+        }
+        return new Result(taskCount, System.nanoTime() - start, execNanos, endToEndNanos);
+    }
+
+    public static boolean virtualThreadsAvailable() {
+        return _virtualExecutorFactory() != null;
+    }
+
+    private static long _percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0L;
+        }
+        int ix = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(ix, sorted.length - 1))];
+    }
+
+    private static Method _virtualExecutorFactory() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static ExecutorService _virtualThreadPerTaskExecutor() {
+        Method m = _virtualExecutorFactory();
+        if (m == null) {
+            return null;
+        }
+        try {
+            return (ExecutorService) m.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to create virtual-thread executor: "+e, e);
+        }
+    }
+
+    /*
+    /**********************************************************************
+    /* Entry point
+    /**********************************************************************
+     */
+
+    public static void main(String[] args) throws Exception
+    {
+        final int tasks = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_TASKS;
+        final int threads = (args.length > 1) ? Integer.parseInt(args[1])
+                : Runtime.getRuntime().availableProcessors();
+        final RecyclerPoolScaling.PoolType poolType = (args.length > 2)
+                ? RecyclerPoolScaling.PoolType.valueOf(args[2])
+                : RecyclerPoolScaling.PoolType.THREAD_LOCAL;
+        final ExecutorHarness harness = new ExecutorHarness(poolType);
+
+        System.out.printf("Tasks: %d, platform threads: %d, recycler pool: %s, virtual threads available: %s%n",
+                tasks, threads, poolType, virtualThreadsAvailable());
+        for (Workload workload : Workload.values()) {
+            final Callable<Object> task = harness.task(workload);
+            for (ExecutorType type : ExecutorType.values()) {
+                final ExecutorService exec = type.create(threads);
+                if (exec == null) {
+                    System.out.printf("%-20s %-15s (not available)%n", workload, type);
+                    continue;
+                }
+                try {
+                    // first round for warmup, not reported
+                    run(exec, tasks, task);
+                    System.out.printf("%-20s %-15s %s%n", workload, type, run(exec, tasks, task));
+                } finally {
+                    exec.shutdown();
+                    exec.awaitTermination(1, TimeUnit.MINUTES);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,413 @@
+package com.cowtowncoder.microb.jackson.parallel;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.cowtowncoder.microb.jackson.jsonnode.CustomJsonNodeReader;
+
+/**
+ * Pipeline for reading newline-delimited JSON (NDJSON) files using multiple
+ * threads: file is split into chunks of approximately given size (extended
+ * to the next linefeed so that no line crosses chunk boundary), and each
+ * chunk is memory-mapped, split into lines and lines decoded (with given
+ * {@link LineDecoder}) as a separate task on given {@link ForkJoinPool}.
+ *<p>
+ * Results are delivered one chunk at a time via {@link #nextChunk()}, either
+ * in file order ({@code ordered}) or in order of completion. Chunk boundaries
+ * are only located (and chunks submitted) when the caller asks for more
+ * results, and at most {@code maxChunksInFlight} chunks are being decoded
+ * or waiting to be consumed at any given time: this limits memory usage
+ * for files much bigger than available heap.
+ *<p>
+ * Only handles UTF-8 encoded input; blank lines are skipped.
+ * Instances are not thread-safe: results are to be consumed by a single thread.
+ */
+public class NdjsonIngestPipeline<T> implements Closeable
+{
+    /**
+     * Size of reads used when scanning for the linefeed that ends a chunk
+     */
+    private final static int BOUNDARY_SCAN_SIZE = 4096;
+
+    /**
+     * Decoder for contents of a single line (without trailing linefeed).
+     * Called concurrently from multiple threads so must be thread-safe.
+     */
+    @FunctionalInterface
+    public interface LineDecoder<T> {
+        T decode(byte[] buf, int offset, int len) throws IOException;
+    }
+
+    private final FileChannel _channel;
+
+    private final long _fileSize;
+
+    private final LineDecoder<T> _decoder;
+
+    private final ForkJoinPool _pool;
+
+    private final int _chunkSize;
+
+    private final int _maxChunksInFlight;
+
+    private final boolean _ordered;
+
+    /**
+     * Reused buffer for locating chunk boundaries
+     */
+    private final ByteBuffer _scanBuffer = ByteBuffer.allocate(BOUNDARY_SCAN_SIZE);
+
+    /**
+     * Submitted tasks not yet consumed, in submission (file) order; kept for
+     * both ordered and unordered delivery so that they can be cancelled
+     */
+    private final ArrayDeque<ChunkTask> _pending = new ArrayDeque<>();
+
+    /**
+     * Tasks completed (successfully or not) in completion order; only used
+     * for unordered delivery
+     */
+    private final BlockingQueue<ChunkTask> _completed = new LinkedBlockingQueue<>();
+
+    /**
+     * Offset of the first byte not yet assigned to a chunk
+     */
+    private long _nextChunkStart;
+
+    private int _chunksInFlight;
+
+    // Volatile since checked by tasks, to avoid decoding after close
+    private volatile boolean _closed;
+
+    protected NdjsonIngestPipeline(FileChannel channel, LineDecoder<T> decoder,
+            ForkJoinPool pool, int chunkSize, int maxChunksInFlight, boolean ordered)
+        throws IOException
+    {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Invalid chunkSize ("+chunkSize+"): must be positive");
+        }
+        if (maxChunksInFlight < 1) {
+            throw new IllegalArgumentException("Invalid maxChunksInFlight ("+maxChunksInFlight+"): must be positive");
+        }
+        _channel = channel;
+        _fileSize = channel.size();
+        _decoder = decoder;
+        _pool = pool;
+        _chunkSize = chunkSize;
+        _maxChunksInFlight = maxChunksInFlight;
+        _ordered = ordered;
+    }
+
+    /**
+     * @param file NDJSON file to read
+     * @param decoder Decoder for individual lines
+     * @param pool Pool on which chunks are decoded
+     * @param chunkSize Nominal chunk size in bytes; actual chunks extend to the
+     *    end of the line that crosses nominal boundary
+     * @param maxChunksInFlight Maximum number of chunks submitted but not yet
+     *    consumed
+     * @param ordered Whether chunks are to be returned in file order ({@code true})
+     *    or in order of completion ({@code false})
+     */
+    public static <T> NdjsonIngestPipeline<T> open(Path file, LineDecoder<T> decoder,
+            ForkJoinPool pool, int chunkSize, int maxChunksInFlight, boolean ordered)
+        throws IOException
+    {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new NdjsonIngestPipeline<>(channel, decoder, pool, chunkSize,
+                    maxChunksInFlight, ordered);
+        } catch (RuntimeException | IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /*
+    /**********************************************************************
+    /* Decoders
+    /**********************************************************************
+     */
+
+    /**
+     * Decoder that binds each line as a POJO using given reader.
+     */
+    public static <T> LineDecoder<T> pojoDecoder(ObjectReader reader) {
+        return (buf, offset, len) -> reader.readValue(buf, offset, len);
+    }
+
+    /**
+     * Decoder that reads each line as a {@link JsonNode} using
+     * {@link CustomJsonNodeReader}. Read failures (which reader wraps in
+     * {@link RuntimeException}) are unwrapped and rethrown as {@link IOException}.
+     */
+    public static LineDecoder<JsonNode> treeDecoder(ObjectMapper mapper,
+            CustomJsonNodeReader.VectorsAs vectorsAs) {
+        return (buf, offset, len) -> {
+            try (JsonParser p = mapper.createParser(buf, offset, len)) {
+                return new CustomJsonNodeReader(mapper, p, vectorsAs).readTree();
+            } catch (RuntimeException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                throw e;
+            }
+        };
+    }
+
+    /*
+    /**********************************************************************
+    /* Public API
+    /**********************************************************************
+     */
+
+    /**
+     * Method for getting decoded values of the next chunk (either next one
+     * in file order, or next one completed, depending on configuration),
+     * blocking until one is available.
+     *
+     * @return Values decoded from lines of the chunk; {@code null} if all
+     *   chunks have been returned
+     */
+    public List<T> nextChunk() throws IOException
+    {
+        if (_closed) {
+            throw new IOException("Pipeline closed");
+        }
+        _submitChunks();
+        if (_chunksInFlight == 0) {
+            return null;
+        }
+        --_chunksInFlight;
+        final ChunkTask task;
+        if (_ordered) {
+            task = _pending.removeFirst();
+        } else {
+            try {
+                task = _completed.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for next chunk");
+            }
+            _pending.remove(task);
+        }
+        try {
+            return task.join();
+        } catch (UncheckedDecodeException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Convenience method for passing all remaining values to given consumer,
+     * chunk by chunk.
+     *
+     * @return Number of values passed
+     */
+    public long forEach(Consumer<? super T> consumer) throws IOException
+    {
+        long count = 0L;
+        List<T> chunk;
+        while ((chunk = nextChunk()) != null) {
+            for (T value : chunk) {
+                consumer.accept(value);
+            }
+            count += chunk.size();
+        }
+        return count;
+    }
+
+    /**
+     * Closes underlying file. Chunks not yet started are cancelled; ones
+     * already being decoded may still complete (mappings stay valid after
+     * closing the channel) or fail (if not yet mapped), but either way their
+     * results are discarded.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        if (!_closed) {
+            _closed = true;
+            for (ForkJoinTask<?> task : _pending) {
+                task.cancel(false);
+            }
+            _pending.clear();
+            _completed.clear();
+            _chunksInFlight = 0;
+            _channel.close();
+        }
+    }
+
+    /*
+    /**********************************************************************
+    /* Chunk splitting
+    /**********************************************************************
+     */
+
+    // Submits new chunks as long as there is input left and room for more
+    private void _submitChunks() throws IOException
+    {
+        while (_chunksInFlight < _maxChunksInFlight && _nextChunkStart < _fileSize) {
+            final long start = _nextChunkStart;
+            final long end = _findChunkEnd(start);
+            final long len = end - start;
+            if (len > Integer.MAX_VALUE) {
+                throw new IOException("Line starting after offset "+start+" too long ("
+                        +len+" bytes without linefeed)");
+            }
+            _nextChunkStart = end;
+            ++_chunksInFlight;
+            final ChunkTask task = new ChunkTask(start, (int) len);
+            _pending.addLast(task);
+            _pool.execute(task);
+        }
+    }
+
+    /**
+     * Method that finds (exclusive) end offset of chunk that starts at given
+     * offset: right after the first linefeed at or beyond nominal chunk end,
+     * or end of file.
+     */
+    private long _findChunkEnd(long start) throws IOException
+    {
+        long offset = start + _chunkSize - 1;
+        while (offset < _fileSize) {
+            _scanBuffer.clear();
+            int count = _channel.read(_scanBuffer, offset);
+            if (count <= 0) {
+                break;
+            }
+            final byte[] buf = _scanBuffer.array();
+            for (int i = 0; i < count; ++i) {
+                if (buf[i] == '\n') {
+                    return offset + i + 1;
+                }
+            }
+            offset += count;
+        }
+        return _fileSize;
+    }
+
+    /*
+    /**********************************************************************
+    /* Chunk decoding
+    /**********************************************************************
+     */
+
+    protected List<T> _decodeChunk(long start, int len) throws IOException
+    {
+        // Jackson parsers need byte[] (or InputStream), so mapped content is
+        // copied in bulk; still avoids per-chunk read syscalls and buffering
+        final MappedByteBuffer mapped = _channel.map(FileChannel.MapMode.READ_ONLY, start, len);
+        final byte[] buf = new byte[len];
+        mapped.get(buf);
+
+        List<T> results = new ArrayList<>();
+        int lineStart = 0;
+        for (int i = 0; i <= len; ++i) {
+            if (i < len && buf[i] != '\n') {
+                continue;
+            }
+            int from = lineStart;
+            int to = i;
+            lineStart = i + 1;
+            while (from < to && _isWhitespace(buf[from])) {
+                ++from;
+            }
+            while (to > from && _isWhitespace(buf[to - 1])) {
+                --to;
+            }
+            if (from == to) {
+                continue;
+            }
+            try {
+                results.add(_decoder.decode(buf, from, to - from));
+            } catch (IOException e) {
+                throw new IOException("Failed to decode line at offset "+(start + from)
+                        +": "+e.getMessage(), e);
+            }
+        }
+        return results;
+    }
+
+    private static boolean _isWhitespace(byte b) {
+        return (b == ' ') || (b == '\t') || (b == '\r') || (b == '\n');
+    }
+
+    private final class ChunkTask extends ForkJoinTask<List<T>>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final long _start;
+        private final int _length;
+
+        private List<T> _result;
+
+        ChunkTask(long start, int length) {
+            _start = start;
+            _length = length;
+        }
+
+        @Override
+        public List<T> getRawResult() {
+            return _result;
+        }
+
+        @Override
+        protected void setRawResult(List<T> value) {
+            _result = value;
+        }
+
+        @Override
+        protected boolean exec() {
+            // Closed while waiting (but not yet cancelled): channel can not be mapped
+            if (_closed) {
+                return true;
+            }
+            try {
+                _result = _decodeChunk(_start, _length);
+            } catch (IOException e) {
+                throw new UncheckedDecodeException(e);
+            } finally {
+                // For unordered delivery, tasks are queued on completion (or
+                // failure); consumer gets result (or exception) by joining
+                if (!_ordered && !_closed) {
+                    _completed.add(this);
+                }
+            }
+            return true;
+        }
+    }
+
+    private final static class UncheckedDecodeException extends RuntimeException
+    {
+        private static final long serialVersionUID = 1L;
+
+        UncheckedDecodeException(IOException e) {
+            super(e);
+        }
+
+        @Override
+        public synchronized IOException getCause() {
+            return (IOException) super.getCause();
+        }
+    }
+}
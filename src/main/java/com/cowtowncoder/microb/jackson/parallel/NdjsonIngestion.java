@@ -0,0 +1,163 @@
+package com.cowtowncoder.microb.jackson.parallel;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.cowtowncoder.microb.jackson.jsonnode.CustomJsonNodeReader;
+import com.cowtowncoder.microb.jackson.model.FriendsWithVectors;
+import com.cowtowncoder.microb.jackson.model.InputData;
+import com.cowtowncoder.microb.jackson.model.InputJson;
+
+/**
+ * Test for comparing reading of a newline-delimited JSON (NDJSON) file of
+ * {@link FriendsWithVectors} records using {@link NdjsonIngestPipeline}
+ * (with varying number of cores and chunk sizes, ordered and unordered
+ * result delivery).
+ * Records are bound either as POJOs or as {@link JsonNode}s (latter using
+ * {@link CustomJsonNodeReader}); see {@link NdjsonIngestionBaseline} for
+ * single-threaded reading with the same decoders.
+ *<p>
+ * Input file is generated during set up by repeating records of
+ * {@link InputJson#FRIENDS_WITH_VECTORS}, and removed on tear down.
+ *
+ * @author Tatu Saloranta
+ */
+@BenchmarkMode(Mode.Throughput)
+@State(Scope.Benchmark)
+//During dev, use lower; for real measurements, higher
+//@Fork(value = 1)
+@Fork(value = 3)
+@Measurement(iterations = 3, time = 3)
+@Warmup(iterations = 3, time = 1)
+public class NdjsonIngestion
+{
+    /**
+     * How records are bound (decoded from lines)
+     */
+    public enum BindAs {
+        POJO,
+        TREE;
+
+        NdjsonIngestPipeline.LineDecoder<?> decoder(ObjectMapper mapper) {
+            if (this == TREE) {
+                return NdjsonIngestPipeline.treeDecoder(mapper,
+                        CustomJsonNodeReader.VectorsAs.ARRAY_OF_FLOATS);
+            }
+            return NdjsonIngestPipeline.pojoDecoder(mapper.readerFor(FriendsWithVectors.class));
+        }
+    }
+
+    /**
+     * Number of times input records are repeated in generated file
+     */
+    private final static int COPIES = 100;
+
+    @Param({ "1", "2", "4", "8" })
+    public int cores;
+
+    @Param({ "64", "1024", "8192" })
+    public int chunkKB;
+
+    @Param
+    public BindAs bindAs;
+
+    private final ObjectMapper JSON_MAPPER = new JsonMapper();
+
+    private Path _file;
+
+    private ForkJoinPool _pool;
+
+    private NdjsonIngestPipeline.LineDecoder<?> _decoder;
+
+    /*
+    /**********************************************************************
+    /* Set up, tear down
+    /**********************************************************************
+     */
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        _file = writeInput(JSON_MAPPER);
+        _decoder = bindAs.decoder(JSON_MAPPER);
+        _pool = new ForkJoinPool(cores);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        _pool.shutdown();
+        Files.deleteIfExists(_file);
+    }
+
+    /*
+    /**********************************************************************
+    /* Test methods
+    /**********************************************************************
+     */
+
+    @Benchmark
+    public void pipelineOrdered(Blackhole bh) throws Exception {
+        bh.consume(_readAll(true, bh));
+    }
+
+    @Benchmark
+    public void pipelineUnordered(Blackhole bh) throws Exception {
+        bh.consume(_readAll(false, bh));
+    }
+
+    /*
+    /**********************************************************************
+    /* Helper methods
+    /**********************************************************************
+     */
+
+    /**
+     * Helper method for generating the input file (temporary file, to be
+     * deleted by caller).
+     */
+    static Path writeInput(ObjectMapper mapper) throws IOException {
+        final FriendsWithVectors[] records = InputData.get(InputJson.FRIENDS_WITH_VECTORS).deserialized();
+        final Path file = Files.createTempFile("friends-with-vectors", ".ndjson");
+        try (OutputStream out = Files.newOutputStream(file);
+                SequenceWriter w = mapper.writer()
+                    .withRootValueSeparator("\n")
+                    .writeValues(out)) {
+            for (int i = 0; i < COPIES; ++i) {
+                w.writeAll(records);
+            }
+        }
+        System.out.println();
+        System.out.println("------------------");
+        System.out.printf("NDJSON file: %d records, %d kB%n",
+                records.length * COPIES, Files.size(file) >> 10);
+        System.out.println("------------------");
+        return file;
+    }
+
+    private long _readAll(boolean ordered, Blackhole bh) throws IOException {
+        // Enough chunks in flight to keep all cores busy while consumer catches up
+        try (NdjsonIngestPipeline<?> pipeline = NdjsonIngestPipeline.open(_file, _decoder, _pool,
+                chunkKB << 10, cores * 2, ordered)) {
+            return pipeline.forEach(bh::consume);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options opt = new OptionsBuilder()
+                .include(NdjsonIngestion.class.getSimpleName()+"\\.")
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,154 @@
+package com.cowtowncoder.microb.jackson.parallel;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.cowtowncoder.microb.jackson.model.FriendsWithVectors;
+
+/**
+ * Single-threaded baselines for {@link NdjsonIngestion}: reads the same
+ * generated NDJSON file line by line, decoding each line with the same
+ * {@link NdjsonIngestPipeline.LineDecoder} the pipeline uses, so that
+ * results differ only by parallelism (and chunking); and, for comparison
+ * with the idiomatic way, as a sequence of root-level values with
+ * {@code ObjectReader.readValues()} ({@link MappingIterator}). Latter uses
+ * regular {@link JsonNode}s (instead of {@code CustomJsonNodeReader}) for trees.
+ * Separate from {@link NdjsonIngestion} since none of its {@code cores}
+ * or {@code chunkKB} parameters apply.
+ *
+ * @author Tatu Saloranta
+ */
+@BenchmarkMode(Mode.Throughput)
+@State(Scope.Benchmark)
+//During dev, use lower; for real measurements, higher
+//@Fork(value = 1)
+@Fork(value = 3)
+@Measurement(iterations = 3, time = 3)
+@Warmup(iterations = 3, time = 1)
+public class NdjsonIngestionBaseline
+{
+    private final static int READ_BUFFER_SIZE = 64 * 1024;
+
+    @Param
+    public NdjsonIngestion.BindAs bindAs;
+
+    private final ObjectMapper JSON_MAPPER = new JsonMapper();
+
+    private Path _file;
+
+    private NdjsonIngestPipeline.LineDecoder<?> _decoder;
+
+    private ObjectReader _iteratorReader;
+
+    private final byte[] _readBuffer = new byte[READ_BUFFER_SIZE];
+
+    // Current line; grown as needed, reused across lines
+    private byte[] _lineBuffer = new byte[16 * 1024];
+
+    /*
+    /**********************************************************************
+    /* Set up, tear down
+    /**********************************************************************
+     */
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        _file = NdjsonIngestion.writeInput(JSON_MAPPER);
+        _decoder = bindAs.decoder(JSON_MAPPER);
+        _iteratorReader = JSON_MAPPER.readerFor((bindAs == NdjsonIngestion.BindAs.TREE)
+                ? JsonNode.class : FriendsWithVectors.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(_file);
+    }
+
+    /*
+    /**********************************************************************
+    /* Test methods
+    /**********************************************************************
+     */
+
+    @Benchmark
+    public void singleThreadedLines(Blackhole bh) throws Exception {
+        bh.consume(_readAll(bh));
+    }
+
+    @Benchmark
+    public void mappingIterator(Blackhole bh) throws Exception {
+        long count = 0L;
+        try (MappingIterator<Object> it = _iteratorReader.readValues(_file.toFile())) {
+            while (it.hasNextValue()) {
+                bh.consume(it.nextValue());
+                ++count;
+            }
+        }
+        bh.consume(count);
+    }
+
+    /*
+    /**********************************************************************
+    /* Helper methods
+    /**********************************************************************
+     */
+
+    private long _readAll(Blackhole bh) throws IOException {
+        final byte[] buf = _readBuffer;
+        long count = 0L;
+        int lineLen = 0;
+        try (InputStream in = Files.newInputStream(_file)) {
+            int len;
+            while ((len = in.read(buf)) > 0) {
+                int start = 0;
+                for (int i = 0; i < len; ++i) {
+                    if (buf[i] == '\n') {
+                        lineLen = _appendToLine(lineLen, buf, start, i - start);
+                        if (lineLen > 0) {
+                            bh.consume(_decoder.decode(_lineBuffer, 0, lineLen));
+                            ++count;
+                        }
+                        lineLen = 0;
+                        start = i + 1;
+                    }
+                }
+                lineLen = _appendToLine(lineLen, buf, start, len - start);
+            }
+        }
+        // No trailing linefeed after the last line
+        if (lineLen > 0) {
+            bh.consume(_decoder.decode(_lineBuffer, 0, lineLen));
+            ++count;
+        }
+        return count;
+    }
+
+    private int _appendToLine(int lineLen, byte[] buf, int offset, int len) {
+        if (lineLen + len > _lineBuffer.length) {
+            _lineBuffer = Arrays.copyOf(_lineBuffer, Math.max(lineLen + len, _lineBuffer.length << 1));
+        }
+        System.arraycopy(buf, offset, _lineBuffer, lineLen, len);
+        return lineLen + len;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options opt = new OptionsBuilder()
+                .include(NdjsonIngestionBaseline.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,75 @@
+package com.cowtowncoder.microb.jackson.parallel;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.StreamReadFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.cowtowncoder.microb.jackson.model.HuggingFaceCohereScidocsQueries;
+import com.cowtowncoder.microb.jackson.model.InputData;
+import com.cowtowncoder.microb.jackson.model.InputJson;
+
+/**
+ * Test for parallel deserialization of {@link HuggingFaceCohereScidocsQueries}
+ * using {@link ParallelScidocsReader}, for different numbers of cores used;
+ * see {@link ParallelDocReadingBaseline} for single-threaded comparison.
+ *
+ * @author Tatu Saloranta
+ */
+@BenchmarkMode(Mode.Throughput)
+@State(Scope.Benchmark)
+//During dev, use lower; for real measurements, higher
+//@Fork(value = 1)
+@Fork(value = 3)
+@Measurement(iterations = 3, time = 3)
+@Warmup(iterations = 3, time = 1)
+public class ParallelDocReading
+{
+    @Param({ "1", "2", "4", "8" })
+    public int cores;
+
+    private final byte[] _serialized = InputData.get(InputJson.HUGGING_FACE_QUERIES).serialized();
+
+    private final ObjectMapper JSON_MAPPER;
+    {
+        JsonFactory f = JsonFactory.builder()
+                .enable(StreamReadFeature.USE_FAST_DOUBLE_PARSER)
+                .build();
+        JSON_MAPPER = new JsonMapper(f);
+    }
+
+    private ForkJoinPool _pool;
+
+    private ParallelScidocsReader _parallelReader;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        _pool = new ForkJoinPool(cores);
+        _parallelReader = new ParallelScidocsReader(JSON_MAPPER, _pool);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        _pool.shutdown();
+    }
+
+    @Benchmark
+    public void parallelRead(Blackhole bh) throws Exception {
+        bh.consume(_parallelReader.read(_serialized));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options opt = new OptionsBuilder()
+                // trailing dot to exclude `ParallelDocReadingBaseline`
+                .include(ParallelDocReading.class.getSimpleName()+"\\.")
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,71 @@
+package com.cowtowncoder.microb.jackson.parallel;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.StreamReadFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.cowtowncoder.microb.jackson.model.HuggingFaceCohereScidocsQueries;
+import com.cowtowncoder.microb.jackson.model.InputData;
+import com.cowtowncoder.microb.jackson.model.InputJson;
+
+/**
+ * Single-threaded baseline for {@link ParallelDocReading}: regular
+ * deserialization of {@link HuggingFaceCohereScidocsQueries}, as well as
+ * structural pass of {@link ParallelScidocsReader} alone (to see its share
+ * of total). Separate from {@link ParallelDocReading} since its
+ * {@code cores} parameter does not apply.
+ *
+ * @author Tatu Saloranta
+ */
+@BenchmarkMode(Mode.Throughput)
+@State(Scope.Benchmark)
+//During dev, use lower; for real measurements, higher
+//@Fork(value = 1)
+@Fork(value = 3)
+@Measurement(iterations = 3, time = 3)
+@Warmup(iterations = 3, time = 1)
+public class ParallelDocReadingBaseline
+{
+    private final byte[] _serialized = InputData.get(InputJson.HUGGING_FACE_QUERIES).serialized();
+
+    private final ObjectMapper JSON_MAPPER;
+    {
+        JsonFactory f = JsonFactory.builder()
+                .enable(StreamReadFeature.USE_FAST_DOUBLE_PARSER)
+                .build();
+        JSON_MAPPER = new JsonMapper(f);
+    }
+
+    @Benchmark
+    public void singleThreadedRead(Blackhole bh) throws Exception {
+        bh.consume(JSON_MAPPER.readValue(_serialized, HuggingFaceCohereScidocsQueries.class));
+    }
+
+    @Benchmark
+    public void findBoundaries(Blackhole bh) throws Exception {
+        bh.consume(ParallelScidocsReader.findElementBoundaries(_serialized,
+                _indexOfDataArray(_serialized)));
+    }
+
+    private static int _indexOfDataArray(byte[] doc) {
+        for (int i = 0; i < doc.length; ++i) {
+            if (doc[i] == '[') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options opt = new OptionsBuilder()
+                .include(ParallelDocReadingBaseline.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,297 @@
+package com.cowtowncoder.microb.jackson.parallel;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.cowtowncoder.microb.jackson.model.HuggingFaceCohereScidocsQueries;
+
+/**
+ * Reader that deserializes {@link HuggingFaceCohereScidocsQueries} documents
+ * using multiple threads: first a fast structural pass over the top-level
+ * {@code data} array finds boundaries of its elements (without tokenizing
+ * them), and then element slices are bound into
+ * {@link HuggingFaceCohereScidocsQueries.Data} objects in parallel on given
+ * {@link ForkJoinPool}; results are assembled in document order.
+ *<p>
+ * Only handles UTF-8 encoded input as {@code byte[]}; top-level properties
+ * other than {@code data} are skipped.
+ */
+public class ParallelScidocsReader
+{
+    private final static String PROP_DATA = "data";
+
+    /**
+     * Minimum number of elements to bind in a single task
+     */
+    private final static int MIN_ELEMENTS_PER_TASK = 4;
+
+    private final ObjectMapper _mapper;
+
+    private final ObjectReader _elementReader;
+
+    private final ForkJoinPool _pool;
+
+    public ParallelScidocsReader(ObjectMapper mapper, ForkJoinPool pool) {
+        _mapper = mapper;
+        // Slices must contain exactly one value: anything after it is an error
+        _elementReader = mapper.readerFor(HuggingFaceCohereScidocsQueries.Data.class)
+                .with(DeserializationFeature.FAIL_ON_TRAILING_TOKENS);
+        _pool = pool;
+    }
+
+    public HuggingFaceCohereScidocsQueries read(byte[] doc) throws IOException
+    {
+        HuggingFaceCohereScidocsQueries result = new HuggingFaceCohereScidocsQueries();
+        final int arrayStart = _findDataArray(doc);
+        if (arrayStart < 0) {
+            return result;
+        }
+        final int[] bounds = findElementBoundaries(doc, arrayStart);
+        final int count = bounds.length >> 1;
+        final HuggingFaceCohereScidocsQueries.Data[] elements = new HuggingFaceCohereScidocsQueries.Data[count];
+        final int perTask = Math.max(MIN_ELEMENTS_PER_TASK,
+                count / (_pool.getParallelism() * 4));
+        try {
+            _pool.invoke(new BindTask(doc, bounds, elements, 0, count, perTask));
+        } catch (UncheckedBindException e) {
+            throw e.getCause();
+        }
+        result.data = new ArrayList<>(Arrays.asList(elements));
+        return result;
+    }
+
+    /*
+    /**********************************************************************
+    /* Structural scanning
+    /**********************************************************************
+     */
+
+    // Uses regular parser to locate `data` Array: this is cheap as long
+    // as it comes first (or other properties are small)
+    private int _findDataArray(byte[] doc) throws IOException
+    {
+        try (JsonParser p = _mapper.createParser(doc)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(p, "Expected START_OBJECT, got: "+p.currentToken());
+            }
+            String name;
+            while ((name = p.nextFieldName()) != null) {
+                JsonToken t = p.nextToken();
+                if (PROP_DATA.equals(name)) {
+                    if (t == JsonToken.VALUE_NULL) {
+                        return -1;
+                    }
+                    if (t != JsonToken.START_ARRAY) {
+                        throw new JsonParseException(p, "Expected START_ARRAY for \"data\", got: "+t);
+                    }
+                    return (int) p.currentTokenLocation().getByteOffset();
+                }
+                p.skipChildren();
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Method that finds boundaries of elements of JSON Array that starts at
+     * given offset, by tracking nesting and String values. Structure is only
+     * validated to the degree needed to find boundaries reliably (unbalanced
+     * closing brackets, missing commas between elements); element content
+     * is validated when bound.
+     *
+     * @param doc Document that contains JSON Array
+     * @param arrayStart Offset of the opening {@code [}
+     *
+     * @return Array of element boundaries: start (inclusive) and end (exclusive)
+     *    offset for each element
+     */
+    public static int[] findElementBoundaries(byte[] doc, int arrayStart) throws IOException
+    {
+        int[] bounds = new int[64];
+        int count = 0;
+        int depth = 0;
+        int elementStart = -1;
+        // whether value of the current element (at depth 0) is complete
+        boolean elementDone = false;
+        final int end = doc.length;
+
+        for (int i = arrayStart + 1; i < end; ++i) {
+            final byte b = doc[i];
+            switch (b) {
+            case ' ': case '\t': case '\r': case '\n':
+                if (depth == 0 && elementStart >= 0) {
+                    elementDone = true;
+                }
+                continue;
+            case '"':
+                if (depth == 0) {
+                    elementStart = _startElement(elementStart, i);
+                    elementDone = true;
+                }
+                i = _skipString(doc, i + 1);
+                continue;
+            case '{': case '[':
+                if (depth == 0) {
+                    elementStart = _startElement(elementStart, i);
+                }
+                ++depth;
+                continue;
+            case '}':
+                if (depth == 0) {
+                    throw new IOException("Unexpected '}' at offset "+i+": no open Object");
+                }
+                if (--depth == 0) {
+                    elementDone = true;
+                }
+                continue;
+            case ']':
+                if (depth == 0) {
+                    if (elementStart >= 0) {
+                        bounds = _addBounds(bounds, count++, elementStart, _trimEnd(doc, i));
+                    }
+                    return Arrays.copyOf(bounds, count << 1);
+                }
+                if (--depth == 0) {
+                    elementDone = true;
+                }
+                continue;
+            case ',':
+                if (depth == 0) {
+                    if (elementStart < 0) {
+                        throw new IOException("Unexpected comma at offset "+i+": missing element");
+                    }
+                    bounds = _addBounds(bounds, count++, elementStart, _trimEnd(doc, i));
+                    elementStart = -1;
+                    elementDone = false;
+                }
+                continue;
+            default: // part of a scalar value
+                if (depth == 0) {
+                    if (elementDone) {
+                        throw new IOException("Unexpected character at offset "+i
+                                +": missing comma between Array elements");
+                    }
+                    if (elementStart < 0) {
+                        elementStart = i;
+                    }
+                }
+            }
+        }
+        throw new IOException("Unexpected end-of-input: JSON Array starting at "+arrayStart+" not closed");
+    }
+
+    // Called for the first character of a String, Object or Array at depth 0:
+    // must not follow another value without a comma in between
+    private static int _startElement(int elementStart, int i) throws IOException {
+        if (elementStart >= 0) {
+            throw new IOException("Unexpected character at offset "+i
+                    +": missing comma between Array elements");
+        }
+        return i;
+    }
+
+    // @return Offset of the closing quote
+    private static int _skipString(byte[] doc, int i) throws IOException {
+        final int end = doc.length;
+        for (; i < end; ++i) {
+            final byte b = doc[i];
+            if (b == '"') {
+                return i;
+            }
+            if (b == '\\') {
+                ++i;
+            }
+        }
+        throw new IOException("Unexpected end-of-input in String value");
+    }
+
+    private static int _trimEnd(byte[] doc, int end) {
+        while (end > 0) {
+            final byte b = doc[end - 1];
+            if (b != ' ' && b != '\t' && b != '\r' && b != '\n') {
+                break;
+            }
+            --end;
+        }
+        return end;
+    }
+
+    private static int[] _addBounds(int[] bounds, int index, int start, int end) {
+        int ix = index << 1;
+        if (ix + 1 >= bounds.length) {
+            bounds = Arrays.copyOf(bounds, bounds.length << 1);
+        }
+        bounds[ix] = start;
+        bounds[ix + 1] = end;
+        return bounds;
+    }
+
+    /*
+    /**********************************************************************
+    /* Parallel binding
+    /**********************************************************************
+     */
+
+    private final class BindTask extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final byte[] _doc;
+        private final int[] _bounds;
+        private final HuggingFaceCohereScidocsQueries.Data[] _results;
+        private final int _from, _to;
+        private final int _perTask;
+
+        BindTask(byte[] doc, int[] bounds, HuggingFaceCohereScidocsQueries.Data[] results,
+                int from, int to, int perTask) {
+            _doc = doc;
+            _bounds = bounds;
+            _results = results;
+            _from = from;
+            _to = to;
+            _perTask = perTask;
+        }
+
+        @Override
+        protected void compute() {
+            if ((_to - _from) > _perTask) {
+                final int mid = (_from + _to) >>> 1;
+                invokeAll(new BindTask(_doc, _bounds, _results, _from, mid, _perTask),
+                        new BindTask(_doc, _bounds, _results, mid, _to, _perTask));
+                return;
+            }
+            try {
+                for (int i = _from; i < _to; ++i) {
+                    final int start = _bounds[i << 1];
+                    final int end = _bounds[(i << 1) + 1];
+                    _results[i] = _elementReader.readValue(_doc, start, end - start);
+                }
+            } catch (IOException e) {
+                throw new UncheckedBindException(e);
+            }
+        }
+    }
+
+    private final static class UncheckedBindException extends RuntimeException
+    {
+        private static final long serialVersionUID = 1L;
+
+        UncheckedBindException(IOException e) {
+            super(e);
+        }
+
+        @Override
+        public synchronized IOException getCause() {
+            return (IOException) super.getCause();
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.cowtowncoder.microb.jackson.pools;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.StreamReadFeature;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import com.fasterxml.jackson.core.util.BufferRecycler;
+import com.fasterxml.jackson.core.util.JsonRecyclerPools;
+import com.fasterxml.jackson.core.util.RecyclerPool;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.cowtowncoder.microb.jackson.jsonnode.CustomJsonNodeReader;
+import com.cowtowncoder.microb.jackson.model.HuggingFaceCohereScidocsQueries;
+import com.cowtowncoder.microb.jackson.model.InputData;
+import com.cowtowncoder.microb.jackson.model.InputJson;
+import com.cowtowncoder.microb.util.NopOutputStream;
+
+/**
+ * Test for comparing {@link RecyclerPool} implementations (for
+ * {@link BufferRecycler}s) used by {@link JsonFactory}: thread-local
+ * (default), lock-free, concurrent-deque, bounded and non-recycling
+ * (baseline). Runs workloads of
+ * {@link com.cowtowncoder.microb.jackson.vectors.VectorHeavyReadWrite}
+ * (POJO read/write, vectors as JSON Arrays) and
+ * {@link com.cowtowncoder.microb.jackson.jsonnode.JsonNodeReading}
+ * (default and custom {@code JsonNode} reading).
+ *<p>
+ * As with {@link com.cowtowncoder.microb.jackson.vectors.VectorHeavyThreadScaling},
+ * {@link #main} runs the suite with 1, 2, 4, ... up to N (platform) threads;
+ * it also enables GC profiler to report allocation rate
+ * ({@code gc.alloc.rate.norm}).
+ *
+ * @author Tatu Saloranta
+ */
+@BenchmarkMode(Mode.Throughput)
+@State(Scope.Benchmark)
+//During dev, use lower; for real measurements, higher
+//@Fork(value = 1)
+@Fork(value = 3)
+@Measurement(iterations = 3, time = 3)
+@Warmup(iterations = 3, time = 1)
+public class RecyclerPoolScaling
+{
+    /**
+     * Recycler pool implementations to compare. Lock-free, concurrent-deque
+     * and bounded pools are created as new instances for each {@link JsonFactory};
+     * thread-local and non-recycling ones are shared global instances
+     * (thread-local pool has no per-pool state; recyclers are per-thread).
+     */
+    public enum PoolType {
+        THREAD_LOCAL {
+            @Override
+            public RecyclerPool<BufferRecycler> create() {
+                return JsonRecyclerPools.threadLocalPool();
+            }
+        },
+        LOCK_FREE {
+            // Deprecated in 2.18 (due to issues under heavy contention) but
+            // still included for comparison
+            @SuppressWarnings("deprecation")
+            @Override
+            public RecyclerPool<BufferRecycler> create() {
+                return JsonRecyclerPools.newLockFreePool();
+            }
+        },
+        CONCURRENT_DEQUE {
+            @Override
+            public RecyclerPool<BufferRecycler> create() {
+                return JsonRecyclerPools.newConcurrentDequePool();
+            }
+        },
+        BOUNDED {
+            @Override
+            public RecyclerPool<BufferRecycler> create() {
+                return JsonRecyclerPools.newBoundedPool(Runtime.getRuntime().availableProcessors());
+            }
+        },
+        NON_RECYCLING {
+            @Override
+            public RecyclerPool<BufferRecycler> create() {
+                return JsonRecyclerPools.nonRecyclingPool();
+            }
+        };
+
+        public abstract RecyclerPool<BufferRecycler> create();
+    }
+
+    @Param({ "THREAD_LOCAL", "LOCK_FREE", "CONCURRENT_DEQUE", "BOUNDED", "NON_RECYCLING" })
+    public PoolType pool;
+
+    private byte[] _vectorInput;
+    private HuggingFaceCohereScidocsQueries _vectorDoc;
+
+    private byte[] _nodeInput;
+
+    // Same configuration as `VectorHeavyReadWrite.JSON_MAPPER_VANILLA`
+    // (except for pool)
+    private ObjectMapper _vectorMapper;
+
+    // Same configuration as `JsonNodeReading.JSON_MAPPER` (except for pool)
+    private ObjectMapper _nodeMapper;
+
+    /*
+    /**********************************************************************
+    /* Set up
+    /**********************************************************************
+     */
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final InputData vectorData = InputData.get(InputJson.HUGGING_FACE_QUERIES);
+        _vectorInput = vectorData.serialized();
+        _vectorDoc = vectorData.deserialized();
+        _nodeInput = InputData.get(InputJson.FRIENDS_WITH_VECTORS).serialized();
+
+        _vectorMapper = new JsonMapper(JsonFactory.builder()
+                .recyclerPool(pool.create())
+                .build());
+        _nodeMapper = JsonMapper.builder(JsonFactory.builder()
+                .recyclerPool(pool.create())
+                .enable(StreamReadFeature.STRICT_DUPLICATE_DETECTION)
+                .enable(StreamReadFeature.USE_FAST_BIG_NUMBER_PARSER)
+                .enable(StreamReadFeature.USE_FAST_DOUBLE_PARSER)
+                .enable(StreamWriteFeature.USE_FAST_DOUBLE_WRITER)
+                .build())
+            .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)
+            .build();
+    }
+
+    /*
+    /**********************************************************************
+    /* Test methods
+    /**********************************************************************
+     */
+
+    @Benchmark
+    public void vectorRead(Blackhole bh) throws Exception {
+        bh.consume(_vectorMapper.readValue(_vectorInput, HuggingFaceCohereScidocsQueries.class));
+    }
+
+    @Benchmark
+    public void vectorWrite(Blackhole bh) throws Exception {
+        try (NopOutputStream out = new NopOutputStream()) {
+            _vectorMapper.writeValue(out, _vectorDoc);
+            bh.consume(out.size());
+        }
+    }
+
+    @Benchmark
+    public void nodeReadDefault(Blackhole bh) throws Exception {
+        bh.consume(_nodeMapper.readTree(new ByteArrayInputStream(_nodeInput)));
+    }
+
+    @Benchmark
+    public void nodeReadOptimized(Blackhole bh) throws Exception {
+        bh.consume(_readCustom(CustomJsonNodeReader.VectorsAs.ARRAY_OF_FLOATS));
+    }
+
+    /*
+    /**********************************************************************
+    /* Helper methods
+    /**********************************************************************
+     */
+
+    private JsonNode _readCustom(CustomJsonNodeReader.VectorsAs vectorsAs) throws IOException {
+        try (JsonParser p = _nodeMapper.createParser(new ByteArrayInputStream(_nodeInput))) {
+            return new CustomJsonNodeReader(_nodeMapper, p, vectorsAs).readTree();
+        }
+    }
+
+    /*
+    /**********************************************************************
+    /* Entry point
+    /**********************************************************************
+     */
+
+    public static void main(String[] args) throws Exception {
+        final int maxThreads = (args.length > 0) ? Integer.parseInt(args[0])
+                : Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; ; threads <<= 1) {
+            threads = Math.min(threads, maxThreads);
+            Options opt = new OptionsBuilder()
+                    .include(RecyclerPoolScaling.class.getSimpleName())
+                    .threads(threads)
+                    // to get allocation rate (bytes/op) as well
+                    .addProfiler(GCProfiler.class)
+                    .build();
+            new Runner(opt).run();
+            if (threads >= maxThreads) {
+                break;
+            }
+        }
+    }
+}
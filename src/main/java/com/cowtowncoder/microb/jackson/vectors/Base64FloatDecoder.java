@@ -0,0 +1,86 @@
+package com.cowtowncoder.microb.jackson.vectors;
+
+import java.nio.ByteOrder;
+
+import com.fasterxml.jackson.core.Base64Variant;
+
+/**
+ * Helper class for decoding Base64-encoded packed floats directly from
+ * parser text buffer into {@code float[]}, without intermediate {@code byte[]}.
+ *<p>
+ * Only handles "clean" content: anything unusual (white space, unexpected
+ * padding, invalid characters) results in {@code null} return value, and
+ * caller is expected to fall back to regular Jackson Base64 decoding
+ * (which can then report problems as appropriate).
+ */
+final class Base64FloatDecoder
+{
+    private Base64FloatDecoder() { }
+
+    /**
+     * @return Number of bytes given Base64 content would decode to, if simple
+     *    enough for us to decode; {@code -1} if not.
+     */
+    public static int decodedLength(Base64Variant variant, char[] ch, int offset, int len)
+    {
+        int pad = 0;
+        final char padChar = variant.getPaddingChar();
+        while (pad < 2 && len > pad && ch[offset + len - 1 - pad] == padChar) {
+            ++pad;
+        }
+        if (pad > 0) {
+            if (!variant.acceptsPaddingOnRead() || (len & 3) != 0) {
+                return -1;
+            }
+        } else if ((len & 3) != 0 && variant.requiresPaddingOnRead()) {
+            return -1;
+        }
+        final int dataLen = len - pad;
+        final int rem = dataLen & 3;
+        if (rem == 1) {
+            return -1;
+        }
+        return ((dataLen >> 2) * 3) + ((rem == 0) ? 0 : (rem - 1));
+    }
+
+    /**
+     * @param dst Array to decode floats in: length must match {@code decodedLength() / 4}
+     * @param order Byte order of packed floats
+     *
+     * @return {@code true} if decoding succeeded; {@code false} if content contained
+     *    characters not valid for the variant
+     */
+    public static boolean decode(Base64Variant variant, char[] ch, int offset, int len,
+            float[] dst, ByteOrder order)
+    {
+        final boolean swap = (order != ByteOrder.BIG_ENDIAN);
+        final int end = offset + len;
+        int acc = 0; // assembled float bits
+        int accBytes = 0;
+        int out = 0;
+        int bits = 0; // pending decoded bits (up to 24)
+        int bitCount = 0;
+
+        for (int i = offset; i < end; ++i) {
+            final int c = ch[i];
+            if (c == variant.getPaddingChar()) {
+                break;
+            }
+            final int sextet = variant.decodeBase64Char(c);
+            if (sextet < 0) {
+                return false;
+            }
+            bits = (bits << 6) | sextet;
+            bitCount += 6;
+            if (bitCount >= 8) {
+                bitCount -= 8;
+                acc = (acc << 8) | ((bits >> bitCount) & 0xFF);
+                if (++accBytes == 4) {
+                    dst[out++] = Float.intBitsToFloat(swap ? Integer.reverseBytes(acc) : acc);
+                    accBytes = 0;
+                }
+            }
+        }
+        return (out == dst.length) && (accBytes == 0);
+    }
+}
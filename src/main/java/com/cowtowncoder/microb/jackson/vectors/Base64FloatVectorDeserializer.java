@@ -1,7 +1,11 @@
 package com.cowtowncoder.microb.jackson.vectors;
 
 import java.io.IOException;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Objects;
 
+import com.fasterxml.jackson.core.Base64Variant;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
@@ -11,8 +15,68 @@ public class Base64FloatVectorDeserializer extends StdScalarDeserializer<float[]
 {
     private static final long serialVersionUID = 1L;
 
+    /**
+     * Key for per-call attribute used to hold reusable buffer for reading
+     * vectors expressed as regular JSON Arrays.
+     */
+    private final static String ATTR_ARRAY_BUFFER = "Base64FloatVectorDeserializer.arrayBuffer";
+
+    private final static int INITIAL_ARRAY_BUFFER_LEN = 1024;
+
+    /**
+     * Implementation to use for unpacking floats
+     */
+    protected final FloatPacking _packing;
+
+    /**
+     * Byte order of packed floats
+     */
+    protected final ByteOrder _byteOrder;
+
+    /**
+     * Whether to decode Base64 text directly into {@code float[]}
+     * (instead of first decoding into {@code byte[]} and then unpacking)
+     */
+    protected final boolean _decodeDirect;
+
     public Base64FloatVectorDeserializer() {
-          super(float[].class);
+        this(false);
+    }
+
+    /**
+     * @param useSimd Whether to use Vector API for unpacking, if available
+     *    (if not, will quietly fall back to scalar implementation)
+     */
+    public Base64FloatVectorDeserializer(boolean useSimd) {
+        this(useSimd, false);
+    }
+
+    /**
+     * @param useSimd Whether to use Vector API for unpacking, if available
+     *    (if not, will quietly fall back to scalar implementation)
+     * @param decodeDirect Whether to decode textual Base64 content directly into
+     *    {@code float[]}, avoiding intermediate {@code byte[]}
+     *    (if enabled, {@code useSimd} only affects non-textual binary content)
+     */
+    public Base64FloatVectorDeserializer(boolean useSimd, boolean decodeDirect) {
+        this(useSimd ? FloatPacking.SIMD : FloatPacking.SHIFTS, ByteOrder.BIG_ENDIAN,
+                decodeDirect);
+    }
+
+    /**
+     * @param packing Implementation to use for unpacking ({@link FloatPacking#SIMD}
+     *    quietly falls back to scalar implementation if Vector API not available)
+     * @param byteOrder Byte order of packed floats
+     * @param decodeDirect Whether to decode textual Base64 content directly into
+     *    {@code float[]}, avoiding intermediate {@code byte[]}
+     *    (if enabled, {@code packing} only affects non-textual binary content)
+     */
+    public Base64FloatVectorDeserializer(FloatPacking packing, ByteOrder byteOrder,
+            boolean decodeDirect) {
+        super(float[].class);
+        _packing = packing.orFallback();
+        _byteOrder = Objects.requireNonNull(byteOrder);
+        _decodeDirect = decodeDirect;
     }
 
     @Override
@@ -27,13 +91,64 @@ public class Base64FloatVectorDeserializer extends StdScalarDeserializer<float[]
                 return (float[]) emb;
             }
         } else if (t == JsonToken.VALUE_STRING) {
+            if (_decodeDirect) {
+                return _decodeDirect(p, ctxt);
+            }
             return unpack(ctxt, p.getBinaryValue());
         } else if (t == JsonToken.START_ARRAY) {
-             // !!! TODO: regular Array
+            return _readArray(p, ctxt);
         }
         return (float[]) ctxt.handleUnexpectedToken(_valueClass, p);
     }
 
+    private float[] _decodeDirect(JsonParser p, DeserializationContext ctxt) throws IOException
+    {
+        final Base64Variant variant = ctxt.getBase64Variant();
+        // Usually no allocation, as text is accessed in parser's TextBuffer; but
+        // long values that span multiple segments get aggregated into a new char[]
+        final char[] ch = p.getTextCharacters();
+        final int offset = p.getTextOffset();
+        final int len = p.getTextLength();
+        final int bytesLen = Base64FloatDecoder.decodedLength(variant, ch, offset, len);
+
+        if (bytesLen >= 0) {
+            if ((bytesLen & 3) != 0) {
+                return (float[]) ctxt.reportInputMismatch(_valueClass,
+                        "Vector length (%d) not a multiple of 4 bytes", bytesLen);
+            }
+            final float[] floats = new float[bytesLen >> 2];
+            if (Base64FloatDecoder.decode(variant, ch, offset, len, floats, _byteOrder)) {
+                return floats;
+            }
+        }
+        // Something unusual: let Jackson handle decoding (and error reporting)
+        return unpack(ctxt, p.getBinaryValue(variant));
+    }
+
+    // Regular JSON Array of numbers: read into buffer reused across all vectors
+    // of a single read call, then trim
+    private float[] _readArray(JsonParser p, DeserializationContext ctxt) throws IOException
+    {
+        float[] buffer = (float[]) ctxt.getAttribute(ATTR_ARRAY_BUFFER);
+        if (buffer == null) {
+            buffer = new float[INITIAL_ARRAY_BUFFER_LEN];
+        }
+        int ix = 0;
+        JsonToken t;
+        while ((t = p.nextToken()) != JsonToken.END_ARRAY) {
+            if (t != JsonToken.VALUE_NUMBER_FLOAT && t != JsonToken.VALUE_NUMBER_INT) {
+                return (float[]) ctxt.handleUnexpectedToken(_valueClass, t, p,
+                        "Invalid content in vector Array: expected JSON Number, got: %s", t);
+            }
+            if (ix >= buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length << 1);
+            }
+            buffer[ix++] = p.getFloatValue();
+        }
+        ctxt.setAttribute(ATTR_ARRAY_BUFFER, buffer);
+        return Arrays.copyOf(buffer, ix);
+    }
+
     private final float[] unpack(DeserializationContext ctxt, byte[] bytes) throws IOException {
         final int bytesLen = bytes.length;
         if ((bytesLen & 3) != 0) {
@@ -42,13 +157,7 @@ public class Base64FloatVectorDeserializer extends StdScalarDeserializer<float[]
         }
         final int vectorLen = bytesLen >> 2;
         final float[] floats = new float[vectorLen];
-        for (int in = 0, out = 0; in < bytesLen; ) {
-            int packed = (bytes[in++] << 24)
-                    | ((bytes[in++] & 0xFF) << 16)
-                    | ((bytes[in++] & 0xFF) << 8)
-                    | (bytes[in++] & 0xFF);
-            floats[out++] = Float.intBitsToFloat(packed);
-        }
+        _packing.unpack(bytes, floats, _byteOrder);
         return floats;
     }
 }
@@ -1,6 +1,8 @@
 package com.cowtowncoder.microb.jackson.vectors;
 
 import java.io.IOException;
+import java.nio.ByteOrder;
+import java.util.Objects;
 
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.SerializerProvider;
@@ -10,25 +12,110 @@ public class Base64FloatVectorSerializer extends StdScalarSerializer<float[]>
 {
     private static final long serialVersionUID = 1L;
 
+    /**
+     * Enumeration of ways packed bytes are passed to {@link JsonGenerator}.
+     */
+    public enum OutputMode {
+        /**
+         * Default handling: allocate a new {@code byte[]} for each vector
+         */
+        NEW_BUFFER,
+
+        /**
+         * Reuse scratch {@code byte[]} across all vectors of a single
+         * serialization call (stored as per-call attribute)
+         */
+        REUSED_BUFFER,
+
+        /**
+         * Stream floats via {@link JsonGenerator#writeBinary(java.io.InputStream, int)}
+         * using generator's own (recycled) encoding buffer. Ignores packing implementation.
+         */
+        STREAMED
+    }
+
+    /**
+     * Key for per-call attribute used to hold reusable buffer for packing
+     */
+    private final static String ATTR_PACK_BUFFER = "Base64FloatVectorSerializer.packBuffer";
+
+    /**
+     * Implementation to use for packing floats
+     */
+    protected final FloatPacking _packing;
+
+    /**
+     * Byte order of packed floats
+     */
+    protected final ByteOrder _byteOrder;
+
+    protected final OutputMode _outputMode;
+
     protected Base64FloatVectorSerializer() {
+        this(false);
+    }
+
+    /**
+     * @param useSimd Whether to use Vector API for packing, if available
+     *    (if not, will quietly fall back to scalar implementation)
+     */
+    public Base64FloatVectorSerializer(boolean useSimd) {
+        this(useSimd, OutputMode.NEW_BUFFER);
+    }
+
+    /**
+     * @param useSimd Whether to use Vector API for packing, if available
+     *    (if not, will quietly fall back to scalar implementation)
+     * @param outputMode How to pass packed bytes to generator
+     */
+    public Base64FloatVectorSerializer(boolean useSimd, OutputMode outputMode) {
+        this(useSimd ? FloatPacking.SIMD : FloatPacking.SHIFTS, ByteOrder.BIG_ENDIAN,
+                outputMode);
+    }
+
+    /**
+     * @param packing Implementation to use for packing ({@link FloatPacking#SIMD}
+     *    quietly falls back to scalar implementation if Vector API not available)
+     * @param byteOrder Byte order of packed floats
+     * @param outputMode How to pass packed bytes to generator
+     */
+    public Base64FloatVectorSerializer(FloatPacking packing, ByteOrder byteOrder,
+            OutputMode outputMode) {
         super(float[].class);
+        _packing = packing.orFallback();
+        _byteOrder = Objects.requireNonNull(byteOrder);
+        _outputMode = Objects.requireNonNull(outputMode);
     }
 
     @Override
     public void serialize(float[] value, JsonGenerator gen, SerializerProvider provider) throws IOException
     {
-        // First: "pack" the floats into bytes
-        final int vectorLen = value.length;
-        final byte[] b = new byte[vectorLen << 2];
-        for (int i = 0, out = 0; i < vectorLen; i++) {
-            final int floatBits = Float.floatToIntBits(value[i]);
-            b[out++] = (byte) (floatBits >> 24);
-            b[out++] = (byte) (floatBits >> 16);
-            b[out++] = (byte) (floatBits >> 8);
-            b[out++] = (byte) (floatBits);
-        }
+        final int bytesLen = value.length << 2;
+        switch (_outputMode) {
+        case STREAMED:
+            gen.writeBinary(new FloatArrayInputStream(value, _byteOrder), bytesLen);
+            return;
+        case REUSED_BUFFER:
+            {
+                byte[] b = (byte[]) provider.getAttribute(ATTR_PACK_BUFFER);
+                if (b == null || b.length < bytesLen) {
+                    b = new byte[bytesLen];
+                    provider.setAttribute(ATTR_PACK_BUFFER, b);
+                }
+                _packing.pack(value, b, _byteOrder);
+                gen.writeBinary(b, 0, bytesLen);
+            }
+            return;
+        case NEW_BUFFER:
+        default:
+            {
+                // First: "pack" the floats into bytes
+                final byte[] b = new byte[bytesLen];
+                _packing.pack(value, b, _byteOrder);
 
-        // Second: write packed bytes (for JSON, Base64 encoded)
-        gen.writeBinary(b);
+                // Second: write packed bytes (for JSON, Base64 encoded)
+                gen.writeBinary(b);
+            }
+        }
     }
 }
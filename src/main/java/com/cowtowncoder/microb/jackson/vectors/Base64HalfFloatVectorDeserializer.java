@@ -0,0 +1,58 @@
+package com.cowtowncoder.microb.jackson.vectors;
+
+import java.io.IOException;
+import java.util.Objects;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+
+/**
+ * Counterpart to {@link Base64HalfFloatVectorSerializer}: unpacks 16-bit
+ * values (see {@link HalfFloatFormat}) into {@code float[]}.
+ */
+public class Base64HalfFloatVectorDeserializer extends StdScalarDeserializer<float[]>
+{
+    private static final long serialVersionUID = 1L;
+
+    protected final HalfFloatFormat _format;
+
+    public Base64HalfFloatVectorDeserializer(HalfFloatFormat format) {
+        super(float[].class);
+        _format = Objects.requireNonNull(format);
+    }
+
+    @Override
+    public float[] deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        final JsonToken t = p.currentToken();
+
+        if (t == JsonToken.VALUE_EMBEDDED_OBJECT) {
+            Object emb = p.getEmbeddedObject();
+            if (emb instanceof byte[]) {
+                return unpack(ctxt, (byte[]) emb);
+            } else if (emb instanceof float[]) {
+                return (float[]) emb;
+            }
+        } else if (t == JsonToken.VALUE_STRING) {
+            return unpack(ctxt, p.getBinaryValue());
+        }
+        return (float[]) ctxt.handleUnexpectedToken(_valueClass, p);
+    }
+
+    private final float[] unpack(DeserializationContext ctxt, byte[] bytes) throws IOException {
+        final int bytesLen = bytes.length;
+        if ((bytesLen & 1) != 0) {
+            return (float[]) ctxt.reportInputMismatch(_valueClass,
+                    "Vector length (%d) not a multiple of 2 bytes", bytesLen);
+        }
+        final HalfFloatFormat format = _format;
+        final float[] floats = new float[bytesLen >> 1];
+        for (int in = 0, out = 0; in < bytesLen; ) {
+            int halfBits = ((bytes[in++] & 0xFF) << 8)
+                    | (bytes[in++] & 0xFF);
+            floats[out++] = format.fromBits(halfBits);
+        }
+        return floats;
+    }
+}
@@ -0,0 +1,39 @@
+package com.cowtowncoder.microb.jackson.vectors;
+
+import java.io.IOException;
+import java.util.Objects;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdScalarSerializer;
+
+/**
+ * Lossy alternative to {@link Base64FloatVectorSerializer} that packs
+ * each {@code float} as a 16-bit value (see {@link HalfFloatFormat}),
+ * halving the size of binary payload.
+ */
+public class Base64HalfFloatVectorSerializer extends StdScalarSerializer<float[]>
+{
+    private static final long serialVersionUID = 1L;
+
+    protected final HalfFloatFormat _format;
+
+    public Base64HalfFloatVectorSerializer(HalfFloatFormat format) {
+        super(float[].class);
+        _format = Objects.requireNonNull(format);
+    }
+
+    @Override
+    public void serialize(float[] value, JsonGenerator gen, SerializerProvider provider) throws IOException
+    {
+        final HalfFloatFormat format = _format;
+        final int vectorLen = value.length;
+        final byte[] b = new byte[vectorLen << 1];
+        for (int i = 0, out = 0; i < vectorLen; i++) {
+            final int halfBits = format.toBits(value[i]);
+            b[out++] = (byte) (halfBits >> 8);
+            b[out++] = (byte) halfBits;
+        }
+        gen.writeBinary(b);
+    }
+}
@@ -0,0 +1,61 @@
+package com.cowtowncoder.microb.jackson.vectors;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+
+/**
+ * Counterpart to {@link Base64Int8VectorSerializer}: reconstructs
+ * {@code float[]} from quantization header and 8-bit codes.
+ */
+public class Base64Int8VectorDeserializer extends StdScalarDeserializer<float[]>
+{
+    private static final long serialVersionUID = 1L;
+
+    public Base64Int8VectorDeserializer() {
+        super(float[].class);
+    }
+
+    @Override
+    public float[] deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        final JsonToken t = p.currentToken();
+
+        if (t == JsonToken.VALUE_EMBEDDED_OBJECT) {
+            Object emb = p.getEmbeddedObject();
+            if (emb instanceof byte[]) {
+                return unpack(ctxt, (byte[]) emb);
+            } else if (emb instanceof float[]) {
+                return (float[]) emb;
+            }
+        } else if (t == JsonToken.VALUE_STRING) {
+            return unpack(ctxt, p.getBinaryValue());
+        }
+        return (float[]) ctxt.handleUnexpectedToken(_valueClass, p);
+    }
+
+    private final float[] unpack(DeserializationContext ctxt, byte[] bytes) throws IOException {
+        final int bytesLen = bytes.length;
+        if (bytesLen < Base64Int8VectorSerializer.HEADER_LEN) {
+            return (float[]) ctxt.reportInputMismatch(_valueClass,
+                    "Vector length (%d) less than quantization header length (%d)",
+                    bytesLen, Base64Int8VectorSerializer.HEADER_LEN);
+        }
+        final float min = Float.intBitsToFloat(_getInt(bytes, 0));
+        final float scale = Float.intBitsToFloat(_getInt(bytes, 4));
+        final float[] floats = new float[bytesLen - Base64Int8VectorSerializer.HEADER_LEN];
+        for (int in = Base64Int8VectorSerializer.HEADER_LEN, out = 0; in < bytesLen; ) {
+            floats[out++] = min + (bytes[in++] & 0xFF) * scale;
+        }
+        return floats;
+    }
+
+    private static int _getInt(byte[] b, int offset) {
+        return (b[offset] << 24)
+                | ((b[offset+1] & 0xFF) << 16)
+                | ((b[offset+2] & 0xFF) << 8)
+                | (b[offset+3] & 0xFF);
+    }
+}
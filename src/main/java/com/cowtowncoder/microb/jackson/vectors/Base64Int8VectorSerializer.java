@@ -0,0 +1,82 @@
+package com.cowtowncoder.microb.jackson.vectors;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdScalarSerializer;
+
+/**
+ * Lossy alternative to {@link Base64FloatVectorSerializer} that uses
+ * scalar quantization into 8 bits per value: binary payload consists of
+ * 8-byte header (minimum value and scale, both as big-endian 32-bit floats)
+ * followed by one unsigned byte code per value, so that
+ *<pre>
+ *   value[i] = min + code[i] * scale
+ *</pre>
+ * Reconstruction error is at most {@code scale / 2}, where
+ * {@code scale = (max - min) / 255}.
+ *<p>
+ * Only finite values are supported.
+ */
+public class Base64Int8VectorSerializer extends StdScalarSerializer<float[]>
+{
+    private static final long serialVersionUID = 1L;
+
+    final static int HEADER_LEN = 8;
+
+    final static int MAX_CODE = 0xFF;
+
+    public Base64Int8VectorSerializer() {
+        super(float[].class);
+    }
+
+    @Override
+    public void serialize(float[] value, JsonGenerator gen, SerializerProvider provider) throws IOException
+    {
+        final int vectorLen = value.length;
+        float min = 0f, max = 0f;
+        if (vectorLen > 0) {
+            min = max = value[0];
+            for (int i = 1; i < vectorLen; ++i) {
+                final float f = value[i];
+                if (f < min) {
+                    min = f;
+                } else if (f > max) {
+                    max = f;
+                } else if (Float.isNaN(f)) {
+                    min = max = f;
+                    break;
+                }
+            }
+        }
+        if (!Float.isFinite(min) || !Float.isFinite(max)) {
+            provider.reportMappingProblem("Cannot quantize vector with non-finite values (min: %s, max: %s)",
+                    min, max);
+        }
+        final float scale = (max - min) / MAX_CODE;
+        // all values finite, but range may still exceed `Float.MAX_VALUE`
+        if (!Float.isFinite(scale)) {
+            provider.reportMappingProblem("Cannot quantize vector: value range overflows float (min: %s, max: %s)",
+                    min, max);
+        }
+        final float invScale = (scale == 0f) ? 0f : (1.0f / scale);
+
+        final byte[] b = new byte[HEADER_LEN + vectorLen];
+        _putInt(b, 0, Float.floatToIntBits(min));
+        _putInt(b, 4, Float.floatToIntBits(scale));
+        for (int i = 0, out = HEADER_LEN; i < vectorLen; i++) {
+            int code = Math.round((value[i] - min) * invScale);
+            // should not be needed but guard against rounding at the upper end
+            b[out++] = (byte) Math.min(code, MAX_CODE);
+        }
+        gen.writeBinary(b);
+    }
+
+    private static void _putInt(byte[] b, int offset, int bits) {
+        b[offset] = (byte) (bits >> 24);
+        b[offset+1] = (byte) (bits >> 16);
+        b[offset+2] = (byte) (bits >> 8);
+        b[offset+3] = (byte) bits;
+    }
+}
@@ -0,0 +1,80 @@
+package com.cowtowncoder.microb.jackson.vectors;
+
+/**
+ * Enumeration of implementations of dot product of two {@code float} vectors,
+ * where the first one is a row of a flat (row-major) matrix.
+ * As with {@link FloatPacking}, {@link #SIMD} variant requires the incubating
+ * Vector API and {@link #orFallback} should be used to check availability.
+ */
+public enum DotProduct
+{
+    /**
+     * Simple scalar loop
+     */
+    SCALAR {
+        @Override
+        public float dot(float[] matrix, int offset, float[] v, int len) {
+            float sum = 0f;
+            for (int i = 0; i < len; ++i) {
+                sum += matrix[offset + i] * v[i];
+            }
+            return sum;
+        }
+    },
+
+    /**
+     * Loop manually unrolled by 4, using separate accumulators to break
+     * dependency chain between additions
+     */
+    UNROLLED {
+        @Override
+        public float dot(float[] matrix, int offset, float[] v, int len) {
+            float s0 = 0f, s1 = 0f, s2 = 0f, s3 = 0f;
+            final int bound = len & ~3;
+            int i = 0;
+            for (; i < bound; i += 4) {
+                final int o = offset + i;
+                s0 += matrix[o] * v[i];
+                s1 += matrix[o + 1] * v[i + 1];
+                s2 += matrix[o + 2] * v[i + 2];
+                s3 += matrix[o + 3] * v[i + 3];
+            }
+            for (; i < len; ++i) {
+                s0 += matrix[offset + i] * v[i];
+            }
+            return (s0 + s1) + (s2 + s3);
+        }
+    },
+
+    /**
+     * Vector API based implementation: only usable if module is available
+     * (see {@link FloatPacking#simdAvailable}).
+     */
+    SIMD {
+        @Override
+        public float dot(float[] matrix, int offset, float[] v, int len) {
+            return SimdDotProduct.dot(matrix, offset, v, len);
+        }
+    };
+
+    /**
+     * @param matrix Flat matrix that contains first vector
+     * @param offset Offset of the first vector within {@code matrix}
+     * @param v Second vector
+     * @param len Length of vectors
+     *
+     * @return Dot product of vectors
+     */
+    public abstract float dot(float[] matrix, int offset, float[] v, int len);
+
+    /**
+     * @return This implementation if usable; {@link #UNROLLED} if not
+     *   (that is, for {@link #SIMD} if Vector API is not available)
+     */
+    public DotProduct orFallback() {
+        if (this == SIMD && !FloatPacking.simdAvailable()) {
+            return UNROLLED;
+        }
+        return this;
+    }
+}
@@ -0,0 +1,328 @@
+package com.cowtowncoder.microb.jackson.vectors;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import com.cowtowncoder.microb.jackson.model.HuggingFaceCohereScidocsQueries;
+import com.cowtowncoder.microb.jackson.model.InputData;
+import com.cowtowncoder.microb.jackson.model.InputJson;
+
+/**
+ * Compact binary file format for {@link HuggingFaceCohereScidocsQueries}
+ * documents, designed to be memory-mapped (see {@link #open}) so that
+ * "loading" requires no parsing. Layout (all values little-endian):
+ *<pre>
+ *  header (40 bytes):
+ *    int  magic ("FVEC")
+ *    int  version
+ *    int  row count
+ *    int  dimension
+ *    long offset of vectors (aligned to 64 bytes)
+ *    long offset of side table
+ *    long offset of String data
+ *  vectors: row count x dimension float32 values
+ *  side table: for each row, 4 ints: offset and length of UTF-8 encoded
+ *     {@code _id}, offset and length of {@code text} (relative to start of
+ *     String data; length of -1 for {@code null})
+ *  String data
+ *</pre>
+ * Since a single {@link MappedByteBuffer} is used, files are limited to 2 GB.
+ * Instances are immutable and safe to share between threads; mapping is
+ * released when instance is garbage collected.
+ */
+public class FlatVectorFile
+{
+    private final static int MAGIC = 0x43455646; // "FVEC" in little-endian
+    private final static int VERSION = 1;
+
+    private final static int HEADER_LEN = 40;
+    private final static int VECTOR_ALIGNMENT = 64;
+    private final static int INTS_PER_ROW = 4;
+
+    private final static int WRITE_BUFFER_LEN = 64 * 1024;
+
+    private final ByteBuffer _buffer;
+    private final FloatBuffer _vectors;
+    private final int _rows;
+    private final int _dimension;
+    private final int _tableOffset;
+    private final int _stringsOffset;
+
+    protected FlatVectorFile(ByteBuffer buffer, int rows, int dimension,
+            int vectorsOffset, int tableOffset, int stringsOffset) {
+        _buffer = buffer;
+        _rows = rows;
+        _dimension = dimension;
+        _tableOffset = tableOffset;
+        _stringsOffset = stringsOffset;
+        // NOTE: slice() resets byte order to big-endian, need to re-set
+        _vectors = buffer.slice(vectorsOffset, rows * dimension * 4)
+                .order(ByteOrder.LITTLE_ENDIAN)
+                .asFloatBuffer();
+    }
+
+    /*
+    /**********************************************************************
+    /* Reading
+    /**********************************************************************
+     */
+
+    public static FlatVectorFile open(Path path) throws IOException
+    {
+        return _wrap(map(path), "File "+path);
+    }
+
+    /**
+     * Method for memory-mapping given file, without validating its contents;
+     * can be used with {@link #wrap} to separate mapping from access.
+     */
+    public static MappedByteBuffer map(Path path) throws IOException
+    {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long size = ch.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File "+path+" too big ("+size+" bytes) to map as one buffer");
+            }
+            // Mapping remains valid after channel is closed
+            return ch.map(FileChannel.MapMode.READ_ONLY, 0L, size);
+        }
+    }
+
+    /**
+     * Method for accessing flat vector file contents in given buffer (usually
+     * one returned by {@link #map}). Byte order of buffer is changed to
+     * little-endian.
+     */
+    public static FlatVectorFile wrap(ByteBuffer buf) throws IOException
+    {
+        return _wrap(buf, "Buffer");
+    }
+
+    private static FlatVectorFile _wrap(ByteBuffer buf, String source) throws IOException
+    {
+        buf.order(ByteOrder.LITTLE_ENDIAN);
+        if (buf.limit() < HEADER_LEN || buf.getInt(0) != MAGIC) {
+            throw new IOException(source+" is not a flat vector file (invalid header)");
+        }
+        if (buf.getInt(4) != VERSION) {
+            throw new IOException(source+" has unsupported version "+buf.getInt(4));
+        }
+        final int rows = buf.getInt(8);
+        final int dimension = buf.getInt(12);
+        final long vectorsOffset = buf.getLong(16);
+        final long tableOffset = buf.getLong(24);
+        final long stringsOffset = buf.getLong(32);
+        // Offsets checked against buffer first, so that sums below can not overflow
+        if (rows < 0 || dimension < 0
+                || vectorsOffset < HEADER_LEN || vectorsOffset > buf.limit()
+                || tableOffset < HEADER_LEN || tableOffset > buf.limit()
+                || stringsOffset < HEADER_LEN
+                || vectorsOffset + 4L * rows * dimension > tableOffset
+                || tableOffset + 4L * INTS_PER_ROW * rows > stringsOffset
+                || stringsOffset > buf.limit()) {
+            throw new IOException(source+" has corrupt header (rows "+rows+", dimension "+dimension
+                    +", offsets "+vectorsOffset+"/"+tableOffset+"/"+stringsOffset+")");
+        }
+        return new FlatVectorFile(buf, rows, dimension,
+                (int) vectorsOffset, (int) tableOffset, (int) stringsOffset);
+    }
+
+    public int size() {
+        return _rows;
+    }
+
+    public int dimension() {
+        return _dimension;
+    }
+
+    public float[] vector(int row) {
+        return vector(row, new float[_dimension]);
+    }
+
+    /**
+     * @return {@code dst} after copying vector of given row in it
+     */
+    public float[] vector(int row, float[] dst) {
+        _vectors.get(_checkRow(row) * _dimension, dst, 0, _dimension);
+        return dst;
+    }
+
+    /**
+     * Dot product of vector at given row and given query vector, calculated
+     * directly from mapped contents (without copying).
+     */
+    public float dot(int row, float[] query) {
+        final FloatBuffer vectors = _vectors;
+        final int len = Math.min(query.length, _dimension);
+        final int base = _checkRow(row) * _dimension;
+        float sum = 0f;
+        for (int i = 0; i < len; ++i) {
+            sum += vectors.get(base + i) * query[i];
+        }
+        return sum;
+    }
+
+    public String id(int row) {
+        return _string(_tableOffset + (_checkRow(row) * INTS_PER_ROW) * 4);
+    }
+
+    public String text(int row) {
+        return _string(_tableOffset + (_checkRow(row) * INTS_PER_ROW + 2) * 4);
+    }
+
+    private String _string(int tableEntry) {
+        final int offset = _buffer.getInt(tableEntry);
+        final int len = _buffer.getInt(tableEntry + 4);
+        if (len == -1) {
+            return null;
+        }
+        if (offset < 0 || len < 0
+                || (long) _stringsOffset + offset + len > _buffer.limit()) {
+            throw new IllegalStateException("Corrupt side table entry at "+tableEntry
+                    +": String offset "+offset+", length "+len+" not within String data");
+        }
+        byte[] b = new byte[len];
+        _buffer.get(_stringsOffset + offset, b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    private int _checkRow(int row) {
+        if (row < 0 || row >= _rows) {
+            throw new IndexOutOfBoundsException("Invalid row "+row+": file has "+_rows+" rows");
+        }
+        return row;
+    }
+
+    /*
+    /**********************************************************************
+    /* Writing
+    /**********************************************************************
+     */
+
+    public static void write(HuggingFaceCohereScidocsQueries doc, Path path) throws IOException {
+        write(doc.data, path);
+    }
+
+    public static void write(List<HuggingFaceCohereScidocsQueries.Data> data, Path path) throws IOException
+    {
+        final int rows = data.size();
+        final int dimension = (rows == 0) ? 0 : data.get(0).emb.length;
+
+        // Encode Strings first to know offsets
+        final byte[][] strings = new byte[rows * 2][];
+        final int[] table = new int[rows * INTS_PER_ROW];
+        long stringsLen = 0L;
+        for (int row = 0; row < rows; ++row) {
+            final HuggingFaceCohereScidocsQueries.Data d = data.get(row);
+            if (d.emb == null || d.emb.length != dimension) {
+                throw new IllegalArgumentException(String.format("Row #%d has dimension %d, expected %d",
+                        row, (d.emb == null) ? -1 : d.emb.length, dimension));
+            }
+            for (int i = 0; i < 2; ++i) {
+                final String str = (i == 0) ? d._id : d.text;
+                final int ix = row * INTS_PER_ROW + i * 2;
+                if (str == null) {
+                    table[ix + 1] = -1;
+                } else {
+                    final byte[] b = str.getBytes(StandardCharsets.UTF_8);
+                    strings[row * 2 + i] = b;
+                    table[ix] = (int) stringsLen;
+                    table[ix + 1] = b.length;
+                    stringsLen += b.length;
+                }
+            }
+        }
+        final long vectorsOffset = _align(HEADER_LEN, VECTOR_ALIGNMENT);
+        final long tableOffset = vectorsOffset + 4L * rows * dimension;
+        final long stringsOffset = tableOffset + 4L * table.length;
+        if (stringsOffset + stringsLen > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Content too big ("+(stringsOffset + stringsLen)
+                    +" bytes) for flat vector file");
+        }
+
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            final ByteBuffer buf = ByteBuffer.allocate(WRITE_BUFFER_LEN).order(ByteOrder.LITTLE_ENDIAN);
+            buf.putInt(MAGIC)
+                .putInt(VERSION)
+                .putInt(rows)
+                .putInt(dimension)
+                .putLong(vectorsOffset)
+                .putLong(tableOffset)
+                .putLong(stringsOffset);
+            while (buf.position() < vectorsOffset) {
+                buf.put((byte) 0);
+            }
+            for (HuggingFaceCohereScidocsQueries.Data d : data) {
+                for (float f : d.emb) {
+                    _ensureRoom(ch, buf, 4);
+                    buf.putFloat(f);
+                }
+            }
+            for (int value : table) {
+                _ensureRoom(ch, buf, 4);
+                buf.putInt(value);
+            }
+            for (byte[] b : strings) {
+                if (b != null) {
+                    for (int offset = 0; offset < b.length; ) {
+                        _ensureRoom(ch, buf, 1);
+                        final int count = Math.min(buf.remaining(), b.length - offset);
+                        buf.put(b, offset, count);
+                        offset += count;
+                    }
+                }
+            }
+            _flush(ch, buf);
+        }
+    }
+
+    private static long _align(long offset, int alignment) {
+        return (offset + alignment - 1) & ~(alignment - 1L);
+    }
+
+    private static void _ensureRoom(FileChannel ch, ByteBuffer buf, int needed) throws IOException {
+        if (buf.remaining() < needed) {
+            _flush(ch, buf);
+        }
+    }
+
+    private static void _flush(FileChannel ch, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) {
+            ch.write(buf);
+        }
+        buf.clear();
+    }
+
+    /*
+    /**********************************************************************
+    /* Converter entry point
+    /**********************************************************************
+     */
+
+    /**
+     * Converts {@link InputJson#HUGGING_FACE_QUERIES} into flat vector file
+     * with given name.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length != 1) {
+            System.err.println("Usage: java "+FlatVectorFile.class.getName()+" [output-file]");
+            System.exit(1);
+        }
+        final HuggingFaceCohereScidocsQueries doc = InputData.get(InputJson.HUGGING_FACE_QUERIES).deserialized();
+        final Path path = Paths.get(args[0]);
+        write(doc, path);
+        FlatVectorFile f = open(path);
+        System.out.printf("Wrote %d vectors (dimension %d) into '%s'%n", f.size(), f.dimension(), path);
+    }
+}
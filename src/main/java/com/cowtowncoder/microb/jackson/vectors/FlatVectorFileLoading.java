@@ -0,0 +1,186 @@
+package com.cowtowncoder.microb.jackson.vectors;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.StreamReadFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.cowtowncoder.microb.jackson.model.HuggingFaceCohereScidocsQueries;
+import com.cowtowncoder.microb.jackson.model.InputData;
+import com.cowtowncoder.microb.jackson.model.InputJson;
+
+/**
+ * Test for comparing "startup" cost of reading embeddings from JSON
+ * (using {@code JsonMapper.readValue}) with memory-mapping a
+ * {@link FlatVectorFile}: both "time-to-first-query" (read/open the file and
+ * find the best match for a single query) and full-scan throughput once loaded.
+ * Time-to-first-query is measured as single-shot time for a bounded number
+ * of invocations, each opening (and, for flat file, mapping) the file anew:
+ * this includes page faults for accessing mapped content; and since mappings
+ * can not be explicitly released, limits the number accumulated until GC.
+ * Files are written in a temporary directory during set up; note that they
+ * will likely be in OS page cache, so no actual disk I/O is measured.
+ *
+ * @author Tatu Saloranta
+ */
+@BenchmarkMode(Mode.Throughput)
+@State(Scope.Benchmark)
+//During dev, use lower; for real measurements, higher
+//@Fork(value = 1)
+@Fork(value = 3)
+@Measurement(iterations = 3, time = 3)
+@Warmup(iterations = 3, time = 1)
+public class FlatVectorFileLoading
+{
+    private final ObjectMapper JSON_MAPPER;
+    {
+        JsonFactory f = JsonFactory.builder()
+                .enable(StreamReadFeature.USE_FAST_DOUBLE_PARSER)
+                .build();
+        JSON_MAPPER = new JsonMapper(f);
+    }
+
+    private Path _tempDir;
+    private Path _jsonFile;
+    private Path _flatFile;
+
+    private float[] _query;
+
+    // Pre-loaded for scan tests
+    private HuggingFaceCohereScidocsQueries _jsonDoc;
+    private FlatVectorFile _flatDoc;
+
+    /*
+    /**********************************************************************
+    /* Set up, tear down
+    /**********************************************************************
+     */
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        final InputData input = InputData.get(InputJson.HUGGING_FACE_QUERIES);
+        _tempDir = Files.createTempDirectory("flat-vectors");
+        _jsonFile = _tempDir.resolve("queries.json");
+        _flatFile = _tempDir.resolve("queries.fvec");
+        Files.write(_jsonFile, input.serialized());
+        FlatVectorFile.write(input.<HuggingFaceCohereScidocsQueries>deserialized(), _flatFile);
+
+        _jsonDoc = _readJson();
+        _flatDoc = FlatVectorFile.open(_flatFile);
+        _query = _jsonDoc.data.get(0).emb.clone();
+
+        System.out.println();
+        System.out.println("------------------");
+        System.out.printf("Rows: %d, dimension: %d%n", _flatDoc.size(), _flatDoc.dimension());
+        System.out.printf("JSON file size: %d kB, flat file size: %d kB%n",
+                Files.size(_jsonFile) >> 10, Files.size(_flatFile) >> 10);
+        System.out.println("------------------");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        _flatDoc = null;
+        Files.deleteIfExists(_jsonFile);
+        // NOTE: may fail on Windows if mapping not yet released; ok to leave
+        _flatFile.toFile().delete();
+        _tempDir.toFile().delete();
+    }
+
+    /*
+    /**********************************************************************
+    /* Test methods, time-to-first-query
+    /**********************************************************************
+     */
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 20)
+    public void jsonFirstQuery(Blackhole bh) throws Exception {
+        bh.consume(_bestMatch(_readJson(), _query));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 20)
+    public void mmapFirstQuery(Blackhole bh) throws Exception {
+        bh.consume(_bestMatch(FlatVectorFile.open(_flatFile), _query));
+    }
+
+    /*
+    /**********************************************************************
+    /* Test methods, full scan
+    /**********************************************************************
+     */
+
+    @Benchmark
+    public void jsonScan(Blackhole bh) {
+        bh.consume(_bestMatch(_jsonDoc, _query));
+    }
+
+    @Benchmark
+    public void mmapScan(Blackhole bh) {
+        bh.consume(_bestMatch(_flatDoc, _query));
+    }
+
+    /*
+    /**********************************************************************
+    /* Helper methods
+    /**********************************************************************
+     */
+
+    private HuggingFaceCohereScidocsQueries _readJson() throws IOException {
+        return JSON_MAPPER.readValue(_jsonFile.toFile(), HuggingFaceCohereScidocsQueries.class);
+    }
+
+    private static String _bestMatch(HuggingFaceCohereScidocsQueries doc, float[] query) {
+        HuggingFaceCohereScidocsQueries.Data best = null;
+        float bestScore = Float.NEGATIVE_INFINITY;
+        for (HuggingFaceCohereScidocsQueries.Data d : doc.data) {
+            final float[] emb = d.emb;
+            final int len = Math.min(emb.length, query.length);
+            float sum = 0f;
+            for (int i = 0; i < len; ++i) {
+                sum += emb[i] * query[i];
+            }
+            if (sum > bestScore) {
+                bestScore = sum;
+                best = d;
+            }
+        }
+        return (best == null) ? null : best._id;
+    }
+
+    private static String _bestMatch(FlatVectorFile doc, float[] query) {
+        int best = -1;
+        float bestScore = Float.NEGATIVE_INFINITY;
+        for (int row = 0, rows = doc.size(); row < rows; ++row) {
+            final float sum = doc.dot(row, query);
+            if (sum > bestScore) {
+                bestScore = sum;
+                best = row;
+            }
+        }
+        return (best < 0) ? null : doc.id(best);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options opt = new OptionsBuilder()
+                .include(FlatVectorFileLoading.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
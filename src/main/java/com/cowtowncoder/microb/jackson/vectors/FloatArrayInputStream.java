@@ -0,0 +1,83 @@
+package com.cowtowncoder.microb.jackson.vectors;
+
+import java.io.InputStream;
+import java.nio.ByteOrder;
+
+/**
+ * {@link InputStream} that exposes contents of a {@code float[]} as
+ * packed bytes (same as {@link FloatPacking#pack}), without materializing them.
+ */
+final class FloatArrayInputStream extends InputStream
+{
+    private final float[] _floats;
+
+    private final int _end;
+
+    private final boolean _swap;
+
+    /**
+     * Offset of the next byte to read
+     */
+    private int _offset;
+
+    public FloatArrayInputStream(float[] floats, ByteOrder order) {
+        _floats = floats;
+        _end = floats.length << 2;
+        _swap = (order != ByteOrder.BIG_ENDIAN);
+    }
+
+    @Override
+    public int available() {
+        return _end - _offset;
+    }
+
+    @Override
+    public int read() {
+        if (_offset >= _end) {
+            return -1;
+        }
+        final int ix = _offset++;
+        final int floatBits = _floatBits(ix >> 2);
+        return (floatBits >> (24 - ((ix & 3) << 3))) & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+        if (len == 0) {
+            return 0;
+        }
+        final int left = _end - _offset;
+        if (left <= 0) {
+            return -1;
+        }
+        if (len > left) {
+            len = left;
+        }
+        final int end = off + len;
+        // Unaligned leading bytes, one by one
+        while (((_offset & 3) != 0) && (off < end)) {
+            b[off++] = (byte) read();
+        }
+        // then full floats
+        int ix = _offset >> 2;
+        while (off + 4 <= end) {
+            final int floatBits = _floatBits(ix++);
+            b[off++] = (byte) (floatBits >> 24);
+            b[off++] = (byte) (floatBits >> 16);
+            b[off++] = (byte) (floatBits >> 8);
+            b[off++] = (byte) floatBits;
+        }
+        _offset = ix << 2;
+        // and trailing partial float, if any
+        while (off < end) {
+            b[off++] = (byte) read();
+        }
+        return len;
+    }
+
+    // Float bits in big-endian order
+    private int _floatBits(int ix) {
+        final int floatBits = Float.floatToIntBits(_floats[ix]);
+        return _swap ? Integer.reverseBytes(floatBits) : floatBits;
+    }
+}
@@ -0,0 +1,206 @@
+package com.cowtowncoder.microb.jackson.vectors;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Enumeration of implementations of "packing" {@code float[]} into
+ * {@code byte[]} (and "unpacking" back) used by Base64 vector codecs,
+ * with configurable byte order.
+ * Default implementation is the scalar loop using shifts; if the incubating
+ * Vector API ({@code jdk.incubator.vector}) is available, a SIMD-based
+ * alternative may be used instead (see {@link SimdFloatPacking}).
+ */
+public enum FloatPacking
+{
+    /**
+     * Manual assembly of bytes with shifts and masks
+     */
+    SHIFTS {
+        @Override
+        public void pack(float[] src, byte[] dst, ByteOrder order) {
+            if (order == ByteOrder.BIG_ENDIAN) {
+                packScalar(src, dst);
+                return;
+            }
+            final int vectorLen = src.length;
+            for (int i = 0, out = 0; i < vectorLen; i++) {
+                final int floatBits = Float.floatToIntBits(src[i]);
+                dst[out++] = (byte) (floatBits);
+                dst[out++] = (byte) (floatBits >> 8);
+                dst[out++] = (byte) (floatBits >> 16);
+                dst[out++] = (byte) (floatBits >> 24);
+            }
+        }
+
+        @Override
+        public void unpack(byte[] src, float[] dst, ByteOrder order) {
+            if (order == ByteOrder.BIG_ENDIAN) {
+                unpackScalar(src, dst);
+                return;
+            }
+            final int bytesLen = src.length;
+            for (int in = 0, out = 0; in < bytesLen; ) {
+                int packed = (src[in++] & 0xFF)
+                        | ((src[in++] & 0xFF) << 8)
+                        | ((src[in++] & 0xFF) << 16)
+                        | (src[in++] << 24);
+                dst[out++] = Float.intBitsToFloat(packed);
+            }
+        }
+    },
+
+    /**
+     * Access via {@link MethodHandles#byteArrayViewVarHandle}: JIT should
+     * compile into plain (possibly unaligned) loads/stores.
+     */
+    VAR_HANDLE {
+        @Override
+        public void pack(float[] src, byte[] dst, ByteOrder order) {
+            final VarHandle vh = (order == ByteOrder.BIG_ENDIAN) ? VH_BIG_ENDIAN : VH_LITTLE_ENDIAN;
+            final int vectorLen = src.length;
+            for (int i = 0; i < vectorLen; i++) {
+                vh.set(dst, i << 2, src[i]);
+            }
+        }
+
+        @Override
+        public void unpack(byte[] src, float[] dst, ByteOrder order) {
+            final VarHandle vh = (order == ByteOrder.BIG_ENDIAN) ? VH_BIG_ENDIAN : VH_LITTLE_ENDIAN;
+            final int vectorLen = src.length >> 2;
+            for (int i = 0; i < vectorLen; i++) {
+                dst[i] = (float) vh.get(src, i << 2);
+            }
+        }
+    },
+
+    /**
+     * Bulk get/put using {@link ByteBuffer#asFloatBuffer()} view
+     */
+    FLOAT_BUFFER {
+        @Override
+        public void pack(float[] src, byte[] dst, ByteOrder order) {
+            ByteBuffer.wrap(dst).order(order).asFloatBuffer().put(src);
+        }
+
+        @Override
+        public void unpack(byte[] src, float[] dst, ByteOrder order) {
+            ByteBuffer.wrap(src).order(order).asFloatBuffer().get(dst, 0, src.length >> 2);
+        }
+    },
+
+    /**
+     * Vector API based implementation: only usable if module (and byte-array
+     * access methods) are available (see {@link #simdPackingAvailable});
+     * use {@link #orFallback} to get {@link #SHIFTS} otherwise.
+     */
+    SIMD {
+        @Override
+        public void pack(float[] src, byte[] dst, ByteOrder order) {
+            SimdFloatPacking.pack(src, dst, order);
+        }
+
+        @Override
+        public void unpack(byte[] src, float[] dst, ByteOrder order) {
+            SimdFloatPacking.unpack(src, dst, order);
+        }
+    };
+
+    private final static String VECTOR_MODULE = "jdk.incubator.vector";
+
+    /**
+     * Whether Vector API module was added at runtime (needs to be
+     * explicitly enabled with {@code --add-modules jdk.incubator.vector}).
+     * Must be checked before touching Vector API based classes, as loading
+     * of them would fail otherwise.
+     */
+    private final static boolean SIMD_AVAILABLE = ModuleLayer.boot()
+            .findModule(VECTOR_MODULE).isPresent();
+
+    /**
+     * Whether {@link SimdFloatPacking} is usable: in addition to module being
+     * present, needs byte-array load/store methods of {@code FloatVector} that
+     * were removed from the incubator API in JDK 19 (replaced by
+     * {@code MemorySegment} based ones), so existence is probed reflectively.
+     */
+    private final static boolean SIMD_PACKING_AVAILABLE = SIMD_AVAILABLE
+            && _probeSimdPacking();
+
+    final static VarHandle VH_BIG_ENDIAN = MethodHandles.byteArrayViewVarHandle(float[].class,
+            ByteOrder.BIG_ENDIAN);
+    final static VarHandle VH_LITTLE_ENDIAN = MethodHandles.byteArrayViewVarHandle(float[].class,
+            ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * @param src Floats to pack
+     * @param dst Buffer to pack floats in; must have at least {@code 4 * src.length}
+     *    bytes
+     * @param order Byte order of packed floats
+     */
+    public abstract void pack(float[] src, byte[] dst, ByteOrder order);
+
+    /**
+     * @param src Bytes to unpack; length must be a multiple of 4
+     * @param dst Buffer to unpack floats in; must have at least {@code src.length / 4}
+     *    entries
+     * @param order Byte order of packed floats
+     */
+    public abstract void unpack(byte[] src, float[] dst, ByteOrder order);
+
+    public static boolean simdAvailable() {
+        return SIMD_AVAILABLE;
+    }
+
+    public static boolean simdPackingAvailable() {
+        return SIMD_PACKING_AVAILABLE;
+    }
+
+    /**
+     * @return This implementation if usable; {@link #SHIFTS} if not
+     *   (that is, for {@link #SIMD} if Vector API, or its byte-array access
+     *   methods, are not available)
+     */
+    public FloatPacking orFallback() {
+        if (this == SIMD && !SIMD_PACKING_AVAILABLE) {
+            return SHIFTS;
+        }
+        return this;
+    }
+
+    // Only uses names, so that no Vector API class gets linked unless present
+    private static boolean _probeSimdPacking() {
+        try {
+            Class<?> vectorClass = Class.forName("jdk.incubator.vector.FloatVector");
+            Class<?> speciesClass = Class.forName("jdk.incubator.vector.VectorSpecies");
+            vectorClass.getMethod("fromByteArray", speciesClass, byte[].class, int.class, ByteOrder.class);
+            vectorClass.getMethod("intoByteArray", byte[].class, int.class, ByteOrder.class);
+            return true;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return false;
+        }
+    }
+
+    public static void packScalar(float[] src, byte[] dst) {
+        final int vectorLen = src.length;
+        for (int i = 0, out = 0; i < vectorLen; i++) {
+            final int floatBits = Float.floatToIntBits(src[i]);
+            dst[out++] = (byte) (floatBits >> 24);
+            dst[out++] = (byte) (floatBits >> 16);
+            dst[out++] = (byte) (floatBits >> 8);
+            dst[out++] = (byte) (floatBits);
+        }
+    }
+
+    public static void unpackScalar(byte[] src, float[] dst) {
+        final int bytesLen = src.length;
+        for (int in = 0, out = 0; in < bytesLen; ) {
+            int packed = (src[in++] << 24)
+                    | ((src[in++] & 0xFF) << 16)
+                    | ((src[in++] & 0xFF) << 8)
+                    | (src[in++] & 0xFF);
+            dst[out++] = Float.intBitsToFloat(packed);
+        }
+    }
+}
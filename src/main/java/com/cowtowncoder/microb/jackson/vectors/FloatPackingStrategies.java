@@ -0,0 +1,112 @@
+package com.cowtowncoder.microb.jackson.vectors;
+
+import java.nio.ByteOrder;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.cowtowncoder.microb.jackson.model.HuggingFaceCohereScidocsQueries;
+import com.cowtowncoder.microb.jackson.model.InputData;
+import com.cowtowncoder.microb.jackson.model.InputJson;
+
+/**
+ * Test for measuring performance of different {@link FloatPacking}
+ * implementations (manual shifts, {@code VarHandle}, {@code FloatBuffer}
+ * bulk get/put and Vector API), for both byte orders, over
+ * all embedding vectors of the Hugging Face dataset.
+ * Does not include Base64 encoding/decoding or JSON handling.
+ *
+ * @author Tatu Saloranta
+ */
+@BenchmarkMode(Mode.Throughput)
+@State(Scope.Benchmark)
+//During dev, use lower; for real measurements, higher
+//@Fork(value = 1)
+// Vector API needs to be explicitly enabled for SIMD variants
+@Fork(value = 3, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@Measurement(iterations = 3, time = 3)
+@Warmup(iterations = 3, time = 1)
+public class FloatPackingStrategies
+{
+    @Param({ "SHIFTS", "VAR_HANDLE", "FLOAT_BUFFER", "SIMD" })
+    public FloatPacking packing;
+
+    @Param({ "BIG_ENDIAN", "LITTLE_ENDIAN" })
+    public Endianness byteOrder;
+
+    /**
+     * Enum wrapper for {@link ByteOrder} (which is not an enum), usable as
+     * JMH parameter
+     */
+    public enum Endianness {
+        BIG_ENDIAN(ByteOrder.BIG_ENDIAN),
+        LITTLE_ENDIAN(ByteOrder.LITTLE_ENDIAN);
+
+        final ByteOrder order;
+
+        Endianness(ByteOrder order) {
+            this.order = order;
+        }
+    }
+
+    private float[][] _vectors;
+    private byte[][] _packed;
+
+    private ByteOrder _order;
+
+    // Reused output buffers, to only measure conversion
+    private float[] _floatBuffer;
+    private byte[] _byteBuffer;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final HuggingFaceCohereScidocsQueries doc = InputData.get(InputJson.HUGGING_FACE_QUERIES)
+                .deserialized();
+        final List<HuggingFaceCohereScidocsQueries.Data> data = doc.data;
+        _order = byteOrder.order;
+        if (packing.orFallback() != packing) {
+            System.out.printf("WARNING: %s not available, falling back to %s%n",
+                    packing, packing.orFallback());
+            packing = packing.orFallback();
+        }
+        _vectors = new float[data.size()][];
+        _packed = new byte[data.size()][];
+        int maxLen = 0;
+        for (int i = 0; i < _vectors.length; ++i) {
+            float[] v = data.get(i).emb;
+            _vectors[i] = v;
+            _packed[i] = new byte[v.length << 2];
+            packing.pack(v, _packed[i], _order);
+            maxLen = Math.max(maxLen, v.length);
+        }
+        _floatBuffer = new float[maxLen];
+        _byteBuffer = new byte[maxLen << 2];
+    }
+
+    @Benchmark
+    public void pack(Blackhole bh) {
+        for (float[] v : _vectors) {
+            packing.pack(v, _byteBuffer, _order);
+        }
+        bh.consume(_byteBuffer);
+    }
+
+    @Benchmark
+    public void unpack(Blackhole bh) {
+        for (byte[] b : _packed) {
+            packing.unpack(b, _floatBuffer, _order);
+        }
+        bh.consume(_floatBuffer);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options opt = new OptionsBuilder()
+                .include(FloatPackingStrategies.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,271 @@
+package com.cowtowncoder.microb.jackson.vectors;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.TreeCodec;
+import com.fasterxml.jackson.jr.ob.JSON;
+import com.fasterxml.jackson.jr.ob.JSONObjectException;
+import com.fasterxml.jackson.jr.ob.JacksonJrExtension;
+import com.fasterxml.jackson.jr.ob.api.CollectionBuilder;
+import com.fasterxml.jackson.jr.ob.api.ExtensionContext;
+import com.fasterxml.jackson.jr.ob.api.MapBuilder;
+import com.fasterxml.jackson.jr.ob.api.ReaderWriterProvider;
+import com.fasterxml.jackson.jr.ob.api.ValueReader;
+import com.fasterxml.jackson.jr.ob.api.ValueWriter;
+import com.fasterxml.jackson.jr.ob.impl.JSONReader;
+import com.fasterxml.jackson.jr.ob.impl.JSONWriter;
+import com.fasterxml.jackson.jr.ob.impl.ValueReaderLocator;
+
+/**
+ * Jackson-jr extension that adds support for {@code float[]} values, which
+ * jackson-jr does not handle out of the box: either as JSON Arrays of numbers,
+ * or as "Binary Vectors" (Base64-encoded big-endian packed floats, same
+ * as {@link Base64FloatVectorSerializer} / {@link Base64FloatVectorDeserializer}
+ * produce and accept by default).
+ * In Base64 mode, reader also accepts JSON Arrays.
+ *<p>
+ * NOTE: as of 2.18, jackson-jr does not consult {@link ReaderWriterProvider}s
+ * for array types when reading, so a {@link JSONReader} that does needs to be
+ * configured as well; use {@link #builder} to get {@link JSON.Builder} with
+ * both:
+ *<pre>
+ *  JSON json = FloatVectorJrExtension.builder(true)
+ *      // ... other configuration
+ *      .build();
+ *</pre>
+ */
+public class FloatVectorJrExtension extends JacksonJrExtension
+{
+    private final boolean _base64;
+
+    /**
+     * @param base64 Whether to write vectors as Base64 encoded Strings
+     *    ({@code true}) or JSON Arrays ({@code false})
+     */
+    public FloatVectorJrExtension(boolean base64) {
+        _base64 = base64;
+    }
+
+    /**
+     * @return Builder for {@link JSON} instances with this extension registered
+     *    and {@link JSONReader} that is able to use it for reading {@code float[]}
+     */
+    public static JSON.Builder builder(boolean base64) {
+        return JSON.builder()
+                .register(new FloatVectorJrExtension(base64))
+                .jsonReader(new VectorJSONReader(CollectionBuilder.defaultImpl(), MapBuilder.defaultImpl()));
+    }
+
+    @Override
+    protected void register(ExtensionContext ctxt) {
+        ctxt.insertProvider(new Provider(_base64));
+    }
+
+    static class Provider extends ReaderWriterProvider
+    {
+        private final ValueReader _reader;
+        private final ValueWriter _writer;
+
+        Provider(boolean base64) {
+            _reader = new FloatVectorReader(base64);
+            _writer = base64 ? new Base64FloatVectorWriter() : new FloatArrayWriter();
+        }
+
+        @Override
+        public ValueReader findValueReader(JSONReader readContext, Class<?> type) {
+            return (type == float[].class) ? _reader : null;
+        }
+
+        @Override
+        public ValueWriter findValueWriter(JSONWriter writeContext, Class<?> type) {
+            return (type == float[].class) ? _writer : null;
+        }
+    }
+
+    /*
+    /**********************************************************************
+    /* Reader
+    /**********************************************************************
+     */
+
+    /**
+     * {@link JSONReader} that uses {@link VectorReaderLocator}: one locator
+     * "blueprint" is created (and retained) per blueprint of default locator
+     * to keep reader caching working.
+     */
+    static class VectorJSONReader extends JSONReader
+    {
+        private volatile VectorReaderLocator _locator;
+
+        VectorJSONReader(CollectionBuilder lb, MapBuilder mb) {
+            super(lb, mb);
+        }
+
+        protected VectorJSONReader(VectorJSONReader base, int features,
+                ValueReaderLocator loc, TreeCodec treeCodec, JsonParser p) {
+            super(base, features, loc, treeCodec, p);
+        }
+
+        @Override
+        public JSONReader perOperationInstance(int features,
+                ValueReaderLocator loc, TreeCodec treeCodec, JsonParser p) {
+            VectorReaderLocator vloc = _locator;
+            if (vloc == null || !vloc.isBasedOn(loc)) {
+                _locator = vloc = new VectorReaderLocator(loc);
+            }
+            return new VectorJSONReader(this, features, vloc, treeCodec, p);
+        }
+
+        @Override
+        protected JSONReader _with(CollectionBuilder lb, MapBuilder mb) {
+            return new VectorJSONReader(lb, mb);
+        }
+    }
+
+    /**
+     * {@link ValueReaderLocator} that checks {@link ReaderWriterProvider}
+     * for array types before default handling.
+     */
+    static class VectorReaderLocator extends ValueReaderLocator
+    {
+        private final ValueReaderLocator _base;
+
+        VectorReaderLocator(ValueReaderLocator base) {
+            super(base, base.readerWriterProvider(), base.readerWriterModifier());
+            _base = base;
+        }
+
+        protected VectorReaderLocator(VectorReaderLocator base, int features, JSONReader r) {
+            super(base, features, r);
+            _base = base._base;
+        }
+
+        boolean isBasedOn(ValueReaderLocator base) {
+            return _base == base;
+        }
+
+        @Override
+        public ValueReaderLocator perOperationInstance(JSONReader r, int features) {
+            return new VectorReaderLocator(this, features, r);
+        }
+
+        @Override
+        protected ValueReader arrayReader(Class<?> contextType, Class<?> arrayType) {
+            if (_readerProvider != null) {
+                ValueReader r = _readerProvider.findValueReader(_readContext, arrayType);
+                if (r != null) {
+                    return r;
+                }
+            }
+            return super.arrayReader(contextType, arrayType);
+        }
+    }
+
+    static class FloatVectorReader extends ValueReader
+    {
+        private final static int INITIAL_ARRAY_LEN = 64;
+
+        private final boolean _base64;
+
+        FloatVectorReader(boolean base64) {
+            super(float[].class);
+            _base64 = base64;
+        }
+
+        @Override
+        public Object read(JSONReader reader, JsonParser p) throws IOException
+        {
+            switch (p.currentToken()) {
+            case START_ARRAY:
+                return _readArray(p);
+            case VALUE_STRING:
+                if (_base64) {
+                    return _readBase64(p);
+                }
+                break;
+            case VALUE_NULL:
+                return null;
+            default:
+            }
+            throw JSONObjectException.from(p, "Cannot read `float[]` from %s: expected %s",
+                    _tokenDesc(p), _base64 ? "JSON Array or Base64-encoded String" : "JSON Array");
+        }
+
+        private float[] _readArray(JsonParser p) throws IOException
+        {
+            // ValueReaders are shared so no per-call state to reuse; just
+            // grow as needed and trim at the end
+            float[] result = new float[INITIAL_ARRAY_LEN];
+            int count = 0;
+            JsonToken t;
+            while ((t = p.nextToken()) != JsonToken.END_ARRAY) {
+                if (t != JsonToken.VALUE_NUMBER_FLOAT && t != JsonToken.VALUE_NUMBER_INT) {
+                    throw JSONObjectException.from(p,
+                            "Invalid content in vector Array: expected JSON Number, got: %s",
+                            _tokenDesc(p, t));
+                }
+                if (count == result.length) {
+                    result = Arrays.copyOf(result, count << 1);
+                }
+                result[count++] = p.getFloatValue();
+            }
+            return (count == result.length) ? result : Arrays.copyOf(result, count);
+        }
+
+        private float[] _readBase64(JsonParser p) throws IOException
+        {
+            final byte[] packed = p.getBinaryValue();
+            if ((packed.length & 3) != 0) {
+                throw JSONObjectException.from(p,
+                        "Vector length (%d) not a multiple of 4 bytes", packed.length);
+            }
+            final float[] result = new float[packed.length >> 2];
+            FloatPacking.unpackScalar(packed, result);
+            return result;
+        }
+    }
+
+    /*
+    /**********************************************************************
+    /* Writers
+    /**********************************************************************
+     */
+
+    static class FloatArrayWriter implements ValueWriter
+    {
+        @Override
+        public void writeValue(JSONWriter context, JsonGenerator g, Object value) throws IOException {
+            final float[] vector = (float[]) value;
+            g.writeStartArray(vector, vector.length);
+            for (float f : vector) {
+                g.writeNumber(f);
+            }
+            g.writeEndArray();
+        }
+
+        @Override
+        public Class<?> valueType() {
+            return float[].class;
+        }
+    }
+
+    static class Base64FloatVectorWriter implements ValueWriter
+    {
+        @Override
+        public void writeValue(JSONWriter context, JsonGenerator g, Object value) throws IOException {
+            final float[] vector = (float[]) value;
+            final byte[] packed = new byte[vector.length << 2];
+            FloatPacking.packScalar(vector, packed);
+            g.writeBinary(packed);
+        }
+
+        @Override
+        public Class<?> valueType() {
+            return float[].class;
+        }
+    }
+}
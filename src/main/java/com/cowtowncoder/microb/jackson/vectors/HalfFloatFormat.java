@@ -0,0 +1,115 @@
+package com.cowtowncoder.microb.jackson.vectors;
+
+/**
+ * Enumeration of 16-bit floating-point formats supported by
+ * {@link Base64HalfFloatVectorSerializer} and {@link Base64HalfFloatVectorDeserializer}.
+ * Both are lossy: conversion from 32-bit {@code float} rounds to nearest (ties-to-even).
+ */
+public enum HalfFloatFormat
+{
+    /**
+     * IEEE 754 binary16: 5 exponent bits, 10 (explicit) significand bits.
+     * Relative error at most 2^-11 within normal range (about {@code 6.1e-5 .. 65504});
+     * values outside range overflow to Infinity or lose precision as subnormals.
+     */
+    FLOAT16 {
+        @Override
+        public int toBits(float f) {
+            return floatToFloat16Bits(f);
+        }
+
+        @Override
+        public float fromBits(int bits) {
+            return float16BitsToFloat(bits);
+        }
+    },
+
+    /**
+     * "Brain float": 8 exponent bits (same range as {@code float}),
+     * 7 (explicit) significand bits; relative error at most 2^-8.
+     */
+    BFLOAT16 {
+        @Override
+        public int toBits(float f) {
+            return floatToBFloat16Bits(f);
+        }
+
+        @Override
+        public float fromBits(int bits) {
+            return Float.intBitsToFloat(bits << 16);
+        }
+    };
+
+    /**
+     * @return 16-bit representation of given value (in lowest 16 bits of {@code int})
+     */
+    public abstract int toBits(float f);
+
+    /**
+     * @param bits 16-bit representation (in lowest 16 bits; higher bits ignored)
+     */
+    public abstract float fromBits(int bits);
+
+    // NOTE: JDK 20 added `Float.floatToFloat16()`, but we need to work on JDK 17
+
+    static int floatToFloat16Bits(float f)
+    {
+        final int bits = Float.floatToRawIntBits(f);
+        final int sign = (bits >>> 16) & 0x8000;
+        final int exp = (bits >>> 23) & 0xFF;
+        int mant = bits & 0x7FFFFF;
+
+        if (exp == 0xFF) { // Infinity or NaN (keep NaN quiet and non-zero)
+            return sign | 0x7C00 | ((mant == 0) ? 0 : (0x200 | (mant >>> 13)));
+        }
+        final int halfExp = exp - 127 + 15;
+        if (halfExp >= 0x1F) { // overflow
+            return sign | 0x7C00;
+        }
+        if (halfExp <= 0) { // subnormal (or underflow to zero)
+            if (halfExp < -10) {
+                return sign;
+            }
+            mant |= 0x800000; // implicit leading bit now explicit
+            final int shift = 14 - halfExp;
+            return sign | _roundToEven(mant >>> shift, mant & ((1 << shift) - 1), 1 << (shift - 1));
+        }
+        // Normal; note that rounding may carry into exponent, which is fine
+        // (and may legitimately produce Infinity)
+        return sign | _roundToEven((halfExp << 10) | (mant >>> 13), mant & 0x1FFF, 0x1000);
+    }
+
+    static float float16BitsToFloat(int h)
+    {
+        final int sign = (h & 0x8000) << 16;
+        final int exp = (h >>> 10) & 0x1F;
+        final int mant = h & 0x3FF;
+
+        if (exp == 0x1F) {
+            return Float.intBitsToFloat(sign | 0x7F800000 | (mant << 13));
+        }
+        if (exp == 0) {
+            // zero or subnormal: value is just mant * 2^-24
+            final float f = mant * 0x1.0p-24f;
+            return (sign == 0) ? f : -f;
+        }
+        return Float.intBitsToFloat(sign | ((exp + (127 - 15)) << 23) | (mant << 13));
+    }
+
+    static int floatToBFloat16Bits(float f)
+    {
+        final int bits = Float.floatToRawIntBits(f);
+        if ((bits & 0x7FFFFFFF) > 0x7F800000) { // NaN: truncate but keep it quiet
+            return (bits >>> 16) | 0x0040;
+        }
+        // Round to nearest even by adding half (less one, plus lowest kept bit)
+        return (bits + 0x7FFF + ((bits >>> 16) & 1)) >>> 16;
+    }
+
+    private static int _roundToEven(int truncated, int remainder, int halfway) {
+        if ((remainder > halfway) || ((remainder == halfway) && ((truncated & 1) != 0))) {
+            return truncated + 1;
+        }
+        return truncated;
+    }
+}
@@ -0,0 +1,57 @@
+package com.cowtowncoder.microb.jackson.vectors;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+
+/**
+ * Deserializer that decodes vectors (JSON Arrays of numbers) directly into
+ * an {@link OffHeapVectorStore} and returns index of the vector within store.
+ * Store must be passed as a per-call attribute with key {@link #ATTR_STORE},
+ * for example:
+ *<pre>
+ *  OffHeapVectorStore store = new OffHeapVectorStore();
+ *  Doc doc = mapper.readerFor(Doc.class)
+ *      .withAttribute(OffHeapVectorDeserializer.ATTR_STORE, store)
+ *      .readValue(json);
+ *</pre>
+ */
+public class OffHeapVectorDeserializer extends StdScalarDeserializer<Integer>
+{
+    private static final long serialVersionUID = 1L;
+
+    public final static String ATTR_STORE = "OffHeapVectorDeserializer.store";
+
+    public OffHeapVectorDeserializer() {
+        super(Integer.class);
+    }
+
+    @Override
+    public Integer deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        final OffHeapVectorStore store = (OffHeapVectorStore) ctxt.getAttribute(ATTR_STORE);
+        if (store == null) {
+            return (Integer) ctxt.reportBadDefinition(_valueClass,
+                    "No `OffHeapVectorStore` passed as attribute '"+ATTR_STORE+"'");
+        }
+        if (!p.isExpectedStartArrayToken()) {
+            return (Integer) ctxt.handleUnexpectedToken(_valueClass, p);
+        }
+        store.startVector();
+        JsonToken t;
+        try {
+            while ((t = p.nextToken()) != JsonToken.END_ARRAY) {
+                if (t != JsonToken.VALUE_NUMBER_FLOAT && t != JsonToken.VALUE_NUMBER_INT) {
+                    return (Integer) ctxt.handleUnexpectedToken(_valueClass, t, p,
+                            "Invalid content in vector Array: expected JSON Number, got: %s", t);
+                }
+                store.append(p.getFloatValue());
+            }
+            return store.finishVector();
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return (Integer) ctxt.reportInputMismatch(_valueClass, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.cowtowncoder.microb.jackson.vectors;
+
+import java.io.IOException;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.StreamReadFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.cowtowncoder.microb.jackson.model.HuggingFaceCohereScidocsQueries;
+import com.cowtowncoder.microb.jackson.model.InputData;
+import com.cowtowncoder.microb.jackson.model.InputJson;
+import com.cowtowncoder.microb.jackson.model.OffHeapScidocsQueries;
+import com.cowtowncoder.microb.util.HeapUsage;
+
+/**
+ * Test for comparing "{@code float[]} per document" model
+ * ({@link HuggingFaceCohereScidocsQueries}) with one where all embedding vectors
+ * are stored in contiguous off-heap region(s) ({@link OffHeapScidocsQueries},
+ * {@link OffHeapVectorStore}): both for load (deserialization) time and
+ * for sequential scan (dot product of all vectors against a query vector).
+ * Off-heap load reuses a single store (cleared for each operation), so that
+ * allocation of direct buffers is not included.
+ * Heap footprint of loaded documents is printed during set up.
+ *
+ * @author Tatu Saloranta
+ */
+@BenchmarkMode(Mode.Throughput)
+@State(Scope.Benchmark)
+//During dev, use lower; for real measurements, higher
+//@Fork(value = 1)
+@Fork(value = 3)
+@Measurement(iterations = 3, time = 3)
+@Warmup(iterations = 3, time = 1)
+public class OffHeapVectorLoading
+{
+    /*
+    /**********************************************************************
+    /* Constants
+    /**********************************************************************
+     */
+
+    private final InputData input = InputData.get(InputJson.HUGGING_FACE_QUERIES);
+
+    private final byte[] _serialized = input.serialized();
+
+    private final ObjectMapper JSON_MAPPER;
+    {
+        JsonFactory f = JsonFactory.builder()
+                .enable(StreamReadFeature.USE_FAST_DOUBLE_PARSER)
+                .build();
+        JSON_MAPPER = new JsonMapper(f);
+    }
+
+    private final ObjectReader ON_HEAP_READER = JSON_MAPPER.readerFor(HuggingFaceCohereScidocsQueries.class);
+
+    private final ObjectReader OFF_HEAP_READER = JSON_MAPPER.readerFor(OffHeapScidocsQueries.class);
+
+    // Pre-loaded documents for scan tests
+    private HuggingFaceCohereScidocsQueries _onHeapDoc;
+    private OffHeapScidocsQueries _offHeapDoc;
+    private OffHeapVectorStore _offHeapStore;
+
+    // Store reused (cleared) for load test
+    private OffHeapVectorStore _loadStore;
+
+    private float[] _query;
+
+    /*
+    /**********************************************************************
+    /* Set up
+    /**********************************************************************
+     */
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        long before = HeapUsage.usedHeap();
+        _onHeapDoc = _loadOnHeap();
+        long onHeapSize = HeapUsage.usedHeap() - before;
+
+        before = HeapUsage.usedHeap();
+        _offHeapStore = new OffHeapVectorStore();
+        _offHeapDoc = _loadOffHeap(_offHeapStore);
+        long offHeapSize = HeapUsage.usedHeap() - before;
+
+        _query = _onHeapDoc.data.get(0).emb.clone();
+        _loadStore = new OffHeapVectorStore();
+
+        System.out.println();
+        System.out.println("------------------");
+        System.out.printf("Documents: %d, vector dimension: %d%n",
+                _offHeapStore.size(), _offHeapStore.dimension());
+        System.out.printf("Heap used (float[] per doc):  ~%d kB%n", onHeapSize >> 10);
+        System.out.printf("Heap used (off-heap vectors): ~%d kB (+ %d kB off-heap)%n",
+                offHeapSize >> 10, _offHeapStore.capacityInBytes() >> 10);
+        System.out.println("------------------");
+    }
+
+    /*
+    /**********************************************************************
+    /* Test methods
+    /**********************************************************************
+     */
+
+    @Benchmark
+    public void loadFloatArrays(Blackhole bh) throws Exception {
+        bh.consume(_loadOnHeap());
+    }
+
+    @Benchmark
+    public void loadOffHeap(Blackhole bh) throws Exception {
+        final OffHeapVectorStore store = _loadStore;
+        store.clear();
+        bh.consume(_loadOffHeap(store));
+        bh.consume(store);
+    }
+
+    @Benchmark
+    public void scanFloatArrays(Blackhole bh) {
+        final float[] query = _query;
+        float best = Float.NEGATIVE_INFINITY;
+        for (HuggingFaceCohereScidocsQueries.Data d : _onHeapDoc.data) {
+            final float[] emb = d.emb;
+            final int len = Math.min(emb.length, query.length);
+            float sum = 0f;
+            for (int i = 0; i < len; ++i) {
+                sum += emb[i] * query[i];
+            }
+            best = Math.max(best, sum);
+        }
+        bh.consume(best);
+    }
+
+    @Benchmark
+    public void scanOffHeap(Blackhole bh) {
+        final OffHeapVectorStore store = _offHeapStore;
+        final float[] query = _query;
+        float best = Float.NEGATIVE_INFINITY;
+        for (OffHeapScidocsQueries.Data d : _offHeapDoc.data) {
+            best = Math.max(best, store.dot(d.emb, query));
+        }
+        bh.consume(best);
+    }
+
+    /*
+    /**********************************************************************
+    /* Helper methods
+    /**********************************************************************
+     */
+
+    private HuggingFaceCohereScidocsQueries _loadOnHeap() throws IOException {
+        return ON_HEAP_READER.readValue(_serialized);
+    }
+
+    private OffHeapScidocsQueries _loadOffHeap(OffHeapVectorStore store) throws IOException {
+        return OFF_HEAP_READER
+                .withAttribute(OffHeapVectorDeserializer.ATTR_STORE, store)
+                .readValue(_serialized);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options opt = new OptionsBuilder()
+                .include(OffHeapVectorLoading.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
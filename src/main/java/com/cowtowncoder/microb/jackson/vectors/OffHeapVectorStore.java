@@ -0,0 +1,292 @@
+package com.cowtowncoder.microb.jackson.vectors;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+/**
+ * Container for storing fixed-dimension float vectors off-heap, in direct
+ * {@link ByteBuffer}s ("segments"), addressed by vector index.
+ * Vectors are appended one float at a time (see {@link #startVector},
+ * {@link #append} and {@link #finishVector}), so that no {@code float[]}
+ * is needed for decoding.
+ *<p>
+ * Since a single {@link ByteBuffer} is limited to 2 GB, vectors are split
+ * across multiple segments of at most {@code maxSegmentCapacity} floats
+ * each; every vector is fully contained within a single segment.
+ * The first segment starts with given initial capacity and grows (by copying)
+ * up to the maximum; further segments are allocated with full capacity.
+ *<p>
+ * Not thread-safe for appends; reads are safe once loading is complete.
+ */
+public final class OffHeapVectorStore
+{
+    private final static int DEFAULT_INITIAL_CAPACITY = 64 * 1024; // in floats
+
+    /**
+     * Maximum number of floats a single direct {@link ByteBuffer} can hold
+     */
+    public final static int MAX_SEGMENT_CAPACITY = Integer.MAX_VALUE >> 2;
+
+    private final static int DEFAULT_SEGMENT_CAPACITY = 64 * 1024 * 1024; // in floats, 256 MB
+
+    private final int _maxSegmentCapacity;
+
+    /**
+     * Allocated segments: first {@link #_segmentCount} are in use, rest
+     * (if any) retained for reuse after {@link #clear}
+     */
+    private FloatBuffer[] _segments = new FloatBuffer[4];
+
+    private int _segmentCount;
+
+    /**
+     * Segment vectors are currently appended to (last one in use)
+     */
+    private FloatBuffer _current;
+
+    /**
+     * Dimension of vectors, determined by the first vector stored
+     */
+    private int _dimension = -1;
+
+    /**
+     * Number of vectors stored per segment; known once dimension is
+     */
+    private int _vectorsPerSegment;
+
+    private int _count;
+
+    /**
+     * Number of vectors completed in the current segment
+     */
+    private int _currentCount;
+
+    /**
+     * Number of floats appended for the vector being currently decoded
+     */
+    private int _pending;
+
+    public OffHeapVectorStore() {
+        this(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    /**
+     * @param initialCapacity Initial capacity, in floats
+     */
+    public OffHeapVectorStore(int initialCapacity) {
+        this(initialCapacity, DEFAULT_SEGMENT_CAPACITY);
+    }
+
+    /**
+     * @param initialCapacity Initial capacity, in floats
+     * @param maxSegmentCapacity Maximum capacity of a single segment, in floats;
+     *    at most {@link #MAX_SEGMENT_CAPACITY}
+     */
+    public OffHeapVectorStore(int initialCapacity, int maxSegmentCapacity) {
+        if (maxSegmentCapacity < 1 || maxSegmentCapacity > MAX_SEGMENT_CAPACITY) {
+            throw new IllegalArgumentException("Invalid maxSegmentCapacity ("+maxSegmentCapacity
+                    +"): must be between 1 and "+MAX_SEGMENT_CAPACITY);
+        }
+        _maxSegmentCapacity = maxSegmentCapacity;
+        _current = _allocate(Math.min(maxSegmentCapacity, Math.max(16, initialCapacity)));
+        _segments[0] = _current;
+        _segmentCount = 1;
+    }
+
+    /*
+    /**********************************************************************
+    /* Appending
+    /**********************************************************************
+     */
+
+    public void startVector() {
+        _pending = 0;
+    }
+
+    /**
+     * @throws IllegalArgumentException If vector being appended is longer than
+     *   previously stored vectors, and does not fit in the current segment; or
+     *   (for the first vector) does not fit in a single segment
+     */
+    public void append(float f) {
+        if (_dimension >= 0) {
+            // Reject overlong vectors before growing segment for them
+            if (_pending >= _dimension) {
+                _pending = 0;
+                throw new IllegalArgumentException("Vector dimension mismatch: expected "
+                        +_dimension+", got more");
+            }
+            if (_pending == 0 && _currentCount == _vectorsPerSegment) {
+                _nextSegment();
+            }
+        }
+        final int ix = _currentCount * Math.max(_dimension, 0) + _pending;
+        if (ix >= _current.capacity()) {
+            if (ix >= _maxSegmentCapacity) {
+                _pending = 0;
+                throw new IllegalArgumentException("Vector dimension too big: exceeds segment capacity of "
+                        +_maxSegmentCapacity+" floats");
+            }
+            _grow(ix + 1);
+        }
+        _current.put(ix, f);
+        ++_pending;
+    }
+
+    /**
+     * @return Index of the vector completed
+     *
+     * @throws IllegalArgumentException If dimension of the vector does not match
+     *   that of previously stored vectors
+     * @throws IllegalStateException If maximum number of vectors
+     *   ({@link Integer#MAX_VALUE}) already stored
+     */
+    public int finishVector() {
+        final int len = _pending;
+        _pending = 0;
+        if (_dimension < 0) {
+            _dimension = len;
+            _vectorsPerSegment = (len == 0) ? Integer.MAX_VALUE : (_maxSegmentCapacity / len);
+        } else if (len != _dimension) {
+            throw new IllegalArgumentException("Vector dimension mismatch: expected "
+                    +_dimension+", got "+len);
+        }
+        if (_count == Integer.MAX_VALUE) {
+            throw new IllegalStateException("Can not store more than "+Integer.MAX_VALUE+" vectors");
+        }
+        ++_currentCount;
+        return _count++;
+    }
+
+    public int add(float[] vector) {
+        startVector();
+        for (float f : vector) {
+            append(f);
+        }
+        return finishVector();
+    }
+
+    /**
+     * Method for removing all vectors (and resetting dimension), so that store
+     * can be reused: allocated off-heap memory is retained.
+     */
+    public void clear() {
+        _segmentCount = 1;
+        _current = _segments[0];
+        _dimension = -1;
+        _vectorsPerSegment = 0;
+        _count = 0;
+        _currentCount = 0;
+        _pending = 0;
+    }
+
+    /*
+    /**********************************************************************
+    /* Access
+    /**********************************************************************
+     */
+
+    public int size() { return _count; }
+
+    /**
+     * @return Dimension of stored vectors; {@code -1} if none yet stored
+     */
+    public int dimension() { return _dimension; }
+
+    /**
+     * @return Off-heap memory used (allocated, including segments retained
+     *   for reuse), in bytes
+     */
+    public long capacityInBytes() {
+        long total = 0L;
+        for (FloatBuffer segment : _segments) {
+            if (segment != null) {
+                total += ((long) segment.capacity()) << 2;
+            }
+        }
+        return total;
+    }
+
+    public float get(int vectorIndex, int i) {
+        return _segment(vectorIndex).get(_offset(vectorIndex) + i);
+    }
+
+    public float[] copyVector(int vectorIndex, float[] dst) {
+        _segment(vectorIndex).get(_offset(vectorIndex), dst, 0, _dimension);
+        return dst;
+    }
+
+    /**
+     * @return Read-only view of the vector; shares underlying storage
+     */
+    public FloatBuffer view(int vectorIndex) {
+        return _segment(vectorIndex).slice(_offset(vectorIndex), _dimension).asReadOnlyBuffer();
+    }
+
+    public float dot(int vectorIndex, float[] query) {
+        final FloatBuffer floats = _segment(vectorIndex);
+        final int len = Math.min(query.length, _dimension);
+        int offset = _offset(vectorIndex);
+        float sum = 0f;
+        for (int i = 0; i < len; ++i) {
+            sum += floats.get(offset++) * query[i];
+        }
+        return sum;
+    }
+
+    /*
+    /**********************************************************************
+    /* Internal methods
+    /**********************************************************************
+     */
+
+    private FloatBuffer _segment(int vectorIndex) {
+        if (vectorIndex < 0 || vectorIndex >= _count) {
+            throw new IndexOutOfBoundsException("Invalid vector index "+vectorIndex
+                    +": store has "+_count+" vectors");
+        }
+        return _segments[vectorIndex / _vectorsPerSegment];
+    }
+
+    // Offset within segment: can not overflow, as segment size is limited
+    private int _offset(int vectorIndex) {
+        return (vectorIndex % _vectorsPerSegment) * _dimension;
+    }
+
+    private static FloatBuffer _allocate(int floatCapacity) {
+        return ByteBuffer.allocateDirect(floatCapacity << 2)
+                .order(ByteOrder.nativeOrder())
+                .asFloatBuffer();
+    }
+
+    // Called when the current segment is full: full-size segments hold
+    // exactly `_vectorsPerSegment` vectors
+    private void _nextSegment() {
+        final int needed = _vectorsPerSegment * _dimension;
+        if (_segmentCount == _segments.length) {
+            _segments = Arrays.copyOf(_segments, _segmentCount << 1);
+        }
+        FloatBuffer segment = _segments[_segmentCount];
+        if (segment == null || segment.capacity() < needed) {
+            segment = _allocate(needed);
+            _segments[_segmentCount] = segment;
+        }
+        ++_segmentCount;
+        _current = segment;
+        _currentCount = 0;
+    }
+
+    private void _grow(int minCapacity) {
+        final FloatBuffer old = _current;
+        final int used = _currentCount * Math.max(_dimension, 0) + _pending;
+        long newCapacity = old.capacity();
+        while (newCapacity < minCapacity) {
+            newCapacity += (newCapacity >> 1);
+        }
+        _current = _allocate((int) Math.min(newCapacity, _maxSegmentCapacity));
+        _current.put(0, old, 0, used);
+        _segments[_segmentCount - 1] = _current;
+    }
+}
@@ -0,0 +1,36 @@
+package com.cowtowncoder.microb.jackson.vectors;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vector API ({@code jdk.incubator.vector}) based dot product: accumulates
+ * full lanes of preferred species width with fused multiply-add, reduces
+ * lanes at the end, and handles remaining tail one by one.
+ *<p>
+ * NOTE: class must only be accessed if module is available
+ * (see {@link FloatPacking#simdAvailable}).
+ */
+final class SimdDotProduct
+{
+    private final static VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    private SimdDotProduct() { }
+
+    public static float dot(float[] matrix, int offset, float[] v, int len) {
+        final int lanes = SPECIES.length();
+        final int bound = SPECIES.loopBound(len);
+        FloatVector acc = FloatVector.zero(SPECIES);
+        int i = 0;
+        for (; i < bound; i += lanes) {
+            acc = FloatVector.fromArray(SPECIES, matrix, offset + i)
+                    .fma(FloatVector.fromArray(SPECIES, v, i), acc);
+        }
+        float sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < len; ++i) {
+            sum += matrix[offset + i] * v[i];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,65 @@
+package com.cowtowncoder.microb.jackson.vectors;
+
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vector API ({@code jdk.incubator.vector}) based implementation of float
+ * packing/unpacking: processes full lanes of preferred species width with
+ * byte-array loads/stores (in given byte order), and remaining tail one by one.
+ * Like scalar packing ({@link Float#floatToIntBits}), writes all NaNs in
+ * their canonical form.
+ *<p>
+ * NOTE: uses {@code fromByteArray}/{@code intoByteArray} that only exist in
+ * JDK 17 and 18 incubator versions (JDK 19 replaced them with
+ * {@code MemorySegment} based methods); class must only be accessed if these
+ * are available (see {@link FloatPacking#simdPackingAvailable}).
+ */
+final class SimdFloatPacking
+{
+    private final static VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    private SimdFloatPacking() { }
+
+    public static void pack(float[] src, byte[] dst, ByteOrder order) {
+        final int vectorLen = src.length;
+        final int lanes = SPECIES.length();
+        final int bound = SPECIES.loopBound(vectorLen);
+        int i = 0;
+        for (; i < bound; i += lanes) {
+            FloatVector v = FloatVector.fromArray(SPECIES, src, i);
+            // Stores raw bits, so need to canonicalize NaNs first
+            v.blend(Float.NaN, v.test(VectorOperators.IS_NAN))
+                .intoByteArray(dst, i << 2, order);
+        }
+        // and then the tail, if any
+        final VarHandle vh = _varHandle(order);
+        for (; i < vectorLen; i++) {
+            final float f = src[i];
+            vh.set(dst, i << 2, Float.isNaN(f) ? Float.NaN : f);
+        }
+    }
+
+    public static void unpack(byte[] src, float[] dst, ByteOrder order) {
+        final int vectorLen = src.length >> 2;
+        final int lanes = SPECIES.length();
+        final int bound = SPECIES.loopBound(vectorLen);
+        int i = 0;
+        for (; i < bound; i += lanes) {
+            FloatVector.fromByteArray(SPECIES, src, i << 2, order)
+                .intoArray(dst, i);
+        }
+        final VarHandle vh = _varHandle(order);
+        for (; i < vectorLen; i++) {
+            dst[i] = (float) vh.get(src, i << 2);
+        }
+    }
+
+    private static VarHandle _varHandle(ByteOrder order) {
+        return (order == ByteOrder.BIG_ENDIAN) ? FloatPacking.VH_BIG_ENDIAN : FloatPacking.VH_LITTLE_ENDIAN;
+    }
+}
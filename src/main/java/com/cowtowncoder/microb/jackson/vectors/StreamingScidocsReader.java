@@ -0,0 +1,118 @@
+package com.cowtowncoder.microb.jackson.vectors;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.cowtowncoder.microb.jackson.model.HuggingFaceCohereScidocsQueries;
+
+/**
+ * Streaming alternative to reading whole {@link HuggingFaceCohereScidocsQueries}
+ * document: iterates over elements of the top-level {@code data} array one
+ * {@link HuggingFaceCohereScidocsQueries.Data} at a time, so that memory usage
+ * does not depend on document size (as long as caller does not retain elements).
+ * Top-level properties other than {@code data} are skipped.
+ *<p>
+ * Usage:
+ *<pre>
+ *  try (StreamingScidocsReader r = StreamingScidocsReader.open(mapper, in)) {
+ *      while (r.hasNext()) {
+ *          HuggingFaceCohereScidocsQueries.Data d = r.next();
+ *          // ... process
+ *      }
+ *  }
+ *</pre>
+ */
+public class StreamingScidocsReader
+    implements Iterator<HuggingFaceCohereScidocsQueries.Data>, Closeable
+{
+    private final static String PROP_DATA = "data";
+
+    private final JsonParser _parser;
+
+    /**
+     * Iterator over {@code data} elements; {@code null} if there is no
+     * (non-empty) {@code data} array
+     */
+    private final MappingIterator<HuggingFaceCohereScidocsQueries.Data> _iterator;
+
+    protected StreamingScidocsReader(JsonParser p,
+            MappingIterator<HuggingFaceCohereScidocsQueries.Data> it) {
+        _parser = p;
+        _iterator = it;
+    }
+
+    /**
+     * Factory method for constructing reader over given input; parser is
+     * positioned at the first element of {@code data} array before returning.
+     * Input will be closed when reader is closed.
+     */
+    public static StreamingScidocsReader open(ObjectMapper mapper, InputStream in)
+        throws IOException
+    {
+        JsonParser p = mapper.createParser(in);
+        try {
+            return new StreamingScidocsReader(p, _positionAtData(mapper, p));
+        } catch (IOException e) {
+            p.close();
+            throw e;
+        }
+    }
+
+    private static MappingIterator<HuggingFaceCohereScidocsQueries.Data> _positionAtData(ObjectMapper mapper,
+            JsonParser p) throws IOException
+    {
+        if (p.nextToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(p, "Expected START_OBJECT, got: "+p.currentToken());
+        }
+        String name;
+        while ((name = p.nextFieldName()) != null) {
+            JsonToken t = p.nextToken();
+            if (PROP_DATA.equals(name)) {
+                if (t == JsonToken.VALUE_NULL) {
+                    return null;
+                }
+                if (t != JsonToken.START_ARRAY) {
+                    throw new JsonParseException(p, "Expected START_ARRAY for \"data\", got: "+t);
+                }
+                // Need to point to the first element (if any) for MappingIterator to
+                // consider enclosing Array as the sequence to iterate over
+                if (p.nextToken() == JsonToken.END_ARRAY) {
+                    return null;
+                }
+                return mapper.readerFor(HuggingFaceCohereScidocsQueries.Data.class)
+                        .readValues(p);
+            }
+            p.skipChildren();
+        }
+        return null;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return (_iterator != null) && _iterator.hasNext();
+    }
+
+    @Override
+    public HuggingFaceCohereScidocsQueries.Data next() {
+        if (_iterator == null) {
+            throw new NoSuchElementException();
+        }
+        return _iterator.next();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (_iterator != null) {
+            _iterator.close();
+        }
+        _parser.close();
+    }
+}
@@ -0,0 +1,107 @@
+package com.cowtowncoder.microb.jackson.vectors;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.StreamReadFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.cowtowncoder.microb.jackson.model.HuggingFaceCohereScidocsQueries;
+import com.cowtowncoder.microb.jackson.model.InputData;
+import com.cowtowncoder.microb.jackson.model.InputJson;
+import com.cowtowncoder.microb.util.HeapUsage;
+
+/**
+ * Test for comparing full-document deserialization of
+ * {@link HuggingFaceCohereScidocsQueries} with streaming, one-element-at-a-time
+ * processing using {@link StreamingScidocsReader}. Both compute the same
+ * (trivial) aggregate over vectors, to make workloads comparable.
+ * Approximate heap usage of both approaches is printed during set up.
+ *
+ * @author Tatu Saloranta
+ */
+@BenchmarkMode(Mode.Throughput)
+@State(Scope.Benchmark)
+//During dev, use lower; for real measurements, higher
+//@Fork(value = 1)
+@Fork(value = 3)
+@Measurement(iterations = 3, time = 3)
+@Warmup(iterations = 3, time = 1)
+public class StreamingVectorReading
+{
+    private final byte[] _serialized = InputData.get(InputJson.HUGGING_FACE_QUERIES).serialized();
+
+    private final ObjectMapper JSON_MAPPER;
+    {
+        JsonFactory f = JsonFactory.builder()
+                .enable(StreamReadFeature.USE_FAST_DOUBLE_PARSER)
+                .build();
+        JSON_MAPPER = new JsonMapper(f);
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        final long fullSize = HeapUsage.retainedPerValue(1, () -> JSON_MAPPER.readValue(_serialized,
+                HuggingFaceCohereScidocsQueries.class));
+        final long streamingSize = _maxStreamingGrowth();
+        System.out.println();
+        System.out.println("------------------");
+        System.out.printf("Heap used by full document: ~%d kB; max growth while streaming: ~%d kB%n",
+                fullSize >> 10, streamingSize >> 10);
+        System.out.println("------------------");
+    }
+
+    @Benchmark
+    public void fullDocumentRead(Blackhole bh) throws Exception {
+        HuggingFaceCohereScidocsQueries doc = JSON_MAPPER.readValue(new ByteArrayInputStream(_serialized),
+                HuggingFaceCohereScidocsQueries.class);
+        double sum = 0.0;
+        for (HuggingFaceCohereScidocsQueries.Data d : doc.data) {
+            sum += d.emb[0];
+        }
+        bh.consume(sum);
+    }
+
+    @Benchmark
+    public void streamingRead(Blackhole bh) throws Exception {
+        double sum = 0.0;
+        try (StreamingScidocsReader r = StreamingScidocsReader.open(JSON_MAPPER,
+                new ByteArrayInputStream(_serialized))) {
+            while (r.hasNext()) {
+                sum += r.next().emb[0];
+            }
+        }
+        bh.consume(sum);
+    }
+
+    // Samples heap usage a few times while streaming (without retaining elements)
+    private long _maxStreamingGrowth() throws IOException {
+        final long before = HeapUsage.usedHeap();
+        long maxUsed = before;
+        int count = 0;
+        try (StreamingScidocsReader r = StreamingScidocsReader.open(JSON_MAPPER,
+                new ByteArrayInputStream(_serialized))) {
+            while (r.hasNext()) {
+                r.next();
+                if ((++count % 250) == 0) {
+                    maxUsed = Math.max(maxUsed, HeapUsage.usedHeap());
+                }
+            }
+        }
+        return maxUsed - before;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options opt = new OptionsBuilder()
+                .include(StreamingVectorReading.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
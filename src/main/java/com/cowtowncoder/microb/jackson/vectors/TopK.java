@@ -0,0 +1,120 @@
+package com.cowtowncoder.microb.jackson.vectors;
+
+import java.util.Arrays;
+
+/**
+ * Collector of the {@code k} highest-scoring rows, using a fixed-size
+ * min-heap (over parallel primitive arrays) so that each candidate that
+ * does not make the cut costs a single comparison.
+ * Not thread-safe: for parallel search, collect per-partition instances and
+ * {@link #merge} them.
+ */
+public final class TopK
+{
+    private final int[] _rows;
+    private final float[] _scores;
+    private int _size;
+
+    public TopK(int k) {
+        if (k < 1) {
+            throw new IllegalArgumentException("k must be positive, got: "+k);
+        }
+        _rows = new int[k];
+        _scores = new float[k];
+    }
+
+    public int size() {
+        return _size;
+    }
+
+    /**
+     * @return Lowest score currently retained, if collector is full;
+     *    {@link Float#NEGATIVE_INFINITY} otherwise
+     */
+    public float threshold() {
+        return (_size < _rows.length) ? Float.NEGATIVE_INFINITY : _scores[0];
+    }
+
+    public void offer(int row, float score) {
+        if (_size < _rows.length) {
+            int i = _size++;
+            _rows[i] = row;
+            _scores[i] = score;
+            _siftUp(i);
+        } else if (score > _scores[0]) {
+            _rows[0] = row;
+            _scores[0] = score;
+            _siftDown(0);
+        }
+    }
+
+    public TopK merge(TopK other) {
+        for (int i = 0; i < other._size; ++i) {
+            offer(other._rows[i], other._scores[i]);
+        }
+        return this;
+    }
+
+    /**
+     * @return Rows retained, ordered by descending score (and by ascending
+     *    row index for equal scores)
+     */
+    public int[] sortedRows() {
+        Integer[] order = new Integer[_size];
+        for (int i = 0; i < _size; ++i) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> {
+            int diff = Float.compare(_scores[b], _scores[a]);
+            return (diff != 0) ? diff : Integer.compare(_rows[a], _rows[b]);
+        });
+        int[] result = new int[_size];
+        for (int i = 0; i < _size; ++i) {
+            result[i] = _rows[order[i]];
+        }
+        return result;
+    }
+
+    /*
+    /**********************************************************************
+    /* Heap maintenance
+    /**********************************************************************
+     */
+
+    private void _siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >> 1;
+            if (_scores[parent] <= _scores[i]) {
+                break;
+            }
+            _swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void _siftDown(int i) {
+        while (true) {
+            int child = (i << 1) + 1;
+            if (child >= _size) {
+                break;
+            }
+            if (child + 1 < _size && _scores[child + 1] < _scores[child]) {
+                ++child;
+            }
+            if (_scores[i] <= _scores[child]) {
+                break;
+            }
+            _swap(i, child);
+            i = child;
+        }
+    }
+
+    private void _swap(int a, int b) {
+        int row = _rows[a];
+        _rows[a] = _rows[b];
+        _rows[b] = row;
+        float score = _scores[a];
+        _scores[a] = _scores[b];
+        _scores[b] = score;
+    }
+}
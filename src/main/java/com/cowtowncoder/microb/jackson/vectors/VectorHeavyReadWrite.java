@@ -4,6 +4,7 @@ import java.io.*;
 
 import org.openjdk.jmh.annotations.*;
 import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
 import org.openjdk.jmh.runner.Runner;
 import org.openjdk.jmh.runner.options.Options;
 import org.openjdk.jmh.runner.options.OptionsBuilder;
@@ -14,6 +15,11 @@ import com.fasterxml.jackson.core.StreamWriteFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.json.JsonMapper;
 import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.fasterxml.jackson.jr.ob.JSON;
 import com.cowtowncoder.microb.jackson.model.HuggingFaceCohereScidocsQueries;
 import com.cowtowncoder.microb.jackson.model.InputData;
 import com.cowtowncoder.microb.jackson.model.InputJson;
@@ -22,7 +28,11 @@ import com.cowtowncoder.microb.util.NopOutputStream;
 /**
  * Test for measuring parsing performance of reading and/or writing
  * JSON content with mostly floating-point content (big {@code float[]} values)
- * with and without FP-optimizations.
+ * with and without FP-optimizations; as well as same content as
+ * binary formats (Smile, CBOR); and using jackson-jr instead of databind.
+ *<p>
+ * For allocation rates, run with GC profiler ({@code -prof gc}) and
+ * check {@code gc.alloc.rate.norm} (bytes/op).
  *
  * @author Tatu Saloranta
  */
@@ -30,7 +40,8 @@ import com.cowtowncoder.microb.util.NopOutputStream;
 @State(Scope.Benchmark)
 //During dev, use lower; for real measurements, higher
 //@Fork(value = 1)
-@Fork(value = 3)
+// Vector API needs to be explicitly enabled for SIMD variants
+@Fork(value = 3, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
 @Measurement(iterations = 3, time = 3)
 @Warmup(iterations = 3, time = 1)
 public class VectorHeavyReadWrite
@@ -69,13 +80,94 @@ public class VectorHeavyReadWrite
                 .build();
     }
 
+    // As well as variant that uses Vector API (SIMD) for packing/unpacking
+    private final ObjectMapper JSON_MAPPER_BASE64_SIMD;
+    {
+        SimpleModule mod = new SimpleModule()
+            .addDeserializer(float[].class, new Base64FloatVectorDeserializer(true))
+            .addSerializer(float[].class, new Base64FloatVectorSerializer(true));
+        JSON_MAPPER_BASE64_SIMD = JsonMapper.builder()
+                .addModule(mod)
+                .build();
+    }
+
+    // Variant that decodes Base64 directly into `float[]` (no intermediate `byte[]`)
+    private final ObjectMapper JSON_MAPPER_BASE64_DIRECT;
+    {
+        SimpleModule mod = new SimpleModule()
+            .addDeserializer(float[].class, new Base64FloatVectorDeserializer(false, true))
+            .addSerializer(float[].class, new Base64FloatVectorSerializer());
+        JSON_MAPPER_BASE64_DIRECT = JsonMapper.builder()
+                .addModule(mod)
+                .build();
+    }
+
+    // Variants that avoid allocating `byte[]` per vector on serialization
+    private final ObjectMapper JSON_MAPPER_BASE64_REUSED_BUFFER
+        = _base64Mapper(Base64FloatVectorSerializer.OutputMode.REUSED_BUFFER);
+    private final ObjectMapper JSON_MAPPER_BASE64_STREAMED
+        = _base64Mapper(Base64FloatVectorSerializer.OutputMode.STREAMED);
+
+    // Lossy 16-bit ("half-precision") variants of Binary Vectors
+    private final ObjectMapper JSON_MAPPER_FLOAT16 = _halfFloatMapper(HalfFloatFormat.FLOAT16);
+    private final ObjectMapper JSON_MAPPER_BFLOAT16 = _halfFloatMapper(HalfFloatFormat.BFLOAT16);
+
+    // Lossy 8-bit scalar-quantized variant of Binary Vectors
+    private final ObjectMapper JSON_MAPPER_INT8;
+    {
+        SimpleModule mod = new SimpleModule()
+            .addDeserializer(float[].class, new Base64Int8VectorDeserializer())
+            .addSerializer(float[].class, new Base64Int8VectorSerializer());
+        JSON_MAPPER_INT8 = JsonMapper.builder()
+                .addModule(mod)
+                .build();
+    }
+
+    // Binary formats: first with "native" float handling (Smile: 5-byte 7-bit
+    // encoded floats; CBOR: 4-byte IEEE floats)
+    private final ObjectMapper SMILE_MAPPER = new SmileMapper();
+    private final ObjectMapper CBOR_MAPPER = new CBORMapper();
+
+    // and then with "Binary Vectors" (packed floats as raw binary, no Base64)
+    private final ObjectMapper SMILE_MAPPER_BINARY;
+    {
+        SmileFactory f = SmileFactory.builder()
+                .disable(SmileGenerator.Feature.ENCODE_BINARY_AS_7BIT)
+                .build();
+        SMILE_MAPPER_BINARY = SmileMapper.builder(f)
+                .addModule(_base64Module())
+                .build();
+    }
+
+    private final ObjectMapper CBOR_MAPPER_BINARY = CBORMapper.builder()
+            .addModule(_base64Module())
+            .build();
+
+    // Jackson-jr, with `float[]` support (as JSON Array or Binary Vector) via extension
+    private final JSON JR_ARRAY = FloatVectorJrExtension.builder(false).build();
+    private final JSON JR_BASE64 = FloatVectorJrExtension.builder(true).build();
+
     // One other thing: since "Binary Vector" is a special case, we need
     // to generate different "serialized" representation.
 
     private final byte[] _serializedBase64;
+    private final byte[] _serializedFloat16;
+    private final byte[] _serializedBFloat16;
+    private final byte[] _serializedInt8;
+    private final byte[] _serializedSmile;
+    private final byte[] _serializedSmileBinary;
+    private final byte[] _serializedCbor;
+    private final byte[] _serializedCborBinary;
     {
         try {
             _serializedBase64 = JSON_MAPPER_BASE64.writeValueAsBytes(_deserialized);
+            _serializedFloat16 = JSON_MAPPER_FLOAT16.writeValueAsBytes(_deserialized);
+            _serializedBFloat16 = JSON_MAPPER_BFLOAT16.writeValueAsBytes(_deserialized);
+            _serializedInt8 = JSON_MAPPER_INT8.writeValueAsBytes(_deserialized);
+            _serializedSmile = SMILE_MAPPER.writeValueAsBytes(_deserialized);
+            _serializedSmileBinary = SMILE_MAPPER_BINARY.writeValueAsBytes(_deserialized);
+            _serializedCbor = CBOR_MAPPER.writeValueAsBytes(_deserialized);
+            _serializedCborBinary = CBOR_MAPPER_BINARY.writeValueAsBytes(_deserialized);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -95,6 +187,17 @@ public class VectorHeavyReadWrite
         System.out.printf(" (%d docs; vector length: %d)%n", _deserialized.data.size(),
                 _deserialized.data.get(0).emb.length);
         System.out.printf("Input length (base64): %d%n", _serializedBase64.length);
+        System.out.printf("Input length (float16): %d%n", _serializedFloat16.length);
+        System.out.printf("Input length (bfloat16): %d%n", _serializedBFloat16.length);
+        System.out.printf("Input length (int8): %d%n", _serializedInt8.length);
+        System.out.printf("Input length (smile): %d%n", _serializedSmile.length);
+        System.out.printf("Input length (smile, binary): %d%n", _serializedSmileBinary.length);
+        System.out.printf("Input length (cbor): %d%n", _serializedCbor.length);
+        System.out.printf("Input length (cbor, binary): %d%n", _serializedCborBinary.length);
+        _printReconstructionError("float16", JSON_MAPPER_FLOAT16, _serializedFloat16);
+        _printReconstructionError("bfloat16", JSON_MAPPER_BFLOAT16, _serializedBFloat16);
+        _printReconstructionError("int8", JSON_MAPPER_INT8, _serializedInt8);
+        System.out.printf(" (SIMD packing available: %s)%n", FloatPacking.simdPackingAvailable());
         System.out.println("------------------");
     }
     
@@ -163,13 +266,294 @@ public class VectorHeavyReadWrite
         Object doc = _readWriteUsing(JSON_MAPPER_BASE64, _serializedBase64);
         bh.consume(doc);
     }
+
+    // Base64 deserializer reading "legacy" Vector-as-array content: compare
+    // to "defaultRead" (vanilla databind `float[]` handling)
+
+    @Benchmark
+    public void base64ArrayRead(Blackhole bh) throws Exception {
+        Object doc = _readUsing(JSON_MAPPER_BASE64, _serialized);
+        bh.consume(doc);
+    }
+
+    // Base64/SIMD: same as Base64 but packing using Vector API
+
+    @Benchmark
+    public void base64SimdRead(Blackhole bh) throws Exception {
+        Object doc = _readUsing(JSON_MAPPER_BASE64_SIMD, _serializedBase64);
+        bh.consume(doc);
+    }
+
+    @Benchmark
+    public void base64SimdWrite(Blackhole bh) throws Exception {
+        int len = _writeUsing(JSON_MAPPER_BASE64_SIMD);
+        bh.consume(len);
+    }
+
+    @Benchmark
+    public void base64SimdWriteAndRead(Blackhole bh) throws Exception {
+        Object doc = _readWriteUsing(JSON_MAPPER_BASE64_SIMD, _serializedBase64);
+        bh.consume(doc);
+    }
     
+    // Base64/direct: decoding directly into `float[]`; mostly interesting
+    // for allocation rate (`gc.alloc.rate.norm` with GC profiler) compared to `base64Read`
+
+    @Benchmark
+    public void base64DirectRead(Blackhole bh) throws Exception {
+        Object doc = _readUsing(JSON_MAPPER_BASE64_DIRECT, _serializedBase64);
+        bh.consume(doc);
+    }
+
+    // Base64 with reused/streamed output; mostly interesting for allocation
+    // rate (`gc.alloc.rate.norm` with GC profiler) compared to `base64Write`
+
+    @Benchmark
+    public void base64ReusedBufferWrite(Blackhole bh) throws Exception {
+        int len = _writeUsing(JSON_MAPPER_BASE64_REUSED_BUFFER);
+        bh.consume(len);
+    }
+
+    @Benchmark
+    public void base64StreamedWrite(Blackhole bh) throws Exception {
+        int len = _writeUsing(JSON_MAPPER_BASE64_STREAMED);
+        bh.consume(len);
+    }
+
+    // Float16: Vector as Base64 packed IEEE binary16 (lossy)
+
+    @Benchmark
+    public void float16Read(Blackhole bh) throws Exception {
+        Object doc = _readUsing(JSON_MAPPER_FLOAT16, _serializedFloat16);
+        bh.consume(doc);
+    }
+
+    @Benchmark
+    public void float16Write(Blackhole bh) throws Exception {
+        int len = _writeUsing(JSON_MAPPER_FLOAT16);
+        bh.consume(len);
+    }
+
+    @Benchmark
+    public void float16WriteAndRead(Blackhole bh) throws Exception {
+        Object doc = _readWriteUsing(JSON_MAPPER_FLOAT16, _serializedFloat16);
+        bh.consume(doc);
+    }
+
+    // BFloat16: Vector as Base64 packed "brain float" (lossy)
+
+    @Benchmark
+    public void bfloat16Read(Blackhole bh) throws Exception {
+        Object doc = _readUsing(JSON_MAPPER_BFLOAT16, _serializedBFloat16);
+        bh.consume(doc);
+    }
+
+    @Benchmark
+    public void bfloat16Write(Blackhole bh) throws Exception {
+        int len = _writeUsing(JSON_MAPPER_BFLOAT16);
+        bh.consume(len);
+    }
+
+    @Benchmark
+    public void bfloat16WriteAndRead(Blackhole bh) throws Exception {
+        Object doc = _readWriteUsing(JSON_MAPPER_BFLOAT16, _serializedBFloat16);
+        bh.consume(doc);
+    }
+
+    // Int8: Vector as Base64 packed 8-bit quantized codes (lossy)
+
+    @Benchmark
+    public void int8Read(Blackhole bh) throws Exception {
+        Object doc = _readUsing(JSON_MAPPER_INT8, _serializedInt8);
+        bh.consume(doc);
+    }
+
+    @Benchmark
+    public void int8Write(Blackhole bh) throws Exception {
+        int len = _writeUsing(JSON_MAPPER_INT8);
+        bh.consume(len);
+    }
+
+    @Benchmark
+    public void int8WriteAndRead(Blackhole bh) throws Exception {
+        Object doc = _readWriteUsing(JSON_MAPPER_INT8, _serializedInt8);
+        bh.consume(doc);
+    }
+
+    // Smile: Vector as array of floats
+
+    @Benchmark
+    public void smileRead(Blackhole bh) throws Exception {
+        Object doc = _readUsing(SMILE_MAPPER, _serializedSmile);
+        bh.consume(doc);
+    }
+
+    @Benchmark
+    public void smileWrite(Blackhole bh) throws Exception {
+        int len = _writeUsing(SMILE_MAPPER);
+        bh.consume(len);
+    }
+
+    @Benchmark
+    public void smileWriteAndRead(Blackhole bh) throws Exception {
+        Object doc = _readWriteUsing(SMILE_MAPPER, _serializedSmile);
+        bh.consume(doc);
+    }
+
+    // Smile/binary: Vector as raw packed binary
+
+    @Benchmark
+    public void smileBinaryRead(Blackhole bh) throws Exception {
+        Object doc = _readUsing(SMILE_MAPPER_BINARY, _serializedSmileBinary);
+        bh.consume(doc);
+    }
+
+    @Benchmark
+    public void smileBinaryWrite(Blackhole bh) throws Exception {
+        int len = _writeUsing(SMILE_MAPPER_BINARY);
+        bh.consume(len);
+    }
+
+    @Benchmark
+    public void smileBinaryWriteAndRead(Blackhole bh) throws Exception {
+        Object doc = _readWriteUsing(SMILE_MAPPER_BINARY, _serializedSmileBinary);
+        bh.consume(doc);
+    }
+
+    // CBOR: Vector as array of floats
+
+    @Benchmark
+    public void cborRead(Blackhole bh) throws Exception {
+        Object doc = _readUsing(CBOR_MAPPER, _serializedCbor);
+        bh.consume(doc);
+    }
+
+    @Benchmark
+    public void cborWrite(Blackhole bh) throws Exception {
+        int len = _writeUsing(CBOR_MAPPER);
+        bh.consume(len);
+    }
+
+    @Benchmark
+    public void cborWriteAndRead(Blackhole bh) throws Exception {
+        Object doc = _readWriteUsing(CBOR_MAPPER, _serializedCbor);
+        bh.consume(doc);
+    }
+
+    // CBOR/binary: Vector as raw packed binary
+
+    @Benchmark
+    public void cborBinaryRead(Blackhole bh) throws Exception {
+        Object doc = _readUsing(CBOR_MAPPER_BINARY, _serializedCborBinary);
+        bh.consume(doc);
+    }
+
+    @Benchmark
+    public void cborBinaryWrite(Blackhole bh) throws Exception {
+        int len = _writeUsing(CBOR_MAPPER_BINARY);
+        bh.consume(len);
+    }
+
+    @Benchmark
+    public void cborBinaryWriteAndRead(Blackhole bh) throws Exception {
+        Object doc = _readWriteUsing(CBOR_MAPPER_BINARY, _serializedCborBinary);
+        bh.consume(doc);
+    }
+
+    // Jackson-jr: Vector as array
+
+    @Benchmark
+    public void jrRead(Blackhole bh) throws Exception {
+        Object doc = _readUsing(JR_ARRAY, _serialized);
+        bh.consume(doc);
+    }
+
+    @Benchmark
+    public void jrWrite(Blackhole bh) throws Exception {
+        int len = _writeUsing(JR_ARRAY);
+        bh.consume(len);
+    }
+
+    @Benchmark
+    public void jrWriteAndRead(Blackhole bh) throws Exception {
+        Object doc = _readWriteUsing(JR_ARRAY, _serialized);
+        bh.consume(doc);
+    }
+
+    // Jackson-jr/Base64: Vector as Base64 packed binary
+
+    @Benchmark
+    public void jrBase64Read(Blackhole bh) throws Exception {
+        Object doc = _readUsing(JR_BASE64, _serializedBase64);
+        bh.consume(doc);
+    }
+
+    @Benchmark
+    public void jrBase64Write(Blackhole bh) throws Exception {
+        int len = _writeUsing(JR_BASE64);
+        bh.consume(len);
+    }
+
+    @Benchmark
+    public void jrBase64WriteAndRead(Blackhole bh) throws Exception {
+        Object doc = _readWriteUsing(JR_BASE64, _serializedBase64);
+        bh.consume(doc);
+    }
+
     /*
     /**********************************************************************
     /* Helper methods
     /**********************************************************************
      */
 
+    private static SimpleModule _base64Module() {
+        return new SimpleModule()
+                .addDeserializer(float[].class, new Base64FloatVectorDeserializer())
+                .addSerializer(float[].class, new Base64FloatVectorSerializer());
+    }
+
+    // Compares vectors decoded from lossy representation to original ones
+    private void _printReconstructionError(String desc, ObjectMapper mapper, byte[] serialized) {
+        HuggingFaceCohereScidocsQueries lossy;
+        try {
+            lossy = mapper.readValue(serialized, HuggingFaceCohereScidocsQueries.class);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        double maxError = 0.0, totalError = 0.0;
+        long count = 0;
+        for (int i = 0, end = _deserialized.data.size(); i < end; ++i) {
+            final float[] exp = _deserialized.data.get(i).emb;
+            final float[] act = lossy.data.get(i).emb;
+            for (int j = 0; j < exp.length; ++j) {
+                double error = Math.abs(exp[j] - act[j]);
+                maxError = Math.max(maxError, error);
+                totalError += error;
+            }
+            count += exp.length;
+        }
+        System.out.printf("Reconstruction error (%s): max %.3g, mean %.3g%n",
+                desc, maxError, totalError / count);
+    }
+
+    private static ObjectMapper _base64Mapper(Base64FloatVectorSerializer.OutputMode outputMode) {
+        SimpleModule mod = new SimpleModule()
+                .addDeserializer(float[].class, new Base64FloatVectorDeserializer())
+                .addSerializer(float[].class, new Base64FloatVectorSerializer(false, outputMode));
+        return JsonMapper.builder()
+                .addModule(mod)
+                .build();
+    }
+
+    private static ObjectMapper _halfFloatMapper(HalfFloatFormat format) {
+        SimpleModule mod = new SimpleModule()
+                .addDeserializer(float[].class, new Base64HalfFloatVectorDeserializer(format))
+                .addSerializer(float[].class, new Base64HalfFloatVectorSerializer(format));
+        return JsonMapper.builder()
+                .addModule(mod)
+                .build();
+    }
+
     private Object _readUsing(ObjectMapper mapper, byte[] serialized) throws IOException {
         return mapper.readValue(serialized, HuggingFaceCohereScidocsQueries.class);
     }
@@ -186,6 +570,23 @@ public class VectorHeavyReadWrite
         /*int len =*/ _writeUsing(mapper);
         return doc;
     }
+
+    private Object _readUsing(JSON json, byte[] serialized) throws IOException {
+        return json.beanFrom(HuggingFaceCohereScidocsQueries.class, serialized);
+    }
+
+    private int _writeUsing(JSON json) throws IOException {
+        try (NopOutputStream out = new NopOutputStream()) {
+            json.write(_deserialized, out);
+            return out.size();
+        }
+    }
+
+    private Object _readWriteUsing(JSON json, byte[] serialized) throws IOException {
+        Object doc = _readUsing(json, serialized);
+        /*int len =*/ _writeUsing(json);
+        return doc;
+    }
     
     /*
     /**********************************************************************
@@ -196,6 +597,8 @@ public class VectorHeavyReadWrite
     public static void main(String[] args) throws Exception {
         Options opt = new OptionsBuilder()
                 .include(VectorHeavyReadWrite.class.getSimpleName())
+                // to get allocation rate (bytes/op) as well
+                .addProfiler(GCProfiler.class)
                 .build();
         new Runner(opt).run();
     }
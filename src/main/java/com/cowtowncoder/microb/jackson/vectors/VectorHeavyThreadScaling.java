@@ -0,0 +1,215 @@
+package com.cowtowncoder.microb.jackson.vectors;
+
+import java.io.IOException;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.cowtowncoder.microb.jackson.model.HuggingFaceCohereScidocsQueries;
+import com.cowtowncoder.microb.jackson.model.InputData;
+import com.cowtowncoder.microb.jackson.model.InputJson;
+import com.cowtowncoder.microb.util.NopOutputStream;
+
+/**
+ * Multi-threaded variant of {@link VectorHeavyReadWrite}, for comparing
+ * scaling of
+ *<ul>
+ * <li>a single {@code ObjectMapper} shared by all threads
+ *  </li>
+ * <li>per-thread {@code ObjectReader}s/{@code ObjectWriter}s (created from
+ *   shared mapper so they share serializer/deserializer caches)
+ *  </li>
+ * <li>per-thread {@code ObjectMapper}s (nothing shared)
+ *  </li>
+ *</ul>
+ * as well as mixed read/write workloads (thread groups) against shared vs
+ * per-thread mappers.
+ *<p>
+ * Thread count is not a JMH parameter, so {@link #main} runs the suite
+ * with 1, 2, 4, ... up to N threads (N given as argument; defaults to
+ * number of available processors). When running via {@code microbenchmarks.jar},
+ * use {@code -t} instead.
+ *
+ * @author Tatu Saloranta
+ */
+@BenchmarkMode(Mode.Throughput)
+//During dev, use lower; for real measurements, higher
+//@Fork(value = 1)
+@Fork(value = 3)
+@Measurement(iterations = 3, time = 3)
+@Warmup(iterations = 3, time = 1)
+public class VectorHeavyThreadScaling
+{
+    /*
+    /**********************************************************************
+    /* State
+    /**********************************************************************
+     */
+
+    /**
+     * State shared by all threads: input and the shared mapper
+     */
+    @State(Scope.Benchmark)
+    public static class Shared
+    {
+        /**
+         * Whether vectors are handled as regular JSON Arrays ("ARRAY")
+         * or as Base64-encoded packed floats ("BASE64")
+         */
+        @Param({ "ARRAY", "BASE64" })
+        public String vectorsAs;
+
+        HuggingFaceCohereScidocsQueries deserialized;
+        byte[] serialized;
+        ObjectMapper mapper;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            deserialized = InputData.get(InputJson.HUGGING_FACE_QUERIES).deserialized();
+            mapper = createMapper();
+            serialized = mapper.writeValueAsBytes(deserialized);
+        }
+
+        ObjectMapper createMapper() {
+            JsonMapper.Builder b = JsonMapper.builder();
+            if ("BASE64".equals(vectorsAs)) {
+                b = b.addModule(new SimpleModule()
+                        .addDeserializer(float[].class, new Base64FloatVectorDeserializer())
+                        .addSerializer(float[].class, new Base64FloatVectorSerializer()));
+            }
+            return b.build();
+        }
+    }
+
+    /**
+     * Per-thread state: readers, writers and mapper
+     */
+    @State(Scope.Thread)
+    public static class PerThread
+    {
+        ObjectReader reader;
+        ObjectWriter writer;
+        ObjectMapper mapper;
+
+        @Setup(Level.Trial)
+        public void setup(Shared shared) {
+            reader = shared.mapper.readerFor(HuggingFaceCohereScidocsQueries.class);
+            writer = shared.mapper.writerFor(HuggingFaceCohereScidocsQueries.class);
+            mapper = shared.createMapper();
+        }
+    }
+
+    /*
+    /**********************************************************************
+    /* Test methods, single operation
+    /**********************************************************************
+     */
+
+    @Benchmark
+    public void sharedMapperRead(Shared shared, Blackhole bh) throws Exception {
+        bh.consume(shared.mapper.readValue(shared.serialized, HuggingFaceCohereScidocsQueries.class));
+    }
+
+    @Benchmark
+    public void sharedMapperWrite(Shared shared, Blackhole bh) throws Exception {
+        bh.consume(_write(shared.mapper.writer(), shared));
+    }
+
+    @Benchmark
+    public void perThreadReaderRead(Shared shared, PerThread local, Blackhole bh) throws Exception {
+        bh.consume(local.reader.readValue(shared.serialized));
+    }
+
+    @Benchmark
+    public void perThreadWriterWrite(Shared shared, PerThread local, Blackhole bh) throws Exception {
+        bh.consume(_write(local.writer, shared));
+    }
+
+    @Benchmark
+    public void perThreadMapperRead(Shared shared, PerThread local, Blackhole bh) throws Exception {
+        bh.consume(local.mapper.readValue(shared.serialized, HuggingFaceCohereScidocsQueries.class));
+    }
+
+    @Benchmark
+    public void perThreadMapperWrite(Shared shared, PerThread local, Blackhole bh) throws Exception {
+        bh.consume(_write(local.mapper.writer(), shared));
+    }
+
+    /*
+    /**********************************************************************
+    /* Test methods, mixed read/write (thread groups)
+    /**********************************************************************
+     */
+
+    @Benchmark
+    @Group("sharedMapperMixed")
+    @GroupThreads(1)
+    public void sharedMapperMixedRead(Shared shared, Blackhole bh) throws Exception {
+        sharedMapperRead(shared, bh);
+    }
+
+    @Benchmark
+    @Group("sharedMapperMixed")
+    @GroupThreads(1)
+    public void sharedMapperMixedWrite(Shared shared, Blackhole bh) throws Exception {
+        sharedMapperWrite(shared, bh);
+    }
+
+    @Benchmark
+    @Group("perThreadMapperMixed")
+    @GroupThreads(1)
+    public void perThreadMapperMixedRead(Shared shared, PerThread local, Blackhole bh) throws Exception {
+        perThreadMapperRead(shared, local, bh);
+    }
+
+    @Benchmark
+    @Group("perThreadMapperMixed")
+    @GroupThreads(1)
+    public void perThreadMapperMixedWrite(Shared shared, PerThread local, Blackhole bh) throws Exception {
+        perThreadMapperWrite(shared, local, bh);
+    }
+
+    /*
+    /**********************************************************************
+    /* Helper methods
+    /**********************************************************************
+     */
+
+    private static int _write(ObjectWriter w, Shared shared) throws IOException {
+        try (NopOutputStream out = new NopOutputStream()) {
+            w.writeValue(out, shared.deserialized);
+            return out.size();
+        }
+    }
+
+    /*
+    /**********************************************************************
+    /* Entry point
+    /**********************************************************************
+     */
+
+    public static void main(String[] args) throws Exception {
+        final int maxThreads = (args.length > 0) ? Integer.parseInt(args[0])
+                : Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; ; threads <<= 1) {
+            threads = Math.min(threads, maxThreads);
+            Options opt = new OptionsBuilder()
+                    .include(VectorHeavyThreadScaling.class.getSimpleName())
+                    // for thread groups, rounded up to multiple of group size (2)
+                    .threads(threads)
+                    .build();
+            new Runner(opt).run();
+            if (threads >= maxThreads) {
+                break;
+            }
+        }
+    }
+}
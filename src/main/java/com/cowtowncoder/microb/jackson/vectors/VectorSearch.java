@@ -0,0 +1,101 @@
+package com.cowtowncoder.microb.jackson.vectors;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.cowtowncoder.microb.jackson.model.HuggingFaceCohereScidocsQueries;
+import com.cowtowncoder.microb.jackson.model.InputData;
+import com.cowtowncoder.microb.jackson.model.InputJson;
+
+/**
+ * Test for measuring brute-force top-k cosine similarity search
+ * ({@link VectorSearchIndex}) over embeddings of the Hugging Face dataset,
+ * with different {@link DotProduct} kernels (scalar, manually unrolled,
+ * Vector API) as well as a parallel-stream scan over partitions.
+ * Each operation is a single query (queries are taken from the dataset
+ * itself, in rotation), so throughput is in queries per second.
+ *
+ * @author Tatu Saloranta
+ */
+@BenchmarkMode(Mode.Throughput)
+@State(Scope.Benchmark)
+//During dev, use lower; for real measurements, higher
+//@Fork(value = 1)
+// Vector API needs to be explicitly enabled for SIMD variants
+@Fork(value = 3, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@Measurement(iterations = 3, time = 3)
+@Warmup(iterations = 3, time = 1)
+public class VectorSearch
+{
+    private final static int QUERY_COUNT = 64;
+
+    @Param({ "10" })
+    public int k;
+
+    private VectorSearchIndex _index;
+
+    private float[][] _queries;
+
+    private int _queryIndex;
+
+    private int _partitions;
+
+    private DotProduct _fastestDot;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final HuggingFaceCohereScidocsQueries doc = InputData.get(InputJson.HUGGING_FACE_QUERIES)
+                .deserialized();
+        _index = VectorSearchIndex.from(doc, true);
+        _queries = new float[Math.min(QUERY_COUNT, doc.data.size())][];
+        for (int i = 0; i < _queries.length; ++i) {
+            _queries[i] = _index.prepareQuery(doc.data.get(i).emb);
+        }
+        _partitions = Runtime.getRuntime().availableProcessors() * 4;
+        _fastestDot = DotProduct.SIMD.orFallback();
+
+        System.out.println();
+        System.out.println("------------------");
+        System.out.printf("Rows: %d, dimension: %d, partitions (parallel): %d%n",
+                _index.size(), _index.dimension(), _partitions);
+        System.out.println("Vector API available: "+FloatPacking.simdAvailable());
+        System.out.println("------------------");
+    }
+
+    @Benchmark
+    public void scalarSearch(Blackhole bh) {
+        bh.consume(_index.search(_nextQuery(), k, DotProduct.SCALAR));
+    }
+
+    @Benchmark
+    public void unrolledSearch(Blackhole bh) {
+        bh.consume(_index.search(_nextQuery(), k, DotProduct.UNROLLED));
+    }
+
+    @Benchmark
+    public void simdSearch(Blackhole bh) {
+        bh.consume(_index.search(_nextQuery(), k, DotProduct.SIMD.orFallback()));
+    }
+
+    @Benchmark
+    public void parallelSearch(Blackhole bh) {
+        bh.consume(_index.searchParallel(_nextQuery(), k, _fastestDot, _partitions));
+    }
+
+    private float[] _nextQuery() {
+        final float[][] queries = _queries;
+        int ix = _queryIndex;
+        _queryIndex = (ix + 1 == queries.length) ? 0 : ix + 1;
+        return queries[ix];
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options opt = new OptionsBuilder()
+                .include(VectorSearch.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,146 @@
+package com.cowtowncoder.microb.jackson.vectors;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import com.cowtowncoder.microb.jackson.model.HuggingFaceCohereScidocsQueries;
+
+/**
+ * Brute-force (exhaustive scan) top-k similarity search over a set of
+ * embedding vectors of the same dimension, stored as a single flat
+ * row-major {@code float[]} matrix.
+ * If constructed with normalization enabled, rows (and queries) are scaled
+ * to unit length so that dot product equals cosine similarity; otherwise
+ * raw dot product is used.
+ */
+public class VectorSearchIndex
+{
+    private final float[] _matrix;
+    private final int _rows;
+    private final int _dimension;
+    private final boolean _normalized;
+
+    public VectorSearchIndex(List<float[]> vectors, boolean normalize)
+    {
+        _rows = vectors.size();
+        _dimension = (_rows == 0) ? 0 : vectors.get(0).length;
+        _normalized = normalize;
+        final int matrixSize;
+        try {
+            matrixSize = Math.multiplyExact(_rows, _dimension);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException(String.format(
+                    "Too many vectors for a single matrix: %d rows of dimension %d exceed %d floats",
+                    _rows, _dimension, Integer.MAX_VALUE));
+        }
+        _matrix = new float[matrixSize];
+        for (int row = 0; row < _rows; ++row) {
+            final float[] v = vectors.get(row);
+            if (v.length != _dimension) {
+                throw new IllegalArgumentException(String.format(
+                        "Vector #%d has dimension %d, expected %d", row, v.length, _dimension));
+            }
+            System.arraycopy(v, 0, _matrix, row * _dimension, _dimension);
+            if (normalize) {
+                _normalize(_matrix, row * _dimension, _dimension);
+            }
+        }
+    }
+
+    public static VectorSearchIndex from(HuggingFaceCohereScidocsQueries doc, boolean normalize) {
+        return new VectorSearchIndex(doc.data.stream().map(d -> d.emb).toList(), normalize);
+    }
+
+    public int size() {
+        return _rows;
+    }
+
+    public int dimension() {
+        return _dimension;
+    }
+
+    /**
+     * @return Query vector in form to pass to {@code search} methods:
+     *   for normalized index, a unit-length copy; otherwise query as is
+     */
+    public float[] prepareQuery(float[] query) {
+        if (query.length != _dimension) {
+            throw new IllegalArgumentException(String.format(
+                    "Query has dimension %d, expected %d", query.length, _dimension));
+        }
+        if (!_normalized) {
+            return query;
+        }
+        float[] q = query.clone();
+        _normalize(q, 0, _dimension);
+        return q;
+    }
+
+    /**
+     * Single-threaded scan over all rows.
+     *
+     * @param query Query vector, as returned by {@link #prepareQuery}
+     * @param k Maximum number of results
+     * @param dot Dot product implementation to use
+     *
+     * @return Indexes of the best matching rows, best match first
+     */
+    public int[] search(float[] query, int k, DotProduct dot) {
+        return _scan(query, new TopK(k), dot, 0, _rows).sortedRows();
+    }
+
+    /**
+     * Parallel scan: rows are split into given number of contiguous partitions,
+     * each scanned (with partition-local {@link TopK}) using a parallel stream,
+     * and partial results then merged.
+     *
+     * @param partitions Number of partitions to split rows into; at least 1
+     */
+    public int[] searchParallel(float[] query, int k, DotProduct dot, int partitions) {
+        if (partitions < 1) {
+            throw new IllegalArgumentException("Invalid partitions ("+partitions+"): must be positive");
+        }
+        // (no `(_rows + partitions - 1)`: could overflow)
+        final int perPartition = (_rows / partitions) + ((_rows % partitions == 0) ? 0 : 1);
+        return IntStream.range(0, partitions)
+                .parallel()
+                .mapToObj(p -> _scan(query, new TopK(k), dot,
+                        Math.min(_rows, p * perPartition), Math.min(_rows, (p + 1) * perPartition)))
+                .reduce(TopK::merge)
+                .orElseGet(() -> new TopK(k))
+                .sortedRows();
+    }
+
+    public float score(int row, float[] query, DotProduct dot) {
+        return dot.dot(_matrix, row * _dimension, query, _dimension);
+    }
+
+    /*
+    /**********************************************************************
+    /* Helper methods
+    /**********************************************************************
+     */
+
+    private TopK _scan(float[] query, TopK topK, DotProduct dot, int fromRow, int toRow) {
+        final float[] matrix = _matrix;
+        final int dim = _dimension;
+        for (int row = fromRow, offset = fromRow * dim; row < toRow; ++row, offset += dim) {
+            topK.offer(row, dot.dot(matrix, offset, query, dim));
+        }
+        return topK;
+    }
+
+    private static void _normalize(float[] v, int offset, int len) {
+        double sumSq = 0.0;
+        for (int i = 0; i < len; ++i) {
+            final float f = v[offset + i];
+            sumSq += f * f;
+        }
+        if (sumSq > 0.0) {
+            final float scale = (float) (1.0 / Math.sqrt(sumSq));
+            for (int i = 0; i < len; ++i) {
+                v[offset + i] *= scale;
+            }
+        }
+    }
+}
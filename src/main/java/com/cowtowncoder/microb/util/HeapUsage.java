@@ -0,0 +1,49 @@
+package com.cowtowncoder.microb.util;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+
+/**
+ * Helper methods for approximate measurement of heap usage, for informational
+ * output by tests during set up. Relies on {@link System#gc()} which is not
+ * guaranteed to collect everything, so results are best-effort only.
+ */
+public final class HeapUsage
+{
+    @FunctionalInterface
+    public interface ValueReader {
+        Object read() throws IOException;
+    }
+
+    private final static MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+    private HeapUsage() { }
+
+    /**
+     * @return Heap used after requesting garbage collection
+     */
+    public static long usedHeap() {
+        for (int i = 0; i < 3; ++i) {
+            System.gc();
+        }
+        return MEMORY.getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Method for measuring average heap retained by values produced by given
+     * reader, by keeping given number of them reachable until measured.
+     *
+     * @return Average retained size per value, in bytes
+     */
+    public static long retainedPerValue(int copies, ValueReader reader) throws IOException {
+        final long before = usedHeap();
+        Object[] values = new Object[copies];
+        for (int i = 0; i < copies; ++i) {
+            values[i] = reader.read();
+        }
+        final long after = usedHeap();
+        // to keep values reachable until measured
+        return (values[copies - 1] == null) ? 0L : ((after - before) / copies);
+    }
+}
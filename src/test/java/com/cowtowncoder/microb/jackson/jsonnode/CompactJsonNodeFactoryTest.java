@@ -0,0 +1,129 @@
+package com.cowtowncoder.microb.jackson.jsonnode;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+public class CompactJsonNodeFactoryTest
+{
+    private final JsonMapper MAPPER = new JsonMapper();
+
+    private final JsonMapper COMPACT_MAPPER = JsonMapper.builder()
+            .nodeFactory(new CompactJsonNodeFactory())
+            .build();
+
+    private final static String DOC = "[ {\"_id\":\"a\", \"name\":\"Bob\", \"age\":28,\n"
+            +"  \"$vector\" : [ 0.25, -1.5, 3 ],\n"
+            +"  \"extra\": {\"x\":[1,{\"y\":null}], \"name\":\"é\"} },\n"
+            +" {\"_id\":\"b\", \"$vector\":[ ], \"extra\":\"scalar\"} ]";
+
+    @Test
+    public void testReadCompact() throws Exception
+    {
+        JsonNode exp = MAPPER.readTree(DOC);
+        JsonNode doc;
+        try (JsonParser p = COMPACT_MAPPER.createParser(DOC)) {
+            doc = new CustomJsonNodeReader(COMPACT_MAPPER, p,
+                    CustomJsonNodeReader.VectorsAs.LIST_OF_NUMBERS).readTree();
+        }
+        assertEquals(exp, doc);
+        assertEquals(doc, exp);
+        assertEquals(exp, COMPACT_MAPPER.readTree(DOC));
+        assertEquals(MAPPER.writeValueAsString(exp), COMPACT_MAPPER.writeValueAsString(doc));
+        assertEquals(List.of("_id", "name", "age", "$vector", "extra"), _names(doc.get(0)));
+    }
+
+    @Test
+    public void testModifyAndOverflow() throws Exception
+    {
+        ObjectNode ob = COMPACT_MAPPER.createObjectNode();
+        // Keys not canonical: must still match by equality
+        ob.put(new String("a"), 1);
+        ob.put("b", 2);
+        ob.put(new String("a"), 3);
+        assertEquals(3, ob.get("a").intValue());
+        assertEquals(2, ob.size());
+
+        ob.remove("a");
+        assertNull(ob.get("a"));
+        assertEquals(List.of("b"), _names(ob));
+
+        for (int i = 0; i < CompactPropertyMap.MAX_COMPACT_SIZE * 2; ++i) {
+            ob.put("p"+i, i);
+        }
+        assertEquals(1 + CompactPropertyMap.MAX_COMPACT_SIZE * 2, ob.size());
+        assertEquals("b", _names(ob).get(0));
+        assertEquals(MAPPER.readTree(ob.toString()), ob);
+
+        ob.retain(Set.of("b", "p3", "p30"));
+        assertEquals(List.of("b", "p3", "p30"), _names(ob));
+        ob.removeAll();
+        assertTrue(ob.isEmpty());
+    }
+
+    @Test
+    public void testIteratorRemove() throws Exception
+    {
+        ObjectNode ob = (ObjectNode) COMPACT_MAPPER.readTree("{\"a\":1,\"b\":2,\"c\":3,\"d\":4}");
+        ob.retain("b", "d");
+        assertEquals(List.of("b", "d"), _names(ob));
+        assertFalse(ob.has("a"));
+        assertEquals(4, ob.get("d").intValue());
+    }
+
+    @Test
+    public void testEntriesAfterModification() throws Exception
+    {
+        CompactPropertyMap map = new CompactPropertyMap();
+        map.put("a", MAPPER.getNodeFactory().numberNode(1));
+        map.put("b", MAPPER.getNodeFactory().numberNode(2));
+        map.put("c", MAPPER.getNodeFactory().numberNode(3));
+
+        // Entries retain their key and value after removal of earlier entries
+        List<Map.Entry<String, JsonNode>> entries = new ArrayList<>();
+        Iterator<Map.Entry<String, JsonNode>> it = map.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, JsonNode> entry = it.next();
+            entries.add(entry);
+            if (entry.getKey().equals("a")) {
+                it.remove();
+            }
+        }
+        assertEquals("b", entries.get(1).getKey());
+        assertEquals(2, entries.get(1).getValue().intValue());
+        // and setValue() writes through
+        entries.get(2).setValue(MAPPER.getNodeFactory().numberNode(30));
+        assertEquals(30, map.get("c").intValue());
+        assertEquals(2, map.get("b").intValue());
+
+        // as well as after overflow
+        for (int i = 0; i <= CompactPropertyMap.MAX_COMPACT_SIZE; ++i) {
+            map.put("x"+i, MAPPER.getNodeFactory().numberNode(i));
+        }
+        assertFalse(map.isCompact());
+        assertEquals("b", entries.get(1).getKey());
+        assertEquals(2, entries.get(1).getValue().intValue());
+        entries.get(1).setValue(MAPPER.getNodeFactory().numberNode(20));
+        assertEquals(20, map.get("b").intValue());
+    }
+
+    private static List<String> _names(JsonNode n) {
+        List<String> names = new ArrayList<>();
+        n.fieldNames().forEachRemaining(names::add);
+        return names;
+    }
+}
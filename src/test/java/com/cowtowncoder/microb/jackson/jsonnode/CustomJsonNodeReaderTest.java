@@ -0,0 +1,329 @@
+package com.cowtowncoder.microb.jackson.jsonnode;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.StreamReadConstraints;
+import com.fasterxml.jackson.core.filter.FilteringParserDelegate;
+import com.fasterxml.jackson.core.filter.TokenFilter;
+import com.fasterxml.jackson.core.json.JsonWriteFeature;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.POJONode;
+
+public class CustomJsonNodeReaderTest
+{
+    private final JsonMapper MAPPER = new JsonMapper();
+
+    private final static String DOC = "[ {\"_id\":\"a\", \"name\":\"Bob\",\n"
+            +"  \"$vector\" : [ 0.25, -1.5, 3 ],\n"
+            +"  \"extra\": {\"x\":[1,{\"y\":\"]}\"}], \"name\":\"é\"} },\n"
+            +" {\"_id\":\"b\", \"$vector\":[ ], \"extra\":\"scalar\"} ]";
+
+    // Numbers are equal if values are; other nodes if they are equal
+    private final static Comparator<JsonNode> NUMERIC_VALUE_COMPARATOR = (n1, n2) -> {
+        if (n1.isNumber() && n2.isNumber()) {
+            return Double.compare(n1.doubleValue(), n2.doubleValue());
+        }
+        return n1.equals(n2) ? 0 : 1;
+    };
+
+    @Test
+    public void testLazyVector() throws Exception
+    {
+        final byte[] input = _utf8(DOC);
+        JsonNode doc = _read(input, CustomJsonNodeReader.VectorsAs.LAZY, Collections.emptySet());
+        JsonNode exp = MAPPER.readTree(input);
+
+        JsonNode vector = doc.get(0).get("$vector");
+        LazyJsonNode lazy = assertInstanceOf(LazyJsonNode.class, vector);
+        assertEquals("[ 0.25, -1.5, 3 ]", lazy.rawValue().getValue());
+        assertFalse(lazy.isParsed());
+        assertArrayEquals(new float[] { 0.25f, -1.5f, 3f }, lazy.valueAs(float[].class));
+        assertFalse(lazy.isParsed());
+        assertTrue(vector.isArray());
+
+        assertEquals("[ ]", ((LazyJsonNode) doc.get(1).get("$vector")).rawValue().getValue());
+        // Other values read normally
+        assertEquals(exp.get(0).get("extra"), doc.get(0).get("extra"));
+
+        // Reserialization copies raw content through (before contents are accessed);
+        // result must be equal to the original
+        byte[] written = MAPPER.writeValueAsBytes(doc);
+        assertFalse(lazy.isParsed());
+        assertEquals(exp, MAPPER.readTree(written));
+        assertTrue(new String(written, StandardCharsets.UTF_8).contains("[ 0.25, -1.5, 3 ]"));
+        // As well as via Writer-based generator
+        assertEquals(exp, MAPPER.readTree(MAPPER.writeValueAsString(doc)));
+
+        // Regular JsonNode access parses contents
+        assertEquals(3, vector.size());
+        assertTrue(lazy.isParsed());
+        assertEquals(-1.5, vector.get(1).doubleValue());
+        assertTrue(vector.path(3).isMissingNode());
+        assertEquals(exp.get(0).get("$vector"), vector);
+        assertEquals(exp, doc);
+        assertEquals(vector, lazy.value());
+        assertArrayEquals(new float[] { 0.25f, -1.5f, 3f }, lazy.valueAs(float[].class));
+
+        // and modifications are reflected in serialization as well as binding
+        ((ArrayNode) vector).add(4);
+        assertEquals("[0.25,-1.5,3,4]", MAPPER.writeValueAsString(vector));
+        assertArrayEquals(new float[] { 0.25f, -1.5f, 3f, 4f }, lazy.valueAs(float[].class));
+    }
+
+    @Test
+    public void testLazyObject() throws Exception
+    {
+        final byte[] input = _utf8(DOC);
+        JsonNode doc = _read(input, CustomJsonNodeReader.VectorsAs.ARRAY_OF_FLOATS, Set.of("extra"));
+        JsonNode exp = MAPPER.readTree(input);
+
+        JsonNode extra = doc.get(0).get("extra");
+        LazyJsonNode lazy = assertInstanceOf(LazyJsonNode.class, extra);
+        assertTrue(extra.isObject());
+        assertFalse(lazy.isParsed());
+        assertEquals("é", extra.get("name").textValue());
+        assertTrue(lazy.isParsed());
+        assertEquals(2, extra.size());
+        assertEquals(exp.get(0).get("extra"), extra);
+        assertEquals(exp.get(0).get("extra").get("x"), extra.path("x"));
+
+        ((ObjectNode) extra).remove("x");
+        assertEquals("{\"name\":\"é\"}", MAPPER.writeValueAsString(extra));
+    }
+
+    @Test
+    public void testLazyRawCopyOnlyIfNotReencoded() throws Exception
+    {
+        final byte[] input = _utf8(DOC);
+        final JsonNode exp = MAPPER.readTree(input);
+
+        // Pretty-printing: must match regular output
+        JsonNode doc = _read(input, CustomJsonNodeReader.VectorsAs.LAZY, Set.of("extra"));
+        assertEquals(MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(exp),
+                MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(doc));
+
+        // Escaping of non-ASCII characters ("é" within "extra")
+        doc = _read(input, CustomJsonNodeReader.VectorsAs.LAZY, Set.of("extra"));
+        ObjectWriter w = MAPPER.writer().with(JsonWriteFeature.ESCAPE_NON_ASCII);
+        String json = w.writeValueAsString(doc);
+        assertEquals(w.writeValueAsString(exp), json);
+        assertFalse(json.contains("é"), json);
+
+        // Numbers as Strings
+        doc = _read(input, CustomJsonNodeReader.VectorsAs.LAZY, Set.of("extra"));
+        w = MAPPER.writer().with(JsonWriteFeature.WRITE_NUMBERS_AS_STRINGS);
+        assertEquals(w.writeValueAsString(exp), w.writeValueAsString(doc));
+    }
+
+    @Test
+    public void testLazyProperties() throws Exception
+    {
+        final byte[] input = _utf8(DOC);
+        JsonNode doc = _read(input, CustomJsonNodeReader.VectorsAs.ARRAY_OF_FLOATS, Set.of("extra"));
+        JsonNode exp = MAPPER.readTree(input);
+
+        LazyJsonNode lazy = assertInstanceOf(LazyJsonNode.class, doc.get(0).get("extra"));
+        assertEquals("{\"x\":[1,{\"y\":\"]}\"}], \"name\":\"é\"}", lazy.rawValue().getValue());
+        assertEquals(exp.get(0).get("extra"), lazy.value());
+        // Scalars are never lazy
+        assertEquals("scalar", doc.get(1).get("extra").textValue());
+        assertArrayEquals(new float[] { 0.25f, -1.5f, 3f }, (float[]) ((POJONode) doc.get(0).get("$vector")).getPojo());
+    }
+
+    @Test
+    public void testLazyNeedsSource() throws Exception
+    {
+        try (JsonParser p = MAPPER.createParser(DOC)) {
+            assertThrows(IllegalArgumentException.class, () -> new CustomJsonNodeReader(MAPPER, p,
+                    CustomJsonNodeReader.VectorsAs.LAZY, null, Collections.emptySet()));
+        }
+    }
+
+    @Test
+    public void testProjection() throws Exception
+    {
+        _verifyProjection("[{\"_id\":\"a\",\"name\":\"Bob\"}]",
+                "/0/_id", "/0/name");
+        // wildcard and explicit paths are merged
+        _verifyProjection("[{\"_id\":\"a\",\"extra\":{\"x\":[1,{\"y\":\"]}\"}]}},{\"_id\":\"b\"}]",
+                "/*/_id", "/0/extra/x");
+        _verifyProjection("[{\"$vector\":[-1.5],\"extra\":{\"name\":\"é\"}}]",
+                "/*/extra/name", "/*/$vector/1");
+        // Whole document
+        _verifyProjection(DOC, "");
+        // Nothing matches
+        _verifyProjection(null, "/nosuch", "/5/_id");
+    }
+
+    @Test
+    public void testIterative() throws Exception
+    {
+        final byte[] input = _utf8(DOC);
+        for (CustomJsonNodeReader.VectorsAs vectorsAs : CustomJsonNodeReader.VectorsAs.values()) {
+            final Set<String> lazyProps = Set.of("extra");
+            JsonNode exp = _read(input, vectorsAs, lazyProps);
+            try (JsonParser p = MAPPER.createParser(input)) {
+                JsonNode doc = new CustomJsonNodeReader(MAPPER, p, vectorsAs, input, lazyProps)
+                        .readTreeIterative();
+                // POJONode (for float[]) has identity equality so compare serializations
+                assertEquals(MAPPER.writeValueAsString(exp), MAPPER.writeValueAsString(doc));
+            }
+        }
+        // Scalar root value
+        try (JsonParser p = MAPPER.createParser("12")) {
+            assertEquals(12, new CustomJsonNodeReader(MAPPER, p,
+                    CustomJsonNodeReader.VectorsAs.LIST_OF_NUMBERS).readTreeIterative().intValue());
+        }
+    }
+
+    // Nesting way past what recursive reading could handle
+    @Test
+    public void testIterativeDeep() throws Exception
+    {
+        final int depth = 100_000;
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < depth; ++i) {
+            sb.append("{\"a\":[");
+        }
+        sb.append("true");
+        for (int i = 0; i < depth; ++i) {
+            sb.append("]}");
+        }
+        JsonMapper mapper = JsonMapper.builder(JsonFactory.builder()
+                .streamReadConstraints(StreamReadConstraints.builder()
+                        .maxNestingDepth(Integer.MAX_VALUE).build())
+                .build())
+            .build();
+        JsonNode doc;
+        try (JsonParser p = mapper.createParser(sb.toString())) {
+            doc = new CustomJsonNodeReader(mapper, p,
+                    CustomJsonNodeReader.VectorsAs.LIST_OF_NUMBERS).readTreeIterative();
+        }
+        for (int i = 0; i < depth; ++i) {
+            doc = doc.get("a").get(0);
+        }
+        assertTrue(doc.booleanValue());
+    }
+
+    @Test
+    public void testNumericArrays() throws Exception
+    {
+        final String json = "{\"ints\":[1, 2, 30000000000],\"mixed\":[1, 2.5, -3],\n"
+                +"\"$vector\":[0.25, -1.5, 3], \"matrix\":[[1,2],[0.5,1.5]],\n"
+                +"\"notNumbers\":[1, 2.5, \"x\", [4, {\"a\":[5]}], 6], \"big\":[1, 12345678901234567890],\n"
+                +"\"precise\":[0.1234567891, 1.5, 30000000000, \"x\"], \"empty\":[]}";
+        final JsonNode exp = MAPPER.readTree(json);
+
+        for (CustomJsonNodeReader.NumericArraysAs numericArraysAs : new CustomJsonNodeReader.NumericArraysAs[] {
+                CustomJsonNodeReader.NumericArraysAs.PRIMITIVE_DOUBLES,
+                CustomJsonNodeReader.NumericArraysAs.PRIMITIVE_FLOATS }) {
+            for (boolean iterative : new boolean[] { false, true }) {
+                JsonNode doc;
+                try (JsonParser p = MAPPER.createParser(json)) {
+                    CustomJsonNodeReader r = new CustomJsonNodeReader(MAPPER, p,
+                            CustomJsonNodeReader.VectorsAs.LIST_OF_NUMBERS, numericArraysAs);
+                    doc = iterative ? r.readTreeIterative() : r.readTree();
+                }
+                NumericArrayNode ints = assertInstanceOf(NumericArrayNode.class, doc.get("ints"));
+                assertEquals(JsonParser.NumberType.LONG, ints.primitiveType());
+                assertEquals(exp.get("ints"), ints);
+                assertArrayEquals(new long[] { 1, 2, 30000000000L }, ints.asLongArray());
+
+                NumericArrayNode mixed = assertInstanceOf(NumericArrayNode.class, doc.get("mixed"));
+                assertArrayEquals(new double[] { 1, 2.5, -3 }, mixed.asDoubleArray());
+                NumericArrayNode vector = assertInstanceOf(NumericArrayNode.class, doc.get("$vector"));
+                assertArrayEquals(new float[] { 0.25f, -1.5f, 3f }, vector.asFloatArray());
+                assertInstanceOf(NumericArrayNode.class, doc.get("matrix").get(1));
+                assertEquals(1.5, doc.get("matrix").get(1).get(1).doubleValue());
+
+                // Fall back to regular nodes
+                assertFalse(doc.get("notNumbers") instanceof NumericArrayNode);
+                assertFalse(doc.get("big") instanceof NumericArrayNode);
+                assertEquals(exp.get("notNumbers"), doc.get("notNumbers"));
+                assertEquals(exp.get("big"), doc.get("big"));
+                // with values read before fall back retaining their original precision
+                assertEquals(exp.get("precise"), doc.get("precise"));
+                assertEquals(exp.get("empty"), doc.get("empty"));
+
+                // Serialization writes out same values (but not necessarily same types)
+                assertTrue(exp.equals(NUMERIC_VALUE_COMPARATOR,
+                        MAPPER.readTree(MAPPER.writeValueAsString(doc))));
+
+                // and modifications convert to regular nodes
+                ints.add("str");
+                assertNull(ints.primitiveType());
+                assertEquals(4, ints.size());
+                assertEquals(30000000000L, ints.get(2).longValue());
+            }
+        }
+    }
+
+    @Test
+    public void testNumericArraysWithBigDecimal() throws Exception
+    {
+        final JsonMapper mapper = JsonMapper.builder()
+                .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)
+                .build();
+        final String json = "{\"values\":[0.1234567891234567891, 2.5, 3]}";
+        final JsonNode exp = mapper.readTree(json);
+        try (JsonParser p = mapper.createParser(json)) {
+            JsonNode doc = new CustomJsonNodeReader(mapper, p,
+                    CustomJsonNodeReader.VectorsAs.LIST_OF_NUMBERS,
+                    CustomJsonNodeReader.NumericArraysAs.PRIMITIVE_DOUBLES).readTree();
+            assertFalse(doc.get("values") instanceof NumericArrayNode);
+            assertTrue(doc.get("values").get(0).isBigDecimal());
+            assertEquals(exp, doc);
+        }
+    }
+
+    private void _verifyProjection(String expJson, String... pointers) throws Exception
+    {
+        final JsonPointerProjection proj = JsonPointerProjection.compile(pointers);
+        JsonNode doc;
+        try (JsonParser p = MAPPER.createParser(DOC)) {
+            doc = new CustomJsonNodeReader(MAPPER, p,
+                    CustomJsonNodeReader.VectorsAs.LIST_OF_NUMBERS, proj).readTree();
+        }
+        JsonNode exp = (expJson == null) ? MAPPER.missingNode() : MAPPER.readTree(expJson);
+        assertEquals(exp, doc);
+        // and must match results of filtering parser (which exposes no tokens,
+        // instead of "missing" node, if nothing matches)
+        try (JsonParser p = new FilteringParserDelegate(MAPPER.createParser(DOC),
+                proj.asTokenFilter(), TokenFilter.Inclusion.INCLUDE_ALL_AND_PATH, true)) {
+            JsonNode filtered = MAPPER.readTree(p);
+            assertEquals(exp, (filtered == null) ? MAPPER.missingNode() : filtered);
+        }
+    }
+
+    private JsonNode _read(byte[] input, CustomJsonNodeReader.VectorsAs vectorsAs,
+            Set<String> lazyProps) throws Exception
+    {
+        try (JsonParser p = MAPPER.createParser(input)) {
+            return new CustomJsonNodeReader(MAPPER, p, vectorsAs, input, lazyProps).readTree();
+        }
+    }
+
+    private static byte[] _utf8(String str) {
+        return str.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,126 @@
+package com.cowtowncoder.microb.jackson.jsonnode;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.cowtowncoder.microb.jackson.vectors.FloatPacking;
+
+public class CustomJsonNodeWriterTest
+{
+    private final JsonMapper MAPPER = new JsonMapper();
+
+    private final static String DOC = "[ {\"_id\":\"a\", \"name\":\"Bob\", \"age\":28, \"ok\":true,\n"
+            +"  \"$vector\" : [ 0.25, -1.5, 3 ],\n"
+            +"  \"extra\": {\"x\":[1,{\"y\":null}], \"big\":12345678901234567890, \"f\":0.5} },\n"
+            +" {\"_id\":\"b\", \"$vector\":[ ], \"extra\":\"scalar\"} ]";
+
+    @Test
+    public void testWriteNumbers() throws Exception
+    {
+        for (CustomJsonNodeReader.VectorsAs vectorsAs : CustomJsonNodeReader.VectorsAs.values()) {
+            for (CustomJsonNodeReader.NumericArraysAs numericArraysAs : CustomJsonNodeReader.NumericArraysAs.values()) {
+                JsonNode doc = _read(vectorsAs, numericArraysAs);
+                String json = _write(doc, CustomJsonNodeWriter.VectorOutput.NUMBERS);
+                // Must produce same content as default serialization, modulo
+                // vectors which may differ in representation
+                JsonNode exp = MAPPER.readTree(MAPPER.writeValueAsString(doc));
+                JsonNode act = MAPPER.readTree(json);
+                if (vectorsAs == CustomJsonNodeReader.VectorsAs.LIST_OF_STRINGS) {
+                    assertEquals("[0.25,-1.5,3]", act.get(0).get("$vector").toString());
+                    ((ObjectNode) exp.get(0)).remove("$vector");
+                    ((ObjectNode) act.get(0)).remove("$vector");
+                }
+                assertEquals(exp, act, "For "+vectorsAs+"/"+numericArraysAs);
+            }
+        }
+    }
+
+    @Test
+    public void testWriteBase64() throws Exception
+    {
+        for (CustomJsonNodeReader.VectorsAs vectorsAs : new CustomJsonNodeReader.VectorsAs[] {
+                CustomJsonNodeReader.VectorsAs.LIST_OF_NUMBERS,
+                CustomJsonNodeReader.VectorsAs.ARRAY_OF_FLOATS,
+                CustomJsonNodeReader.VectorsAs.LIST_OF_STRINGS,
+                CustomJsonNodeReader.VectorsAs.LAZY }) {
+            JsonNode doc = _read(vectorsAs, CustomJsonNodeReader.NumericArraysAs.NODES);
+            JsonNode result = MAPPER.readTree(_write(doc, CustomJsonNodeWriter.VectorOutput.BASE64));
+            assertTrue(result.get(0).get("$vector").isTextual());
+            byte[] packed = Base64.getDecoder().decode(result.get(0).get("$vector").textValue());
+            float[] vector = new float[packed.length >> 2];
+            FloatPacking.unpackScalar(packed, vector);
+            assertArrayEquals(new float[] { 0.25f, -1.5f, 3f }, vector, "For "+vectorsAs);
+            assertEquals("", result.get(1).get("$vector").textValue());
+            assertEquals(MAPPER.readTree(DOC).get(0).get("extra"), result.get(0).get("extra"));
+        }
+    }
+
+    @Test
+    public void testWriteNonNumericText() throws Exception
+    {
+        // Only valid JSON Numbers written as numbers; other text as Strings
+        final JsonNode doc = MAPPER.readTree(
+                "{\"$vector\":[\"a\", \"1.5\", \"NaN\", \".5\", \"-2e3\", \"01\"]}");
+        assertEquals(MAPPER.readTree("{\"$vector\":[\"a\", 1.5, \"NaN\", \".5\", -2e3, \"01\"]}"),
+                MAPPER.readTree(_write(doc, CustomJsonNodeWriter.VectorOutput.NUMBERS)));
+        // and not written as Base64 at all, if any element is not a number
+        assertEquals(doc, MAPPER.readTree(_write(doc, CustomJsonNodeWriter.VectorOutput.BASE64)));
+
+        final JsonNode numbers = MAPPER.readTree("{\"$vector\":[\"1.5\", \"-2e3\"]}");
+        JsonNode result = MAPPER.readTree(_write(numbers, CustomJsonNodeWriter.VectorOutput.BASE64));
+        byte[] packed = Base64.getDecoder().decode(result.get("$vector").textValue());
+        float[] vector = new float[packed.length >> 2];
+        FloatPacking.unpackScalar(packed, vector);
+        assertArrayEquals(new float[] { 1.5f, -2000f }, vector);
+    }
+
+    @Test
+    public void testWriteNonNumericLazy() throws Exception
+    {
+        // Lazy vectors that can not be bound as floats also written as-is
+        for (String json : new String[] {
+                "{\"$vector\":[\"a\",1.5]}",
+                "{\"$vector\":[[1,2]]}" }) {
+            final byte[] input = json.getBytes(StandardCharsets.UTF_8);
+            JsonNode doc;
+            try (JsonParser p = MAPPER.createParser(input)) {
+                doc = new CustomJsonNodeReader(MAPPER, p, CustomJsonNodeReader.VectorsAs.LAZY,
+                        CustomJsonNodeReader.NumericArraysAs.NODES, input, Set.of(), null).readTree();
+            }
+            assertTrue(doc.get("$vector") instanceof LazyJsonNode);
+            assertEquals(json, _write(doc, CustomJsonNodeWriter.VectorOutput.BASE64));
+        }
+    }
+
+    private JsonNode _read(CustomJsonNodeReader.VectorsAs vectorsAs,
+            CustomJsonNodeReader.NumericArraysAs numericArraysAs) throws Exception
+    {
+        final byte[] input = DOC.getBytes(StandardCharsets.UTF_8);
+        try (JsonParser p = MAPPER.createParser(input)) {
+            return new CustomJsonNodeReader(MAPPER, p, vectorsAs, numericArraysAs,
+                    input, Set.of(), null).readTree();
+        }
+    }
+
+    private String _write(JsonNode doc, CustomJsonNodeWriter.VectorOutput vectorOutput) throws Exception
+    {
+        StringWriter w = new StringWriter();
+        try (JsonGenerator g = MAPPER.createGenerator(w)) {
+            new CustomJsonNodeWriter(MAPPER, g, vectorOutput).writeTree(doc);
+        }
+        return w.toString();
+    }
+}
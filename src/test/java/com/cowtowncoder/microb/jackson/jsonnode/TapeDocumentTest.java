@@ -0,0 +1,135 @@
+package com.cowtowncoder.microb.jackson.jsonnode;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeType;
+
+public class TapeDocumentTest
+{
+    private final JsonMapper MAPPER = new JsonMapper();
+
+    private final static String DOC = "[ {\"_id\":\"a\", \"name\":\"Bob\", \"age\":28, \"ok\":true,\n"
+            +"  \"$vector\" : [ 0.25, -1.5, 3 ],\n"
+            +"  \"extra\": {\"x\":[1,{\"y\":null}], \"big\":12345678901234567890, \"l\":30000000000,"
+            +" \"f\":0.5, \"s\":\"\\u00e9\\\"\"} },\n"
+            +" {\"_id\":\"b\", \"$vector\":[ ], \"extra\":\"scalar\", \"empty\":{}, \"none\":[]} ]";
+
+    private final static byte[] INPUT = DOC.getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void testToJsonNode() throws Exception
+    {
+        final TapeKeyDictionary keys = new TapeKeyDictionary();
+        for (CustomJsonNodeReader.VectorsAs vectorsAs : CustomJsonNodeReader.VectorsAs.values()) {
+            JsonNode exp;
+            try (JsonParser p = MAPPER.createParser(INPUT)) {
+                exp = new CustomJsonNodeReader(MAPPER, p, vectorsAs, INPUT, Collections.emptySet())
+                        .readTree();
+            }
+            JsonNode act = _read(vectorsAs, keys).toJsonNode(MAPPER);
+            // Compare serializations since vectors (float[], lazy) do not have value equality
+            assertEquals(MAPPER.writeValueAsString(exp), MAPPER.writeValueAsString(act),
+                    "For "+vectorsAs);
+        }
+        // Keys shared across documents
+        assertEquals(14, keys.size());
+    }
+
+    @Test
+    public void testCursor() throws Exception
+    {
+        TapeDocument doc = _read(CustomJsonNodeReader.VectorsAs.ARRAY_OF_FLOATS, new TapeKeyDictionary());
+        TapeDocument.Cursor c = doc.cursor();
+        assertEquals(JsonNodeType.ARRAY, c.type());
+        assertEquals(2, c.size());
+
+        assertTrue(c.moveToElement(0));
+        assertEquals(JsonNodeType.OBJECT, c.type());
+        assertEquals(6, c.size());
+        assertTrue(c.moveToProperty("$vector"));
+        assertEquals(JsonNodeType.POJO, c.type());
+        assertArrayEquals(new float[] { 0.25f, -1.5f, 3f }, c.floatVector());
+        assertEquals(-1.5f, c.floatAt(1));
+        assertEquals("$vector", c.currentName());
+
+        assertTrue(c.moveToNextSibling());
+        assertEquals("extra", c.currentName());
+        TapeDocument.Cursor extra = c.copy();
+        assertFalse(c.moveToNextSibling());
+        assertTrue(c.moveToProperty("big"));
+        assertEquals("12345678901234567890", c.textValue());
+        assertTrue(c.moveToNextSibling());
+        assertEquals(30000000000L, c.longValue());
+        assertTrue(c.moveToNextSibling());
+        assertEquals(0.5, c.doubleValue());
+        assertTrue(c.moveToNextSibling());
+        assertEquals("é\"", c.textValue());
+        assertFalse(c.moveToProperty("nosuch"));
+
+        assertTrue(extra.moveToFirstChild());
+        assertEquals("x", extra.currentName());
+        assertTrue(extra.moveToElement(1));
+        assertTrue(extra.moveToProperty("y"));
+        assertEquals(JsonNodeType.NULL, extra.type());
+        assertEquals(5, extra.depth());
+
+        c = doc.cursor();
+        assertTrue(c.moveToElement(1));
+        assertFalse(c.moveToElement(0));
+        assertTrue(c.moveToFirstChild());
+        assertEquals("b", c.textValue());
+        assertTrue(c.moveToNextSibling());
+        assertEquals(0, c.floatVector().length);
+        assertTrue(c.moveToParent());
+        assertTrue(c.moveToProperty("empty"));
+        assertFalse(c.moveToFirstChild());
+        assertEquals(0, c.size());
+        assertTrue(c.moveToParent());
+        assertTrue(c.moveToParent());
+        assertFalse(c.moveToParent());
+        assertFalse(c.moveToElement(2));
+        assertNull(c.currentName());
+    }
+
+    @Test
+    public void testFloatAtChecks() throws Exception
+    {
+        TapeDocument doc = _read(CustomJsonNodeReader.VectorsAs.ARRAY_OF_FLOATS, new TapeKeyDictionary());
+        TapeDocument.Cursor c = doc.cursor();
+        assertThrows(IllegalStateException.class, () -> c.floatAt(0));
+        assertTrue(c.moveToElement(0));
+        assertTrue(c.moveToProperty("$vector"));
+        assertEquals(3f, c.floatAt(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> c.floatAt(3));
+        assertThrows(IndexOutOfBoundsException.class, () -> c.floatAt(-1));
+        // Empty vector: no valid indexes
+        assertTrue(c.moveToParent());
+        assertTrue(c.moveToParent());
+        assertTrue(c.moveToElement(1));
+        assertTrue(c.moveToProperty("$vector"));
+        assertThrows(IndexOutOfBoundsException.class, () -> c.floatAt(0));
+        assertTrue(c.moveToNextSibling());
+        assertThrows(IllegalStateException.class, () -> c.floatAt(0));
+    }
+
+    private TapeDocument _read(CustomJsonNodeReader.VectorsAs vectorsAs, TapeKeyDictionary keys)
+        throws Exception
+    {
+        try (JsonParser p = MAPPER.createParser(INPUT)) {
+            return new TapeDocumentReader(p, vectorsAs, keys, INPUT).read();
+        }
+    }
+}
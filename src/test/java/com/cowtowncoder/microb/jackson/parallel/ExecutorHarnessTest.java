@@ -0,0 +1,52 @@
+package com.cowtowncoder.microb.jackson.parallel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+public class ExecutorHarnessTest
+{
+    @Test
+    public void testRunOnAllExecutors() throws Exception
+    {
+        for (ExecutorHarness.ExecutorType type : ExecutorHarness.ExecutorType.values()) {
+            ExecutorService exec = type.create(2);
+            if (exec == null) {
+                // only virtual threads may be missing (pre-Java 21)
+                assertEquals(ExecutorHarness.ExecutorType.VIRTUAL, type);
+                continue;
+            }
+            final AtomicInteger calls = new AtomicInteger();
+            try {
+                ExecutorHarness.Result result = ExecutorHarness.run(exec, 500, () -> {
+                    Thread.sleep(1L);
+                    return calls.incrementAndGet();
+                });
+                assertEquals(500, calls.get());
+                assertEquals(500, result.tasks);
+                assertTrue(result.tasksPerSecond > 0.0);
+                // each task sleeps at least 1 msec
+                assertTrue(result.p50Micros >= 1000L, "p50: "+result.p50Micros);
+                assertTrue(result.p99Micros >= result.p50Micros);
+                assertTrue(result.p99EndToEndMicros >= result.p99Micros);
+            } finally {
+                exec.shutdown();
+            }
+        }
+    }
+
+    @Test
+    public void testVirtualAvailability()
+    {
+        boolean java21 = Runtime.version().feature() >= 21;
+        assertEquals(java21, ExecutorHarness.virtualThreadsAvailable());
+        if (!java21) {
+            assertNull(ExecutorHarness.ExecutorType.VIRTUAL.create(1));
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.cowtowncoder.microb.jackson.parallel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.cowtowncoder.microb.jackson.jsonnode.CustomJsonNodeReader;
+import com.cowtowncoder.microb.jackson.model.FriendsWithVectors;
+
+public class NdjsonIngestPipelineTest
+{
+    private final JsonMapper MAPPER = new JsonMapper();
+
+    private final ForkJoinPool POOL = new ForkJoinPool(3);
+
+    @TempDir
+    Path tempDir;
+
+    @AfterEach
+    public void tearDown() {
+        POOL.shutdown();
+    }
+
+    @Test
+    public void testOrderedMatchesSequential() throws Exception
+    {
+        final List<FriendsWithVectors> input = _friends(500);
+        final Path file = _writeNdjson(input);
+
+        // Small chunks (and in-flight limit) to exercise boundary handling
+        for (int chunkSize : new int[] { 1, 100, 1000, 64 * 1024 }) {
+            List<FriendsWithVectors> result = new ArrayList<>();
+            try (NdjsonIngestPipeline<FriendsWithVectors> pipeline = NdjsonIngestPipeline.open(file,
+                    NdjsonIngestPipeline.pojoDecoder(MAPPER.readerFor(FriendsWithVectors.class)),
+                    POOL, chunkSize, 2, true)) {
+                assertEquals(input.size(), pipeline.forEach(result::add));
+                assertNull(pipeline.nextChunk());
+            }
+            _assertSame(input, result);
+        }
+    }
+
+    @Test
+    public void testUnorderedReturnsAll() throws Exception
+    {
+        final List<FriendsWithVectors> input = _friends(300);
+        final Path file = _writeNdjson(input);
+
+        List<FriendsWithVectors> result = new ArrayList<>();
+        try (NdjsonIngestPipeline<FriendsWithVectors> pipeline = NdjsonIngestPipeline.open(file,
+                NdjsonIngestPipeline.pojoDecoder(MAPPER.readerFor(FriendsWithVectors.class)),
+                POOL, 500, 4, false)) {
+            pipeline.forEach(result::add);
+        }
+        result.sort(Comparator.comparingInt(f -> f.age));
+        _assertSame(input, result);
+    }
+
+    @Test
+    public void testTreesWithBlankLines() throws Exception
+    {
+        // Blank lines, CRLFs and no trailing linefeed
+        final String doc = "\n{\"a\":1,\"$vector\":[0.25,-1.5]}\r\n\n   \n"
+                +"{\"a\":2}\r\n{\"a\":3}";
+        final Path file = tempDir.resolve("blanks.ndjson");
+        Files.write(file, doc.getBytes(StandardCharsets.UTF_8));
+
+        for (int chunkSize : new int[] { 1, 7, 1024 }) {
+            List<JsonNode> result = new ArrayList<>();
+            try (NdjsonIngestPipeline<JsonNode> pipeline = NdjsonIngestPipeline.open(file,
+                    NdjsonIngestPipeline.treeDecoder(MAPPER, CustomJsonNodeReader.VectorsAs.ARRAY_OF_FLOATS),
+                    POOL, chunkSize, 3, true)) {
+                pipeline.forEach(result::add);
+            }
+            assertEquals(3, result.size());
+            for (int i = 0; i < 3; ++i) {
+                assertEquals(i + 1, result.get(i).path("a").intValue());
+            }
+            assertTrue(result.get(0).get("$vector").isPojo());
+        }
+    }
+
+    @Test
+    public void testEmptyFile() throws Exception
+    {
+        final Path file = tempDir.resolve("empty.ndjson");
+        Files.write(file, new byte[0]);
+        try (NdjsonIngestPipeline<JsonNode> pipeline = NdjsonIngestPipeline.open(file,
+                NdjsonIngestPipeline.pojoDecoder(MAPPER.readerFor(JsonNode.class)),
+                POOL, 1024, 2, false)) {
+            assertNull(pipeline.nextChunk());
+        }
+    }
+
+    @Test
+    public void testInvalidLine() throws Exception
+    {
+        final Path file = tempDir.resolve("invalid.ndjson");
+        Files.write(file, "{\"a\":1}\n{\"a\":\n{\"a\":3}\n".getBytes(StandardCharsets.UTF_8));
+        for (NdjsonIngestPipeline.LineDecoder<JsonNode> decoder : List.of(
+                NdjsonIngestPipeline.<JsonNode>pojoDecoder(MAPPER.readerFor(JsonNode.class)),
+                NdjsonIngestPipeline.treeDecoder(MAPPER, CustomJsonNodeReader.VectorsAs.ARRAY_OF_FLOATS))) {
+            for (boolean ordered : new boolean[] { true, false }) {
+                try (NdjsonIngestPipeline<JsonNode> pipeline = NdjsonIngestPipeline.open(file,
+                        decoder, POOL, 1, 3, ordered)) {
+                    IOException e = assertThrows(IOException.class, () -> pipeline.forEach(n -> { }));
+                    assertTrue(e.getMessage().contains("offset 8"), e.getMessage());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCloseCancelsPending() throws Exception
+    {
+        final Path file = tempDir.resolve("lines.ndjson");
+        Files.write(file, "{\"a\":1}\n{\"a\":2}\n{\"a\":3}\n{\"a\":4}\n".getBytes(StandardCharsets.UTF_8));
+        final ForkJoinPool singlePool = new ForkJoinPool(1);
+        final AtomicInteger started = new AtomicInteger();
+        final Semaphore entered = new Semaphore(0);
+        final Semaphore permits = new Semaphore(0);
+        try {
+            for (boolean ordered : new boolean[] { true, false }) {
+                started.set(0);
+                entered.drainPermits();
+                // One line per chunk, all 4 submitted at once, decoded one at a time
+                // and each only after a permit is released
+                NdjsonIngestPipeline<JsonNode> pipeline = new NdjsonIngestPipeline<JsonNode>(
+                        FileChannel.open(file, StandardOpenOption.READ),
+                        NdjsonIngestPipeline.pojoDecoder(MAPPER.readerFor(JsonNode.class)),
+                        singlePool, 1, 4, ordered) {
+                    @Override
+                    protected List<JsonNode> _decodeChunk(long start, int len) throws IOException {
+                        started.incrementAndGet();
+                        entered.release();
+                        permits.acquireUninterruptibly();
+                        return super._decodeChunk(start, len);
+                    }
+                };
+                permits.release();
+                assertEquals(1, pipeline.nextChunk().size());
+                // wait until second chunk is being decoded, with the rest waiting
+                assertTrue(entered.tryAcquire(2, 5, TimeUnit.SECONDS));
+                pipeline.close();
+                permits.release(4);
+                assertTrue(singlePool.awaitQuiescence(5, TimeUnit.SECONDS));
+                assertEquals(2, started.get(), "For ordered="+ordered);
+                assertThrows(IOException.class, () -> pipeline.nextChunk());
+                permits.drainPermits();
+            }
+        } finally {
+            singlePool.shutdown();
+        }
+    }
+
+    private List<FriendsWithVectors> _friends(int count) {
+        List<FriendsWithVectors> result = new ArrayList<>();
+        for (int i = 0; i < count; ++i) {
+            FriendsWithVectors f = new FriendsWithVectors();
+            f._id = new UUID(i, -i);
+            f.name = "Friend \"#"+i+"\"\nwith linefeed escaped";
+            f.age = i;
+            f.drinks_alcohol = (i & 1) == 0;
+            f.music_taste = List.of("rock", "jazz #"+i);
+            f.$vectorize = "Likes {braces} and [brackets]";
+            f.$vector = new float[] { i, -0.5f * i, 0.125f };
+            result.add(f);
+        }
+        return result;
+    }
+
+    private Path _writeNdjson(List<FriendsWithVectors> input) throws IOException {
+        final Path file = tempDir.resolve("friends.ndjson");
+        StringBuilder sb = new StringBuilder();
+        for (FriendsWithVectors f : input) {
+            sb.append(MAPPER.writeValueAsString(f)).append('\n');
+        }
+        Files.write(file, sb.toString().getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private void _assertSame(List<FriendsWithVectors> exp, List<FriendsWithVectors> act)
+            throws IOException {
+        assertEquals(exp.size(), act.size());
+        for (int i = 0; i < exp.size(); ++i) {
+            assertEquals(MAPPER.writeValueAsString(exp.get(i)),
+                    MAPPER.writeValueAsString(act.get(i)));
+        }
+    }
+}
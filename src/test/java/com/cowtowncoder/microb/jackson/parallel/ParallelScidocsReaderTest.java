@@ -0,0 +1,122 @@
+package com.cowtowncoder.microb.jackson.parallel;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.cowtowncoder.microb.jackson.model.HuggingFaceCohereScidocsQueries;
+
+public class ParallelScidocsReaderTest
+{
+    private final JsonMapper MAPPER = new JsonMapper();
+
+    private final ForkJoinPool POOL = new ForkJoinPool(3);
+
+    @AfterEach
+    public void tearDown() {
+        POOL.shutdown();
+    }
+
+    @Test
+    public void testReadMatchesSequential() throws Exception
+    {
+        HuggingFaceCohereScidocsQueries input = new HuggingFaceCohereScidocsQueries();
+        input.data = new ArrayList<>();
+        for (int i = 0; i < 100; ++i) {
+            HuggingFaceCohereScidocsQueries.Data d = new HuggingFaceCohereScidocsQueries.Data();
+            d._id = "id"+i;
+            // Include characters that structural pass must handle within Strings
+            d.text = "Text \"with\" [brackets], {braces} and \\ #"+i;
+            d.emb = new float[] { i, -0.5f * i, 3.25f };
+            input.data.add(d);
+        }
+        // include white space as well, to verify it is skipped
+        byte[] doc = MAPPER.writerWithDefaultPrettyPrinter().writeValueAsBytes(input);
+
+        HuggingFaceCohereScidocsQueries result = new ParallelScidocsReader(MAPPER, POOL).read(doc);
+        assertEquals(input.data.size(), result.data.size());
+        for (int i = 0; i < input.data.size(); ++i) {
+            HuggingFaceCohereScidocsQueries.Data exp = input.data.get(i);
+            HuggingFaceCohereScidocsQueries.Data act = result.data.get(i);
+            assertEquals(exp._id, act._id);
+            assertEquals(exp.text, act.text);
+            assertArrayEquals(exp.emb, act.emb);
+        }
+    }
+
+    @Test
+    public void testBoundariesOfScalars() throws Exception
+    {
+        byte[] doc = "[ 1, \"a,]\" ,[2,3], {\"x\":[]} ,null ]".getBytes(StandardCharsets.UTF_8);
+        int[] bounds = ParallelScidocsReader.findElementBoundaries(doc, 0);
+        String[] exp = { "1", "\"a,]\"", "[2,3]", "{\"x\":[]}", "null" };
+        assertEquals(exp.length * 2, bounds.length);
+        for (int i = 0; i < exp.length; ++i) {
+            assertEquals(exp[i], new String(doc, bounds[2*i], bounds[2*i+1] - bounds[2*i],
+                    StandardCharsets.UTF_8));
+        }
+        assertEquals(0, ParallelScidocsReader.findElementBoundaries("[ ]".getBytes(), 0).length);
+    }
+
+    @Test
+    public void testOtherProperties() throws Exception
+    {
+        byte[] doc = "{\"meta\":{\"data\":[1]},\"data\":[{\"_id\":\"a\"}],\"x\":3}"
+                .getBytes(StandardCharsets.UTF_8);
+        HuggingFaceCohereScidocsQueries result = new ParallelScidocsReader(MAPPER, POOL).read(doc);
+        assertEquals(1, result.data.size());
+        assertEquals("a", result.data.get(0)._id);
+        assertNull(new ParallelScidocsReader(MAPPER, POOL).read("{}".getBytes()).data);
+    }
+
+    @Test
+    public void testInvalid() throws Exception
+    {
+        ParallelScidocsReader r = new ParallelScidocsReader(MAPPER, POOL);
+        assertThrows(IOException.class, () -> r.read("{\"data\":[{\"_id\":1".getBytes()));
+        assertThrows(IOException.class, () -> r.read("{\"data\":[{\"_id\":[}]}".getBytes()));
+    }
+
+    @Test
+    public void testMissingComma() throws Exception
+    {
+        // Must not bind just the first element of a slice, silently dropping the rest
+        ParallelScidocsReader r = new ParallelScidocsReader(MAPPER, POOL);
+        assertThrows(IOException.class,
+                () -> r.read("{\"data\":[{\"_id\":\"a\"} {\"_id\":\"b\"}]}".getBytes()));
+        for (String json : new String[] { "[1 2]", "[{} []]", "[\"a\"\"b\"]", "[[]1]", "[1\"a\"]" }) {
+            assertThrows(IOException.class,
+                    () -> ParallelScidocsReader.findElementBoundaries(json.getBytes(), 0), json);
+        }
+    }
+
+    @Test
+    public void testUnbalancedClose() throws Exception
+    {
+        ParallelScidocsReader r = new ParallelScidocsReader(MAPPER, POOL);
+        assertThrows(IOException.class,
+                () -> r.read("{\"data\":[{\"_id\":\"a\"}}, {\"_id\":\"b\"}]}".getBytes()));
+        assertThrows(IOException.class,
+                () -> ParallelScidocsReader.findElementBoundaries("[1, }]".getBytes(), 0));
+    }
+
+    @Test
+    public void testMismatchedBrackets() throws Exception
+    {
+        // Not detected by structural pass (nesting depth is balanced), but
+        // by binding of slice `{"_id":"a"]`
+        ParallelScidocsReader r = new ParallelScidocsReader(MAPPER, POOL);
+        assertThrows(IOException.class,
+                () -> r.read("{\"data\":[{\"_id\":\"a\"], {\"_id\":\"b\"}]}".getBytes()));
+    }
+}
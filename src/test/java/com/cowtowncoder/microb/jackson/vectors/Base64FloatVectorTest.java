@@ -1,11 +1,22 @@
 package com.cowtowncoder.microb.jackson.vectors;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 import org.junit.jupiter.api.Test;
 
+import com.fasterxml.jackson.core.Base64Variant;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
 import com.fasterxml.jackson.databind.json.JsonMapper;
 import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 
 public class Base64FloatVectorTest
 {
@@ -23,4 +34,230 @@ public class Base64FloatVectorTest
         float[] output = mapper.readValue(json, float[].class);
         assertArrayEquals(input, output);
     }
+
+    @Test
+    public void testRoundTripSimd() throws Exception
+    {
+        // SIMD variant should produce identical encoding as scalar one
+        JsonMapper scalarMapper = _mapper(false);
+        JsonMapper simdMapper = _mapper(true);
+        // use length that is not a multiple of any lane count, to exercise tail handling
+        float[] input = new float[37];
+        for (int i = 0; i < input.length; ++i) {
+            input[i] = (i - 18) * 0.375f;
+        }
+        String json = simdMapper.writeValueAsString(input);
+        assertEquals(scalarMapper.writeValueAsString(input), json);
+        assertArrayEquals(input, simdMapper.readValue(json, float[].class));
+        assertArrayEquals(input, scalarMapper.readValue(json, float[].class));
+    }
+
+    @Test
+    public void testSimdPackingNaNs() throws Exception
+    {
+        // Non-canonical NaN must be written same way as by scalar packing;
+        // in both vectorized part and tail
+        float[] input = new float[37];
+        for (int i = 0; i < input.length; ++i) {
+            input[i] = ((i % 3) == 0) ? Float.intBitsToFloat(0x7fc00001 + i) : i;
+        }
+        byte[] exp = new byte[input.length * 4];
+        FloatPacking.SHIFTS.pack(input, exp, ByteOrder.BIG_ENDIAN);
+        byte[] packed = new byte[exp.length];
+        FloatPacking.SIMD.orFallback().pack(input, packed, ByteOrder.BIG_ENDIAN);
+        assertArrayEquals(exp, packed);
+    }
+
+    @Test
+    public void testReadPlainArray() throws Exception
+    {
+        // Must also accept "legacy" representation as JSON Array of numbers,
+        // including buffer reuse across multiple vectors (of different lengths)
+        JsonMapper mapper = _mapper(false);
+        float[][] input = new float[3][];
+        input[0] = new float[] { 1.0f, -2.5f, 3.0f };
+        input[1] = new float[2000];
+        for (int i = 0; i < input[1].length; ++i) {
+            input[1][i] = i * 0.25f;
+        }
+        input[2] = new float[0];
+        String json = new JsonMapper().writeValueAsString(input);
+        float[][] output = mapper.readValue(json, float[][].class);
+        assertEquals(input.length, output.length);
+        for (int i = 0; i < input.length; ++i) {
+            assertArrayEquals(input[i], output[i]);
+        }
+    }
+
+    @Test
+    public void testReadInvalidArray() throws Exception
+    {
+        JsonMapper mapper = _mapper(false);
+        MismatchedInputException e = assertThrows(MismatchedInputException.class,
+                () -> mapper.readValue("[1.0, \"abc\"]", float[].class));
+        assertTrue(e.getMessage().contains("expected JSON Number"), e.getMessage());
+    }
+
+    @Test
+    public void testDirectDecoding() throws Exception
+    {
+        JsonMapper mapper = _mapper(false);
+        JsonMapper directMapper = _mapper(false, true);
+        // Lengths chosen to cover all padding cases
+        for (int len = 0; len < 10; ++len) {
+            float[] input = new float[len];
+            for (int i = 0; i < len; ++i) {
+                input[i] = (i + 1) * -1.75f;
+            }
+            String json = mapper.writeValueAsString(input);
+            assertArrayEquals(input, directMapper.readValue(json, float[].class));
+
+            // and verify that direct decoding is actually used (no fallback)
+            char[] base64 = json.substring(1, json.length() - 1).toCharArray();
+            Base64Variant variant = mapper.getDeserializationConfig().getBase64Variant();
+            assertEquals(len * 4, Base64FloatDecoder.decodedLength(variant, base64, 0, base64.length));
+            float[] direct = new float[len];
+            assertTrue(Base64FloatDecoder.decode(variant, base64, 0, base64.length, direct,
+                    ByteOrder.BIG_ENDIAN));
+            assertArrayEquals(input, direct);
+        }
+    }
+
+    @Test
+    public void testDirectDecodingFallback() throws Exception
+    {
+        JsonMapper directMapper = _mapper(false, true);
+        final float[] input = new float[] { 1.0f, 2.0f };
+        String base64 = _mapper(false).readValue(_mapper(false).writeValueAsString(input), String.class);
+        // White space is allowed by Jackson decoder but not by direct one:
+        // must fall back to regular decoding
+        String json = "\""+base64.substring(0, 4)+" "+base64.substring(4)+"\"";
+        assertArrayEquals(input, directMapper.readValue(json, float[].class));
+
+        // and invalid content must still be reported
+        assertThrows(MismatchedInputException.class,
+                () -> directMapper.readValue("\"AAA!AAAA\"", float[].class));
+        // as well as content length that does not align with floats
+        assertThrows(MismatchedInputException.class,
+                () -> directMapper.readValue("\"AAAA\"", float[].class));
+    }
+
+    @Test
+    public void testOutputModes() throws Exception
+    {
+        // Use multiple vectors of different length, and length big enough to
+        // exceed generator's Base64 encoding buffer
+        float[][] input = new float[][] { new float[5003], new float[3], new float[0] };
+        for (int i = 0; i < input[0].length; ++i) {
+            input[0][i] = i * 0.125f - 7.0f;
+        }
+        input[1] = new float[] { 0.5f, -0.25f, 1e10f };
+        final String exp = _mapper(false).writeValueAsString(input);
+
+        for (Base64FloatVectorSerializer.OutputMode mode : Base64FloatVectorSerializer.OutputMode.values()) {
+            JsonMapper mapper = JsonMapper.builder()
+                    .addModule(new SimpleModule()
+                            .addDeserializer(float[].class, new Base64FloatVectorDeserializer())
+                            .addSerializer(float[].class, new Base64FloatVectorSerializer(false, mode)))
+                    .build();
+            assertEquals(exp, mapper.writeValueAsString(input), "Mode "+mode);
+        }
+    }
+
+    @Test
+    public void testFloatArrayInputStream() throws Exception
+    {
+        float[] input = new float[] { 1.0f, -2.0f, 3.5f };
+        byte[] exp = new byte[12];
+        FloatPacking.packScalar(input, exp);
+
+        // read with odd-sized chunks to exercise unaligned access
+        FloatArrayInputStream in = new FloatArrayInputStream(input, ByteOrder.BIG_ENDIAN);
+        byte[] act = new byte[12];
+        int offset = 0;
+        assertEquals(exp[0] & 0xFF, in.read());
+        act[offset++] = exp[0];
+        int count;
+        while ((count = in.read(act, offset, Math.min(3, act.length - offset))) > 0) {
+            offset += count;
+        }
+        assertEquals(12, offset);
+        assertArrayEquals(exp, act);
+        assertEquals(-1, in.read());
+    }
+
+    @Test
+    public void testPackingAndByteOrder() throws Exception
+    {
+        float[] input = new float[37];
+        for (int i = 0; i < input.length; ++i) {
+            input[i] = (i - 18) * 1.375f;
+        }
+        for (ByteOrder order : new ByteOrder[] { ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN }) {
+            // Reference encoding by JDK
+            byte[] exp = new byte[input.length * 4];
+            ByteBuffer.wrap(exp).order(order).asFloatBuffer().put(input);
+
+            for (FloatPacking packing : FloatPacking.values()) {
+                packing = packing.orFallback();
+                byte[] packed = new byte[exp.length];
+                packing.pack(input, packed, order);
+                assertArrayEquals(exp, packed, packing+"/"+order);
+                float[] unpacked = new float[input.length];
+                packing.unpack(packed, unpacked, order);
+                assertArrayEquals(input, unpacked, packing+"/"+order);
+
+                // and via mapper too, including streamed output, direct decoding
+                JsonMapper mapper = JsonMapper.builder()
+                        .addModule(new SimpleModule()
+                                .addDeserializer(float[].class,
+                                        new Base64FloatVectorDeserializer(packing, order, false))
+                                .addSerializer(float[].class, new Base64FloatVectorSerializer(packing, order,
+                                        Base64FloatVectorSerializer.OutputMode.STREAMED)))
+                        .build();
+                String json = mapper.writeValueAsString(input);
+                assertArrayEquals(exp, mapper.readValue(json, byte[].class));
+                assertArrayEquals(input, mapper.readValue(json, float[].class));
+
+                float[] direct = JsonMapper.builder()
+                        .addModule(new SimpleModule()
+                                .addDeserializer(float[].class,
+                                        new Base64FloatVectorDeserializer(packing, order, true)))
+                        .build()
+                        .readValue(json, float[].class);
+                assertArrayEquals(input, direct);
+            }
+        }
+    }
+
+    @Test
+    public void testBinaryFormats() throws Exception
+    {
+        // With binary formats, packed floats are written as raw binary, not Base64
+        float[] input = new float[] { 1.0f, 2.0f, -0.5f, 12.25f, -99999.5f, 0.0f };
+        for (ObjectMapper mapper : new ObjectMapper[] {
+                SmileMapper.builder().addModule(_module()).build(),
+                CBORMapper.builder().addModule(_module()).build() }) {
+            byte[] encoded = mapper.writeValueAsBytes(input);
+            assertArrayEquals(input, mapper.readValue(encoded, float[].class));
+        }
+    }
+
+    private SimpleModule _module() {
+        return new SimpleModule()
+                .addDeserializer(float[].class, new Base64FloatVectorDeserializer())
+                .addSerializer(float[].class, new Base64FloatVectorSerializer());
+    }
+
+    private JsonMapper _mapper(boolean useSimd) {
+        return _mapper(useSimd, false);
+    }
+
+    private JsonMapper _mapper(boolean useSimd, boolean decodeDirect) {
+        return JsonMapper.builder()
+                .addModule(new SimpleModule()
+                        .addDeserializer(float[].class, new Base64FloatVectorDeserializer(useSimd, decodeDirect))
+                        .addSerializer(float[].class, new Base64FloatVectorSerializer(useSimd)))
+                .build();
+    }
 }
@@ -0,0 +1,93 @@
+package com.cowtowncoder.microb.jackson.vectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+
+public class Base64HalfFloatVectorTest
+{
+    @Test
+    public void testFloat16AllValuesRoundTrip()
+    {
+        // Every non-NaN 16-bit value must survive float conversion as-is
+        for (int h = 0; h < 0x10000; ++h) {
+            float f = HalfFloatFormat.FLOAT16.fromBits(h);
+            if (Float.isNaN(f)) {
+                assertTrue(Float.isNaN(HalfFloatFormat.FLOAT16.fromBits(HalfFloatFormat.FLOAT16.toBits(f))));
+            } else {
+                assertEquals(h, HalfFloatFormat.FLOAT16.toBits(f), "For 0x"+Integer.toHexString(h));
+            }
+        }
+    }
+
+    @Test
+    public void testFloat16Specials()
+    {
+        final HalfFloatFormat f16 = HalfFloatFormat.FLOAT16;
+        assertEquals(65504.0f, f16.fromBits(f16.toBits(65504.0f)));
+        assertEquals(Float.POSITIVE_INFINITY, f16.fromBits(f16.toBits(65520.0f)));
+        assertEquals(Float.NEGATIVE_INFINITY, f16.fromBits(f16.toBits(-1.0e10f)));
+        assertEquals(0x1.0p-24f, f16.fromBits(f16.toBits(0x1.0p-24f)));
+        // exactly halfway to smallest subnormal: ties-to-even means zero
+        assertEquals(0.0f, f16.fromBits(f16.toBits(0x1.0p-25f)));
+        assertEquals(0x8000, f16.toBits(-0.0f));
+        // 1 + 2^-11 is halfway between 1.0 and next value: rounds to even (1.0)
+        assertEquals(1.0f, f16.fromBits(f16.toBits(1.0f + 0x1.0p-11f)));
+    }
+
+    @Test
+    public void testErrorBounds()
+    {
+        Random r = new Random(123);
+        for (int i = 0; i < 100_000; ++i) {
+            // Normal range of float16 for relative bound
+            float f = (1.0f + r.nextFloat()) * Math.scalb(1.0f, r.nextInt(29) - 14);
+            if (r.nextBoolean()) {
+                f = -f;
+            }
+            _verifyBound(HalfFloatFormat.FLOAT16, f, 0x1.0p-11f);
+            _verifyBound(HalfFloatFormat.BFLOAT16, f, 0x1.0p-8f);
+            // but bfloat16 has same range as float32
+            float big = f * 0x1.0p100f;
+            _verifyBound(HalfFloatFormat.BFLOAT16, big, 0x1.0p-8f);
+            // and for float16 subnormals, absolute error at most half of smallest step
+            float tiny = (r.nextFloat() - 0.5f) * 0x1.0p-13f;
+            float result = HalfFloatFormat.FLOAT16.fromBits(HalfFloatFormat.FLOAT16.toBits(tiny));
+            assertTrue(Math.abs(result - tiny) <= 0x1.0p-25f, "Subnormal "+tiny+" -> "+result);
+        }
+    }
+
+    @Test
+    public void testRoundTripWithMapper() throws Exception
+    {
+        float[] input = new float[] { 1.0f, 2.0f, -0.5f, 12.25f, -1024.5f, 0.0f, 0.1f };
+        for (HalfFloatFormat format : HalfFloatFormat.values()) {
+            JsonMapper mapper = JsonMapper.builder()
+                    .addModule(new SimpleModule()
+                            .addDeserializer(float[].class, new Base64HalfFloatVectorDeserializer(format))
+                            .addSerializer(float[].class, new Base64HalfFloatVectorSerializer(format)))
+                    .build();
+            byte[] binary = mapper.readValue(mapper.writeValueAsString(input), byte[].class);
+            assertEquals(input.length * 2, binary.length);
+
+            float[] output = mapper.readValue(mapper.writeValueAsString(input), float[].class);
+            assertEquals(input.length, output.length);
+            for (int i = 0; i < input.length; ++i) {
+                assertEquals(format.fromBits(format.toBits(input[i])), output[i]);
+            }
+        }
+    }
+
+    private void _verifyBound(HalfFloatFormat format, float f, float maxRelError) {
+        float result = format.fromBits(format.toBits(f));
+        float error = Math.abs(result - f);
+        assertTrue(error <= Math.abs(f) * maxRelError,
+                format+": value "+f+" -> "+result+" (error "+error+")");
+    }
+}
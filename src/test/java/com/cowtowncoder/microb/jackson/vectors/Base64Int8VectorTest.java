@@ -0,0 +1,78 @@
+package com.cowtowncoder.microb.jackson.vectors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+
+public class Base64Int8VectorTest
+{
+    private final JsonMapper MAPPER = JsonMapper.builder()
+            .addModule(new SimpleModule()
+                    .addDeserializer(float[].class, new Base64Int8VectorDeserializer())
+                    .addSerializer(float[].class, new Base64Int8VectorSerializer()))
+            .build();
+
+    @Test
+    public void testErrorBound() throws Exception
+    {
+        Random r = new Random(42);
+        float[] input = new float[1024];
+        for (int i = 0; i < input.length; ++i) {
+            input[i] = (float) r.nextGaussian() * 0.05f;
+        }
+        String json = MAPPER.writeValueAsString(input);
+        // 8-byte header, 1 byte per value
+        assertEquals(8 + input.length, MAPPER.readValue(json, byte[].class).length);
+
+        float[] output = MAPPER.readValue(json, float[].class);
+        assertEquals(input.length, output.length);
+
+        float min = input[0], max = input[0];
+        for (float f : input) {
+            min = Math.min(min, f);
+            max = Math.max(max, f);
+        }
+        // allow tiny bit of slack for float arithmetic on top of half a step
+        final float maxError = (max - min) / 255f * 0.5f * 1.001f;
+        for (int i = 0; i < input.length; ++i) {
+            assertTrue(Math.abs(input[i] - output[i]) <= maxError,
+                    "Value #"+i+": "+input[i]+" -> "+output[i]);
+        }
+    }
+
+    @Test
+    public void testConstantAndEmpty() throws Exception
+    {
+        float[] constant = new float[] { 0.25f, 0.25f, 0.25f };
+        assertArrayEquals(constant, MAPPER.readValue(MAPPER.writeValueAsString(constant), float[].class));
+        float[] empty = new float[0];
+        assertArrayEquals(empty, MAPPER.readValue(MAPPER.writeValueAsString(empty), float[].class));
+    }
+
+    @Test
+    public void testNonFinite() throws Exception
+    {
+        assertThrows(JsonMappingException.class,
+                () -> MAPPER.writeValueAsString(new float[] { 1.0f, Float.NaN }));
+        assertThrows(JsonMappingException.class,
+                () -> MAPPER.writeValueAsString(new float[] { 1.0f, Float.POSITIVE_INFINITY }));
+    }
+
+    @Test
+    public void testRangeOverflow() throws Exception
+    {
+        // all values finite, but `max - min` is not
+        JsonMappingException e = assertThrows(JsonMappingException.class,
+                () -> MAPPER.writeValueAsString(new float[] { -3e38f, 3e38f }));
+        assertTrue(e.getMessage().contains("range overflows"), e.getMessage());
+    }
+}
@@ -0,0 +1,111 @@
+package com.cowtowncoder.microb.jackson.vectors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.cowtowncoder.microb.jackson.model.HuggingFaceCohereScidocsQueries;
+
+public class FlatVectorFileTest
+{
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testWriteAndRead() throws Exception
+    {
+        List<HuggingFaceCohereScidocsQueries.Data> data = new ArrayList<>();
+        for (int i = 0; i < 20; ++i) {
+            HuggingFaceCohereScidocsQueries.Data d = new HuggingFaceCohereScidocsQueries.Data();
+            d._id = "id"+i;
+            // null and non-ASCII Strings as well
+            d.text = (i == 3) ? null : "Text #"+i+" é中";
+            d.emb = new float[] { i, -0.25f * i, Float.MIN_VALUE, 1e10f, 7f };
+            data.add(d);
+        }
+        Path path = tempDir.resolve("test.fvec");
+        FlatVectorFile.write(data, path);
+
+        FlatVectorFile f = FlatVectorFile.open(path);
+        assertEquals(20, f.size());
+        assertEquals(5, f.dimension());
+        float[] query = { 1f, 2f, 0f, 0f, 0.5f };
+        for (int i = 0; i < 20; ++i) {
+            HuggingFaceCohereScidocsQueries.Data d = data.get(i);
+            assertEquals(d._id, f.id(i));
+            assertEquals(d.text, f.text(i));
+            assertArrayEquals(d.emb, f.vector(i));
+            assertEquals(i - 0.5f * i + 3.5f, f.dot(i, query), 1e-5);
+        }
+        assertNull(f.text(3));
+        assertThrows(IndexOutOfBoundsException.class, () -> f.vector(20));
+
+        // and same via separate mapping
+        FlatVectorFile f2 = FlatVectorFile.wrap(FlatVectorFile.map(path));
+        assertEquals(20, f2.size());
+        assertEquals(data.get(7)._id, f2.id(7));
+        assertArrayEquals(data.get(7).emb, f2.vector(7));
+    }
+
+    @Test
+    public void testEmptyAndInvalid() throws Exception
+    {
+        Path path = tempDir.resolve("empty.fvec");
+        FlatVectorFile.write(new ArrayList<>(), path);
+        FlatVectorFile f = FlatVectorFile.open(path);
+        assertEquals(0, f.size());
+
+        Path bogus = tempDir.resolve("bogus.fvec");
+        Files.write(bogus, "{\"data\":[]}".getBytes());
+        assertThrows(IOException.class, () -> FlatVectorFile.open(bogus));
+
+        List<HuggingFaceCohereScidocsQueries.Data> data = new ArrayList<>();
+        for (int i = 1; i <= 2; ++i) {
+            HuggingFaceCohereScidocsQueries.Data d = new HuggingFaceCohereScidocsQueries.Data();
+            d.emb = new float[i];
+            data.add(d);
+        }
+        assertThrows(IllegalArgumentException.class, () -> FlatVectorFile.write(data, bogus));
+    }
+
+    @Test
+    public void testCorruptOffsets() throws Exception
+    {
+        List<HuggingFaceCohereScidocsQueries.Data> data = new ArrayList<>();
+        HuggingFaceCohereScidocsQueries.Data d = new HuggingFaceCohereScidocsQueries.Data();
+        d._id = "abc";
+        d.emb = new float[] { 1f, 2f };
+        data.add(d);
+        Path path = tempDir.resolve("corrupt.fvec");
+        FlatVectorFile.write(data, path);
+        final byte[] valid = Files.readAllBytes(path);
+
+        // vectors offset (at 16) negative, or within header
+        for (long vectorsOffset : new long[] { -64L, 0L, 8L }) {
+            ByteBuffer buf = ByteBuffer.wrap(valid.clone()).order(ByteOrder.LITTLE_ENDIAN);
+            buf.putLong(16, vectorsOffset);
+            IOException e = assertThrows(IOException.class, () -> FlatVectorFile.wrap(buf));
+            assertTrue(e.getMessage().contains("corrupt header"), e.getMessage());
+        }
+
+        // String offset of the first row (first int of side table) out of bounds
+        ByteBuffer buf = ByteBuffer.wrap(valid.clone()).order(ByteOrder.LITTLE_ENDIAN);
+        buf.putInt((int) buf.getLong(24), 1000);
+        FlatVectorFile f = FlatVectorFile.wrap(buf);
+        assertArrayEquals(d.emb, f.vector(0));
+        assertThrows(IllegalStateException.class, () -> f.id(0));
+    }
+}
@@ -0,0 +1,93 @@
+package com.cowtowncoder.microb.jackson.vectors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.jr.ob.JSON;
+import com.fasterxml.jackson.jr.ob.JSONObjectException;
+import com.cowtowncoder.microb.jackson.model.HuggingFaceCohereScidocsQueries;
+
+public class FloatVectorJrExtensionTest
+{
+    private final JSON JR_ARRAY = FloatVectorJrExtension.builder(false).build();
+    private final JSON JR_BASE64 = FloatVectorJrExtension.builder(true).build();
+
+    @Test
+    public void testRoundtrip() throws Exception
+    {
+        HuggingFaceCohereScidocsQueries input = _input();
+        for (JSON json : new JSON[] { JR_ARRAY, JR_BASE64 }) {
+            byte[] doc = json.asBytes(input);
+            _verify(input, json.beanFrom(HuggingFaceCohereScidocsQueries.class, doc));
+        }
+        // Array variant must produce same as databind; Base64 variant
+        // same as databind with Base64 codecs
+        JsonMapper vanilla = new JsonMapper();
+        JsonMapper base64 = JsonMapper.builder()
+                .addModule(new SimpleModule()
+                        .addDeserializer(float[].class, new Base64FloatVectorDeserializer())
+                        .addSerializer(float[].class, new Base64FloatVectorSerializer()))
+                .build();
+        _verify(input, JR_ARRAY.beanFrom(HuggingFaceCohereScidocsQueries.class,
+                vanilla.writeValueAsBytes(input)));
+        _verify(input, JR_BASE64.beanFrom(HuggingFaceCohereScidocsQueries.class,
+                base64.writeValueAsBytes(input)));
+        _verify(input, base64.readValue(JR_BASE64.asBytes(input), HuggingFaceCohereScidocsQueries.class));
+    }
+
+    @Test
+    public void testArrayAndNullInBase64Mode() throws Exception
+    {
+        HuggingFaceCohereScidocsQueries.Data d = JR_BASE64.beanFrom(HuggingFaceCohereScidocsQueries.Data.class,
+                "{\"_id\":\"a\",\"emb\":[1, 0.5, -2]}");
+        assertArrayEquals(new float[] { 1f, 0.5f, -2f }, d.emb);
+        d = JR_BASE64.beanFrom(HuggingFaceCohereScidocsQueries.Data.class, "{\"emb\":null}");
+        assertNull(d.emb);
+    }
+
+    @Test
+    public void testInvalid() throws Exception
+    {
+        // not Base64 in array mode; not numbers; not multiple of 4 bytes
+        assertThrows(JSONObjectException.class, () -> JR_ARRAY.beanFrom(HuggingFaceCohereScidocsQueries.Data.class,
+                "{\"emb\":\"AAAAAA==\"}"));
+        assertThrows(JSONObjectException.class, () -> JR_BASE64.beanFrom(HuggingFaceCohereScidocsQueries.Data.class,
+                "{\"emb\":[1,\"x\"]}"));
+        assertThrows(JSONObjectException.class, () -> JR_BASE64.beanFrom(HuggingFaceCohereScidocsQueries.Data.class,
+                "{\"emb\":\"AAAA\"}"));
+    }
+
+    private static HuggingFaceCohereScidocsQueries _input() {
+        HuggingFaceCohereScidocsQueries input = new HuggingFaceCohereScidocsQueries();
+        input.data = new ArrayList<>();
+        for (int i = 0; i < 10; ++i) {
+            HuggingFaceCohereScidocsQueries.Data d = new HuggingFaceCohereScidocsQueries.Data();
+            d._id = "id"+i;
+            d.text = "Text #"+i;
+            // enough entries to require growing of array buffer
+            d.emb = new float[100 + i];
+            for (int j = 0; j < d.emb.length; ++j) {
+                d.emb[j] = (j - 50) * 0.125f + i;
+            }
+            input.data.add(d);
+        }
+        return input;
+    }
+
+    private static void _verify(HuggingFaceCohereScidocsQueries exp, HuggingFaceCohereScidocsQueries act) {
+        assertEquals(exp.data.size(), act.data.size());
+        for (int i = 0; i < exp.data.size(); ++i) {
+            assertEquals(exp.data.get(i)._id, act.data.get(i)._id);
+            assertEquals(exp.data.get(i).text, act.data.get(i).text);
+            assertArrayEquals(exp.data.get(i).emb, act.data.get(i).emb);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.cowtowncoder.microb.jackson.vectors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.cowtowncoder.microb.jackson.model.HuggingFaceCohereScidocsQueries;
+import com.cowtowncoder.microb.jackson.model.OffHeapScidocsQueries;
+
+public class OffHeapVectorStoreTest
+{
+    private final JsonMapper MAPPER = new JsonMapper();
+
+    @Test
+    public void testReadDocument() throws Exception
+    {
+        // Enough docs to force store to grow from minimal initial capacity
+        HuggingFaceCohereScidocsQueries input = new HuggingFaceCohereScidocsQueries();
+        input.data = new ArrayList<>();
+        for (int i = 0; i < 50; ++i) {
+            HuggingFaceCohereScidocsQueries.Data d = new HuggingFaceCohereScidocsQueries.Data();
+            d._id = "id"+i;
+            d.text = "Text #"+i;
+            d.emb = new float[] { i, -i, i * 0.5f, 1.0f };
+            input.data.add(d);
+        }
+        byte[] json = MAPPER.writeValueAsBytes(input);
+
+        OffHeapVectorStore store = new OffHeapVectorStore(16);
+        OffHeapScidocsQueries result = MAPPER.readerFor(OffHeapScidocsQueries.class)
+                .withAttribute(OffHeapVectorDeserializer.ATTR_STORE, store)
+                .readValue(json);
+        assertEquals(50, store.size());
+        assertEquals(4, store.dimension());
+
+        List<OffHeapScidocsQueries.Data> docs = result.data;
+        assertEquals(input.data.size(), docs.size());
+        for (int i = 0; i < docs.size(); ++i) {
+            OffHeapScidocsQueries.Data d = docs.get(i);
+            assertEquals("id"+i, d._id);
+            assertArrayEquals(input.data.get(i).emb, store.copyVector(d.emb, new float[4]));
+            assertEquals(input.data.get(i).emb[2], store.view(d.emb).get(2));
+            assertEquals(i + i + 0.5f * i * 2.0f + 1.0f,
+                    store.dot(d.emb, new float[] { 1.0f, -1.0f, 2.0f, 1.0f }));
+        }
+    }
+
+    @Test
+    public void testMultipleSegments() throws Exception
+    {
+        // Segments of 10 floats hold 3 vectors of 3 floats each
+        OffHeapVectorStore store = new OffHeapVectorStore(4, 10);
+        for (int round = 0; round < 2; ++round) {
+            for (int i = 0; i < 20; ++i) {
+                assertEquals(i, store.add(new float[] { i, i + 0.5f, -i }));
+            }
+            assertEquals(20, store.size());
+            // first segment of 10 floats, then 6 allocated for exactly 3 vectors
+            assertEquals((10 + 6 * 9) * 4, store.capacityInBytes());
+            for (int i = 0; i < 20; ++i) {
+                assertArrayEquals(new float[] { i, i + 0.5f, -i }, store.copyVector(i, new float[3]));
+                assertEquals(i + 0.5f, store.view(i).get(1));
+                assertEquals(2.0f * i, store.dot(i, new float[] { 1.0f, 0.0f, -1.0f }));
+            }
+            // and same again after clearing: segments are reused
+            store.clear();
+            assertEquals(0, store.size());
+            assertEquals(-1, store.dimension());
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> store.get(0, 0));
+
+        // and vectors that do not fit in a segment can not be stored
+        assertThrows(IllegalArgumentException.class, () -> store.add(new float[11]));
+    }
+
+    @Test
+    public void testOverlongVectorNotStored() throws Exception
+    {
+        // Initial capacity exactly fits 4 vectors of 4 floats
+        OffHeapVectorStore store = new OffHeapVectorStore(16, 1000);
+        for (int i = 0; i < 4; ++i) {
+            store.add(new float[] { i, i, i, i });
+        }
+        assertEquals(16 * 4, store.capacityInBytes());
+        // overlong vector must be rejected without growing the segment beyond
+        // what its first 4 floats need (16 -> 24 floats)
+        assertThrows(IllegalArgumentException.class, () -> store.add(new float[500]));
+        assertEquals(24 * 4, store.capacityInBytes());
+        assertEquals(4, store.size());
+        assertEquals(4, store.add(new float[] { 4, 4, 4, 4 }));
+        assertArrayEquals(new float[] { 3, 3, 3, 3 }, store.copyVector(3, new float[4]));
+    }
+
+    @Test
+    public void testDimensionMismatch() throws Exception
+    {
+        String json = "{\"data\":[{\"emb\":[1,2,3]},{\"emb\":[1,2]}]}";
+        assertThrows(MismatchedInputException.class,
+                () -> MAPPER.readerFor(OffHeapScidocsQueries.class)
+                    .withAttribute(OffHeapVectorDeserializer.ATTR_STORE, new OffHeapVectorStore())
+                    .readValue(json));
+    }
+}
@@ -0,0 +1,167 @@
+package com.cowtowncoder.microb.jackson.vectors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.NoSuchElementException;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.cowtowncoder.microb.jackson.model.HuggingFaceCohereScidocsQueries;
+
+public class StreamingScidocsReaderTest
+{
+    private final JsonMapper MAPPER = new JsonMapper();
+
+    @Test
+    public void testReadMatchesFullRead() throws Exception
+    {
+        HuggingFaceCohereScidocsQueries input = new HuggingFaceCohereScidocsQueries();
+        input.data = new ArrayList<>();
+        for (int i = 0; i < 50; ++i) {
+            HuggingFaceCohereScidocsQueries.Data d = new HuggingFaceCohereScidocsQueries.Data();
+            d._id = "id"+i;
+            d.text = "Text #"+i;
+            d.emb = new float[] { i, -0.5f * i, 3.25f };
+            input.data.add(d);
+        }
+        byte[] doc = MAPPER.writeValueAsBytes(input);
+
+        int count = 0;
+        try (StreamingScidocsReader r = StreamingScidocsReader.open(MAPPER, new ByteArrayInputStream(doc))) {
+            while (r.hasNext()) {
+                HuggingFaceCohereScidocsQueries.Data exp = input.data.get(count++);
+                HuggingFaceCohereScidocsQueries.Data act = r.next();
+                assertEquals(exp._id, act._id);
+                assertEquals(exp.text, act.text);
+                assertArrayEquals(exp.emb, act.emb);
+            }
+        }
+        assertEquals(input.data.size(), count);
+    }
+
+    @Test
+    public void testOtherPropertiesAndEmpty() throws Exception
+    {
+        try (StreamingScidocsReader r = _open("{\"meta\":{\"data\":[1]},\"data\":[{\"_id\":\"a\"}],\"x\":3}")) {
+            assertTrue(r.hasNext());
+            assertEquals("a", r.next()._id);
+            assertFalse(r.hasNext());
+        }
+        for (String doc : new String[] { "{}", "{\"data\":[]}", "{\"data\":null}" }) {
+            try (StreamingScidocsReader r = _open(doc)) {
+                assertFalse(r.hasNext());
+                assertThrows(NoSuchElementException.class, () -> r.next());
+            }
+        }
+        assertThrows(IOException.class, () -> _open("[]"));
+        assertThrows(IOException.class, () -> _open("{\"data\":3}"));
+    }
+
+    // Verifies that elements are bound as input is read, instead of reading
+    // the whole document first: document is generated on-the-fly, and only
+    // a small part of it must have been produced when the first element is
+    // returned (actual memory usage is reported by `StreamingVectorReading`)
+    @Test
+    public void testReadIncrementally() throws Exception
+    {
+        final int docCount = 2_000;
+        final int dimension = 512;
+        final GeneratedDocInputStream in = new GeneratedDocInputStream(docCount, dimension);
+        int count = 0;
+
+        try (StreamingScidocsReader r = StreamingScidocsReader.open(MAPPER, in)) {
+            while (r.hasNext()) {
+                HuggingFaceCohereScidocsQueries.Data d = r.next();
+                assertEquals(dimension, d.emb.length);
+                assertEquals(count, (int) d.emb[0]);
+                // Parser reads ahead a bit, but by no more than a few elements
+                assertTrue(in.generated() <= count + 10,
+                        "Generated "+in.generated()+" elements after reading "+(count + 1));
+                ++count;
+            }
+        }
+        assertEquals(docCount, count);
+    }
+
+    private StreamingScidocsReader _open(String doc) throws IOException {
+        return StreamingScidocsReader.open(MAPPER,
+                new ByteArrayInputStream(doc.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Input stream that produces a {@code {"data":[...]}} document with
+     * given number of elements, one element at a time.
+     */
+    static class GeneratedDocInputStream extends InputStream
+    {
+        private final int _docCount;
+        private final int _dimension;
+
+        private int _index = -1;
+        private byte[] _chunk = "{\"data\":[".getBytes(StandardCharsets.UTF_8);
+        private int _offset;
+
+        GeneratedDocInputStream(int docCount, int dimension) {
+            _docCount = docCount;
+            _dimension = dimension;
+        }
+
+        /**
+         * @return Number of elements generated so far
+         */
+        public int generated() {
+            return Math.min(_index + 1, _docCount);
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return (read(b, 0, 1) < 0) ? -1 : (b[0] & 0xFF);
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (_offset >= _chunk.length && !_nextChunk()) {
+                return -1;
+            }
+            len = Math.min(len, _chunk.length - _offset);
+            System.arraycopy(_chunk, _offset, b, off, len);
+            _offset += len;
+            return len;
+        }
+
+        private boolean _nextChunk() {
+            if (_index >= _docCount) {
+                return false;
+            }
+            ++_index;
+            StringBuilder sb = new StringBuilder();
+            if (_index == _docCount) {
+                sb.append("]}");
+            } else {
+                if (_index > 0) {
+                    sb.append(',');
+                }
+                sb.append("{\"_id\":\"doc").append(_index)
+                    .append("\",\"text\":\"Synthetic document\",\"emb\":[").append(_index);
+                for (int i = 1; i < _dimension; ++i) {
+                    sb.append(',').append(0.001f * i);
+                }
+                sb.append("]}");
+            }
+            _chunk = sb.toString().getBytes(StandardCharsets.UTF_8);
+            _offset = 0;
+            return true;
+        }
+    }
+}
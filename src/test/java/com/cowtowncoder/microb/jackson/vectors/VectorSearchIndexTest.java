@@ -0,0 +1,117 @@
+package com.cowtowncoder.microb.jackson.vectors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+public class VectorSearchIndexTest
+{
+    @Test
+    public void testDotProducts()
+    {
+        Random r = new Random(123);
+        // Include lengths that are not multiples of unroll factor/lane count
+        for (int len : new int[] { 0, 1, 3, 4, 7, 16, 33, 1024 }) {
+            float[] matrix = new float[len + 5];
+            float[] v = new float[len];
+            for (int i = 0; i < matrix.length; ++i) {
+                matrix[i] = r.nextFloat() - 0.5f;
+            }
+            for (int i = 0; i < len; ++i) {
+                v[i] = r.nextFloat() - 0.5f;
+            }
+            double exp = 0.0;
+            for (int i = 0; i < len; ++i) {
+                exp += matrix[5 + i] * v[i];
+            }
+            for (DotProduct dot : DotProduct.values()) {
+                assertEquals(exp, dot.orFallback().dot(matrix, 5, v, len), 1e-4,
+                        "Dot product "+dot+" for length "+len);
+            }
+        }
+    }
+
+    @Test
+    public void testTopK()
+    {
+        TopK topK = new TopK(3);
+        float[] scores = { 0.5f, 0.1f, 0.9f, 0.3f, 0.9f, 0.7f, -1f };
+        for (int i = 0; i < scores.length; ++i) {
+            topK.offer(i, scores[i]);
+        }
+        assertEquals(3, topK.size());
+        assertEquals(0.7f, topK.threshold());
+        assertArrayEquals(new int[] { 2, 4, 5 }, topK.sortedRows());
+
+        TopK other = new TopK(3);
+        other.offer(10, 0.8f);
+        assertArrayEquals(new int[] { 2, 4, 10 }, topK.merge(other).sortedRows());
+        assertThrows(IllegalArgumentException.class, () -> new TopK(0));
+    }
+
+    @Test
+    public void testSearchMatchesSort()
+    {
+        final int dim = 37;
+        Random r = new Random(42);
+        List<float[]> vectors = new ArrayList<>();
+        for (int i = 0; i < 500; ++i) {
+            float[] v = new float[dim];
+            for (int j = 0; j < dim; ++j) {
+                v[j] = (float) r.nextGaussian();
+            }
+            vectors.add(v);
+        }
+        VectorSearchIndex index = new VectorSearchIndex(vectors, true);
+        float[] query = index.prepareQuery(vectors.get(17));
+
+        int[] exp = IntStream.range(0, vectors.size()).boxed()
+                .sorted(Comparator.comparingDouble(row -> -_cosine(vectors.get(row), vectors.get(17))))
+                .limit(10)
+                .mapToInt(Integer::intValue)
+                .toArray();
+        assertEquals(17, exp[0]);
+
+        for (DotProduct dot : DotProduct.values()) {
+            dot = dot.orFallback();
+            assertArrayEquals(exp, index.search(query, 10, dot), "Kernel "+dot);
+            assertArrayEquals(exp, index.searchParallel(query, 10, dot, 7), "Kernel (parallel) "+dot);
+        }
+        assertEquals(1.0f, index.score(17, query, DotProduct.SCALAR), 1e-5);
+        // more partitions than rows, more results than rows
+        assertEquals(500, index.searchParallel(query, 1000, DotProduct.SCALAR, 1000).length);
+        assertThrows(IllegalArgumentException.class, () -> index.prepareQuery(new float[3]));
+        assertThrows(IllegalArgumentException.class, () -> index.searchParallel(query, 10, DotProduct.SCALAR, 0));
+        assertThrows(IllegalArgumentException.class, () -> index.searchParallel(query, 10, DotProduct.SCALAR, -1));
+    }
+
+    @Test
+    public void testTooBigMatrix()
+    {
+        // 70k rows of 40k dimensions exceed max `float[]` size
+        List<float[]> vectors = Collections.nCopies(70_000, new float[40_000]);
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> new VectorSearchIndex(vectors, false));
+        assertTrue(e.getMessage().contains("Too many vectors"), e.getMessage());
+    }
+
+    private static double _cosine(float[] a, float[] b) {
+        double dot = 0.0, na = 0.0, nb = 0.0;
+        for (int i = 0; i < a.length; ++i) {
+            dot += a[i] * b[i];
+            na += a[i] * a[i];
+            nb += b[i] * b[i];
+        }
+        return dot / Math.sqrt(na * nb);
+    }
+}